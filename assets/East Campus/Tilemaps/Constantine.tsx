@@ -1,4 +1,7 @@
 <?xml version="1.0" encoding="UTF-8"?>
 <tileset version="1.10" tiledversion="1.10.2" name="Constantine" tilewidth="24" tileheight="24" tilecount="165" columns="15">
+ <properties>
+  <property name="surface" value="path"/>
+ </properties>
  <image source="../Textures/Constantine.png" width="372" height="273"/>
 </tileset>
@@ -1,17 +1,106 @@
 <?xml version="1.0" encoding="UTF-8"?>
 <tileset version="1.10" tiledversion="1.10.2" name="StarRealmsCozyForestPack24x24" tilewidth="24" tileheight="24" tilecount="528" columns="22">
  <image source="../Textures/StarRealmsCozyForestPack24x24.png" width="550" height="576"/>
+ <tile id="0">
+  <properties>
+   <property name="surface" value="grass"/>
+  </properties>
+ </tile>
+ <tile id="2">
+  <properties>
+   <property name="surface" value="grass"/>
+  </properties>
+ </tile>
+ <tile id="44">
+  <properties>
+   <property name="surface" value="grass"/>
+  </properties>
+ </tile>
+ <tile id="46">
+  <properties>
+   <property name="surface" value="grass"/>
+  </properties>
+ </tile>
  <tile id="47" probability="0.01"/>
  <tile id="48" probability="0.01"/>
+ <tile id="66">
+  <properties>
+   <property name="surface" value="path"/>
+  </properties>
+ </tile>
+ <tile id="67">
+  <properties>
+   <property name="surface" value="grass"/>
+  </properties>
+ </tile>
+ <tile id="68">
+  <properties>
+   <property name="surface" value="path"/>
+  </properties>
+ </tile>
+ <tile id="69">
+  <properties>
+   <property name="surface" value="grass"/>
+  </properties>
+ </tile>
+ <tile id="70">
+  <properties>
+   <property name="surface" value="grass"/>
+  </properties>
+ </tile>
  <tile id="71" probability="0.01"/>
  <tile id="72" probability="0.01"/>
  <tile id="73" probability="0.005"/>
  <tile id="74" probability="0.005"/>
- <tile id="89" probability="0.96"/>
+ <tile id="88">
+  <properties>
+   <property name="surface" value="grass"/>
+  </properties>
+ </tile>
+ <tile id="89" probability="0.96">
+  <properties>
+   <property name="surface" value="grass"/>
+  </properties>
+ </tile>
+ <tile id="90">
+  <properties>
+   <property name="surface" value="grass"/>
+  </properties>
+ </tile>
+ <tile id="91">
+  <properties>
+   <property name="surface" value="grass"/>
+  </properties>
+ </tile>
+ <tile id="92">
+  <properties>
+   <property name="surface" value="grass"/>
+  </properties>
+ </tile>
  <tile id="93" probability="0.01"/>
  <tile id="94" probability="0.005"/>
  <tile id="95" probability="0.005"/>
  <tile id="96" probability="0.005"/>
+ <tile id="110">
+  <properties>
+   <property name="surface" value="path"/>
+  </properties>
+ </tile>
+ <tile id="111">
+  <properties>
+   <property name="surface" value="grass"/>
+  </properties>
+ </tile>
+ <tile id="112">
+  <properties>
+   <property name="surface" value="path"/>
+  </properties>
+ </tile>
+ <tile id="113">
+  <properties>
+   <property name="surface" value="path"/>
+  </properties>
+ </tile>
  <tile id="115" probability="0.01"/>
  <tile id="116" probability="0.005"/>
  <tile id="117" probability="0.005"/>
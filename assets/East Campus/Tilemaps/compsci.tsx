@@ -1,4 +1,7 @@
 <?xml version="1.0" encoding="UTF-8"?>
 <tileset version="1.10" tiledversion="1.10.2" name="compsci" tilewidth="24" tileheight="24" tilecount="144" columns="12">
+ <properties>
+  <property name="surface" value="path"/>
+ </properties>
  <image source="../Textures/compsci.png" width="288" height="288"/>
 </tileset>
@@ -1,4 +1,7 @@
 <?xml version="1.0" encoding="UTF-8"?>
 <tileset version="1.10" tiledversion="1.10.2" name="TX Tileset Stone Ground" tilewidth="16" tileheight="16" tilecount="256" columns="16">
+ <properties>
+  <property name="surface" value="path"/>
+ </properties>
  <image source="../Textures/TX Tileset Stone Ground.png" width="256" height="256"/>
 </tileset>
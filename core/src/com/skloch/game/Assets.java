@@ -0,0 +1,128 @@
+package com.skloch.game;
+
+import com.badlogic.gdx.assets.AssetDescriptor;
+import com.badlogic.gdx.assets.AssetLoaderParameters;
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.assets.loaders.AsynchronousAssetLoader;
+import com.badlogic.gdx.assets.loaders.FileHandleResolver;
+import com.badlogic.gdx.audio.Music;
+import com.badlogic.gdx.audio.Sound;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.scenes.scene2d.ui.Skin;
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * The paths of every file the game loads, and a method to queue them all on an AssetManager.
+ * Screens get their assets from game.assets with these paths instead of loading files themselves, so nothing is
+ * read from disk once LoadingScreen has finished.
+ */
+public class Assets {
+    // Interface
+    public static final String SKIN = "Interface/BlockyInterface.json";
+    public static final String ENERGY_BAR = "Interface/Energy Bar/green_bar.png";
+    public static final String ENERGY_BAR_OUTLINE = "Interface/Energy Bar/bar_outline.png";
+    public static final String TITLE = "title.png";
+    public static final String WHITE_SQUARE = "Sprites/white_square.png";
+    public static final String BLACK_SQUARE = "Sprites/black_square.png";
+    public static final String PLAYER_ATLAS = "Sprites/Player/player_sprites.atlas";
+    // Map
+    public static final String MAP = "East Campus/east_campus.tmx";
+    public static final String BAKED_MAP = "East Campus/east_campus.map"; // Made from MAP by gradle core:bakeMap
+    public static final String TEST_MAP = "Test Map/testmap.tmx";
+    // Music
+    public static final String OVERWORLD_MUSIC = "Music/OverworldMusic.mp3";
+    public static final String MENU_MUSIC = "Music/Streetlights.ogg";
+    // Sound effects
+    public static final String FOOTSTEP_1 = "Sounds/footstep1 grass.ogg";
+    public static final String FOOTSTEP_2 = "Sounds/footstep2 grass.ogg";
+    public static final String FOOTSTEP_PATH_1 = "Sounds/footstep1.ogg";
+    public static final String FOOTSTEP_PATH_2 = "Sounds/footstep2.ogg";
+    public static final String PAUSE_SOUND = "Sounds/Pause01.wav";
+    public static final String DIALOGUE_OPEN_SOUND = "Sounds/DialogueOpen.wav";
+    public static final String DIALOGUE_OPTION_SOUND = "Sounds/DialogueOption.wav";
+    public static final String BUTTON_SOUND = "Sounds/Button.wav";
+    // Text
+    public static final String CREDITS = "Text/credits.txt";
+    public static final String TUTORIAL_TEXT = "Text/tutorial_text.txt";
+
+    /**
+     * Queues every asset the game needs, call AssetManager.update() until it returns true to load them
+     *
+     * @param assets The AssetManager to load with
+     * @param mapFile The file of the map the game starts on, the other maps are loaded by World.preload() when the
+     *                player gets near them. null to leave it out, when it is streamed a chunk at a time, see StreamedMap
+     */
+    public static void queueAll(AssetManager assets, String mapFile) {
+        assets.setLoader(String.class, new TextLoader(assets.getFileHandleResolver()));
+        assets.setLoader(TiledMap.class, ".map", new BakedMapLoader(assets.getFileHandleResolver(), assets));
+        assets.setLoader(TiledMap.class, ".tmx", new ParallelTmxMapLoader(assets.getFileHandleResolver(), assets));
+
+        // Things the menu needs first
+        assets.load(SKIN, Skin.class);
+        assets.load(TITLE, Texture.class);
+        assets.load(WHITE_SQUARE, Texture.class);
+        assets.load(MENU_MUSIC, Music.class);
+        assets.load(BUTTON_SOUND, Sound.class);
+        assets.load(CREDITS, String.class);
+        assets.load(TUTORIAL_TEXT, String.class);
+
+        // Then the game
+        if (mapFile != null) {
+            if (mapFile.equals(MAP)) {
+                System.out.println("WARNING: No baked map, loading " + MAP + " instead. Run gradle core:bakeMap to make one");
+            }
+            assets.load(mapFile, TiledMap.class);
+        }
+        assets.load(PLAYER_ATLAS, TextureAtlas.class);
+        assets.load(BLACK_SQUARE, Texture.class);
+        assets.load(ENERGY_BAR, Texture.class);
+        assets.load(ENERGY_BAR_OUTLINE, Texture.class);
+        assets.load(OVERWORLD_MUSIC, Music.class);
+        assets.load(FOOTSTEP_1, Sound.class);
+        assets.load(FOOTSTEP_2, Sound.class);
+        assets.load(FOOTSTEP_PATH_1, Sound.class);
+        assets.load(FOOTSTEP_PATH_2, Sound.class);
+        assets.load(PAUSE_SOUND, Sound.class);
+        assets.load(DIALOGUE_OPEN_SOUND, Sound.class);
+        assets.load(DIALOGUE_OPTION_SOUND, Sound.class);
+    }
+
+    /**
+     * Loads a text file into a String, reading it on the AssetManager's loading thread
+     */
+    public static class TextLoader extends AsynchronousAssetLoader<String, TextLoader.TextParameter> {
+        private String text;
+
+        public TextLoader(FileHandleResolver resolver) {
+            super(resolver);
+        }
+
+        @Override
+        public void loadAsync(AssetManager manager, String fileName, FileHandle file, TextParameter parameter) {
+            if (!file.exists()) {
+                System.out.println("WARNING: Couldn't load file " + fileName);
+                text = "Couldn't load " + fileName;
+            } else {
+                text = file.readString();
+            }
+        }
+
+        @Override
+        public String loadSync(AssetManager manager, String fileName, FileHandle file, TextParameter parameter) {
+            String result = text;
+            text = null;
+            return result;
+        }
+
+        @Override
+        public Array<AssetDescriptor> getDependencies(String fileName, FileHandle file, TextParameter parameter) {
+            return null;
+        }
+
+        public static class TextParameter extends AssetLoaderParameters<String> {
+        }
+    }
+}
@@ -0,0 +1,309 @@
+package com.skloch.game;
+
+import com.badlogic.gdx.assets.AssetDescriptor;
+import com.badlogic.gdx.assets.AssetLoaderParameters;
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.assets.loaders.AsynchronousAssetLoader;
+import com.badlogic.gdx.assets.loaders.FileHandleResolver;
+import com.badlogic.gdx.assets.loaders.TextureLoader;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.maps.MapLayer;
+import com.badlogic.gdx.maps.MapProperties;
+import com.badlogic.gdx.maps.objects.RectangleMapObject;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.maps.tiled.TiledMapTile;
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
+import com.badlogic.gdx.maps.tiled.TiledMapTileSet;
+import com.badlogic.gdx.maps.tiled.tiles.StaticTiledMapTile;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Loads a map baked by MapBaker into a TiledMap, for use with an AssetManager in place of TmxMapLoader.
+ * The baked file is memory mapped and the tile ids are read straight out of it, so there is no XML or CSV to parse.
+ * The layer groups chosen when baking are stored in the map's properties as "backgroundLayers",
+ * "foregroundLayers" and "objectLayers" int arrays, and the surface of each tile id as a "surfaces" byte array,
+ * see Surfaces.
+ * <p></p>
+ * The format, all big endian:
+ * <pre>
+ * int magic, int version, int width, int height, int tileWidth, int tileHeight
+ * int tilesetCount, then for each: int firstGid, string image (relative to the baked file)
+ * int[] backgroundLayers, int[] foregroundLayers, int[] objectLayers (each an int count then the ints)
+ * byte[] surfaces (an int count then the bytes), indexed by gid
+ * int layerCount, then for each: byte type, string name, byte visible, float opacity, then
+ *     tile layers: short[width * height] rows from the bottom up, the tile's gid with flip flags in the top 3 bits
+ *     object layers: int objectCount, then each object's properties: int count, then string name, byte type, value
+ * </pre>
+ * Strings are stored as a short length followed by that many UTF-8 bytes.
+ */
+public class BakedMapLoader extends AsynchronousAssetLoader<TiledMap, BakedMapLoader.Parameters> {
+    public static final int MAGIC = 0x48484D50; // "HHMP"
+    public static final int VERSION = 2;
+    // Layer types
+    public static final byte TILE_LAYER = 0, OBJECT_LAYER = 1;
+    // Property types
+    public static final byte STRING = 0, INT = 1, FLOAT = 2, BOOL = 3;
+    // Flip flags stored in the top bits of each tile, the gid is in the rest
+    public static final int FLIP_HORIZONTALLY = 0x8000, FLIP_VERTICALLY = 0x4000, FLIP_DIAGONALLY = 0x2000;
+    public static final int GID_MASK = 0x1FFF;
+
+    private ByteBuffer buffer;
+    private int width, height, tileWidth, tileHeight;
+    private int[] firstGids;
+    private String[] images;
+    private TiledMap map;
+    private final AssetManager manager;
+
+    /**
+     * @param resolver The resolver to find files with
+     * @param manager The AssetManager this loader is set on, to check which images it already has
+     */
+    public BakedMapLoader(FileHandleResolver resolver, AssetManager manager) {
+        super(resolver);
+        this.manager = manager;
+    }
+
+    /**
+     * Maps the file and reads its header, the tileset images need loading before the map
+     */
+    @Override
+    public Array<AssetDescriptor> getDependencies(String fileName, FileHandle file, Parameters parameter) {
+        buffer = map(file);
+        if (buffer.getInt() != MAGIC) {
+            throw new GdxRuntimeException(fileName + " is not a baked map");
+        }
+        int version = buffer.getInt();
+        if (version != VERSION) {
+            throw new GdxRuntimeException(fileName + " was baked with an unsupported version: " + version + ", run gradle core:bakeMap again");
+        }
+        width = buffer.getInt();
+        height = buffer.getInt();
+        tileWidth = buffer.getInt();
+        tileHeight = buffer.getInt();
+
+        // Same texture settings TmxMapLoader uses
+        TextureLoader.TextureParameter textureParameter = new TextureLoader.TextureParameter();
+        textureParameter.minFilter = Texture.TextureFilter.Nearest;
+        textureParameter.magFilter = Texture.TextureFilter.Nearest;
+
+        Array<AssetDescriptor> dependencies = new Array<AssetDescriptor>();
+        int tilesetCount = buffer.getInt();
+        firstGids = new int[tilesetCount];
+        images = new String[tilesetCount];
+        for (int i = 0; i < tilesetCount; i++) {
+            firstGids[i] = buffer.getInt();
+            images[i] = file.parent().child(readString(buffer)).path();
+            dependencies.add(new AssetDescriptor<Texture>(images[i], Texture.class, textureParameter));
+        }
+        // Decode the images on every core, rather than one at a time on the AssetManager's thread
+        return ParallelTmxMapLoader.decodeTextures(manager, dependencies);
+    }
+
+    /**
+     * Builds the map from the rest of the file, on the AssetManager's loading thread
+     */
+    @Override
+    public void loadAsync(AssetManager manager, String fileName, FileHandle file, Parameters parameter) {
+        map = new TiledMap();
+        MapProperties properties = map.getProperties();
+        properties.put("width", width);
+        properties.put("height", height);
+        properties.put("tilewidth", tileWidth);
+        properties.put("tileheight", tileHeight);
+
+        // Cut each tileset image into tiles, the same way TmxMapLoader does
+        Array<TiledMapTile> tiles = new Array<TiledMapTile>();
+        tiles.add(null); // gid 0 is an empty cell
+        for (int i = 0; i < images.length; i++) {
+            Texture texture = manager.get(images[i], Texture.class);
+            map.getTileSets().addTileSet(cutTileset(images[i], texture, firstGids[i], tileWidth, tileHeight, tiles));
+        }
+
+        properties.put("backgroundLayers", readInts(buffer));
+        properties.put("foregroundLayers", readInts(buffer));
+        properties.put("objectLayers", readInts(buffer));
+        properties.put("surfaces", readBytes(buffer));
+
+        int layerCount = buffer.getInt();
+        for (int i = 0; i < layerCount; i++) {
+            byte type = buffer.get();
+            String name = readString(buffer);
+            boolean visible = buffer.get() != 0;
+            float opacity = buffer.getFloat();
+
+            MapLayer layer;
+            if (type == TILE_LAYER) {
+                layer = readTileLayer(tiles);
+            } else {
+                layer = readObjectLayer();
+            }
+            layer.setName(name);
+            layer.setVisible(visible);
+            layer.setOpacity(opacity);
+            map.getLayers().add(layer);
+        }
+        buffer = null;
+    }
+
+    @Override
+    public TiledMap loadSync(AssetManager manager, String fileName, FileHandle file, Parameters parameter) {
+        TiledMap result = map;
+        map = null;
+        return result;
+    }
+
+    private TiledMapTileLayer readTileLayer(Array<TiledMapTile> tiles) {
+        TiledMapTileLayer layer = new TiledMapTileLayer(width, height, tileWidth, tileHeight);
+        // Read the tiles in place as shorts, rather than copying them out of the file
+        ShortBuffer data = buffer.asShortBuffer();
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int value = data.get() & 0xFFFF;
+                int gid = value & GID_MASK;
+                if (gid == 0 || gid >= tiles.size) {
+                    continue;
+                }
+                layer.setCell(x, y, makeCell(tiles.get(gid), value));
+            }
+        }
+        buffer.position(buffer.position() + width * height * 2);
+        return layer;
+    }
+
+    /**
+     * Makes a cell with the same flips and rotation TmxMapLoader would give it, also used by StreamedMap
+     */
+    static TiledMapTileLayer.Cell makeCell(TiledMapTile tile, int value) {
+        boolean flipHorizontally = (value & FLIP_HORIZONTALLY) != 0;
+        boolean flipVertically = (value & FLIP_VERTICALLY) != 0;
+        TiledMapTileLayer.Cell cell = new TiledMapTileLayer.Cell();
+        cell.setTile(tile);
+        if ((value & FLIP_DIAGONALLY) != 0) {
+            if (flipHorizontally && flipVertically) {
+                cell.setFlipHorizontally(true);
+                cell.setRotation(TiledMapTileLayer.Cell.ROTATE_270);
+            } else if (flipHorizontally) {
+                cell.setRotation(TiledMapTileLayer.Cell.ROTATE_270);
+            } else if (flipVertically) {
+                cell.setRotation(TiledMapTileLayer.Cell.ROTATE_90);
+            } else {
+                cell.setFlipVertically(true);
+                cell.setRotation(TiledMapTileLayer.Cell.ROTATE_270);
+            }
+        } else {
+            cell.setFlipHorizontally(flipHorizontally);
+            cell.setFlipVertically(flipVertically);
+        }
+        return cell;
+    }
+
+    private MapLayer readObjectLayer() {
+        MapLayer layer = new MapLayer();
+        int objectCount = buffer.getInt();
+        for (int i = 0; i < objectCount; i++) {
+            MapProperties properties = readProperties(buffer);
+            RectangleMapObject object = new RectangleMapObject(
+                    properties.get("x", 0f, Float.class), properties.get("y", 0f, Float.class),
+                    properties.get("width", 0f, Float.class), properties.get("height", 0f, Float.class));
+            object.getProperties().putAll(properties);
+            layer.getObjects().add(object);
+        }
+        return layer;
+    }
+
+    /**
+     * Reads an object's properties, also used by StreamedMap
+     */
+    static MapProperties readProperties(ByteBuffer buffer) {
+        MapProperties properties = new MapProperties();
+        int propertyCount = buffer.getInt();
+        for (int j = 0; j < propertyCount; j++) {
+            String name = readString(buffer);
+            byte type = buffer.get();
+            if (type == INT) {
+                properties.put(name, buffer.getInt());
+            } else if (type == FLOAT) {
+                properties.put(name, buffer.getFloat());
+            } else if (type == BOOL) {
+                properties.put(name, buffer.get() != 0);
+            } else {
+                properties.put(name, readString(buffer));
+            }
+        }
+        return properties;
+    }
+
+    /**
+     * Cuts a tileset image into tiles, the same way TmxMapLoader does, also used by StreamedMap
+     *
+     * @param name The tileset's name
+     * @param texture The tileset image
+     * @param firstGid The gid of the image's first tile
+     * @param tileWidth The width of a tile in pixels
+     * @param tileHeight The height of a tile in pixels
+     * @param tiles Every tile by gid, the tileset's tiles are added to the end
+     * @return The tileset
+     */
+    static TiledMapTileSet cutTileset(String name, Texture texture, int firstGid, int tileWidth, int tileHeight, Array<TiledMapTile> tiles) {
+        TiledMapTileSet tileset = new TiledMapTileSet();
+        tileset.setName(name);
+        tileset.getProperties().put("firstgid", firstGid);
+        tiles.setSize(firstGid);
+        int gid = firstGid;
+        for (int y = 0; y <= texture.getHeight() - tileHeight; y += tileHeight) {
+            for (int x = 0; x <= texture.getWidth() - tileWidth; x += tileWidth) {
+                StaticTiledMapTile tile = new StaticTiledMapTile(new TextureRegion(texture, x, y, tileWidth, tileHeight));
+                tile.setId(gid++);
+                tileset.putTile(tile.getId(), tile);
+                tiles.add(tile);
+            }
+        }
+        return tileset;
+    }
+
+    /**
+     * Memory maps a file, or reads it into memory if it can't be mapped, e.g. when packed in a jar
+     */
+    static ByteBuffer map(FileHandle file) {
+        ByteBuffer mapped;
+        try {
+            mapped = file.map(FileChannel.MapMode.READ_ONLY);
+        } catch (GdxRuntimeException e) {
+            mapped = ByteBuffer.wrap(file.readBytes());
+        }
+        mapped.order(ByteOrder.BIG_ENDIAN);
+        return mapped;
+    }
+
+    static int[] readInts(ByteBuffer buffer) {
+        int[] ints = new int[buffer.getInt()];
+        for (int i = 0; i < ints.length; i++) {
+            ints[i] = buffer.getInt();
+        }
+        return ints;
+    }
+
+    static byte[] readBytes(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public static class Parameters extends AssetLoaderParameters<TiledMap> {
+    }
+}
@@ -0,0 +1,235 @@
+package com.skloch.game;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.OrthographicCamera;
+import com.badlogic.gdx.graphics.g2d.SpriteCache;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.maps.MapLayer;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.maps.tiled.TiledMapTile;
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.Disposable;
+
+/**
+ * Renders tile layers that never change by baking them into a SpriteCache once, split into square chunks of tiles.
+ * Each frame only the chunks that overlap the camera are drawn, and no vertices are rebuilt or re-uploaded.
+ * Used for the background layers, which make up most of the map.
+ */
+public class ChunkedMapRenderer implements Disposable {
+    // Each tile is stored as two triangles, as the cache does not use an index buffer
+    // Each vertex is x, y, packed colour, u, v
+    private static final int VERTICES_PER_TILE = 6;
+    private static final int FLOATS_PER_TILE = VERTICES_PER_TILE * 5;
+
+    private final SpriteCache spriteCache;
+    private final int chunkSize;
+    private final int chunksX, chunksY;
+    private final float chunkWorldWidth, chunkWorldHeight;
+    private final int[] chunkCacheIds; // -1 for chunks with no tiles
+    private final Rectangle viewBounds = new Rectangle();
+    private final float[] vertices = new float[FLOATS_PER_TILE];
+    private final float[] cornerU = new float[4];
+    private final float[] cornerV = new float[4];
+
+    /**
+     * Bakes the given layers of a map into chunks of cached geometry.
+     * Layers are drawn in the order given, so pass background layers bottom first.
+     *
+     * @param map The map to bake
+     * @param layers The indexes of the tile layers to bake, e.g. HustleGame.backgroundLayers
+     * @param unitScale The scale the map is drawn at, the same as passed to OrthogonalTiledMapRenderer
+     * @param chunkSize The width and height of a chunk in tiles
+     */
+    public ChunkedMapRenderer(TiledMap map, int[] layers, float unitScale, int chunkSize) {
+        this.chunkSize = chunkSize;
+
+        // All layers in the map share the same grid, so use the first to size the chunks
+        TiledMapTileLayer firstLayer = (TiledMapTileLayer) map.getLayers().get(layers[0]);
+        int mapWidth = firstLayer.getWidth();
+        int mapHeight = firstLayer.getHeight();
+        float tileWidth = firstLayer.getTileWidth() * unitScale;
+        float tileHeight = firstLayer.getTileHeight() * unitScale;
+
+        chunksX = (mapWidth + chunkSize - 1) / chunkSize;
+        chunksY = (mapHeight + chunkSize - 1) / chunkSize;
+        chunkWorldWidth = chunkSize * tileWidth;
+        chunkWorldHeight = chunkSize * tileHeight;
+        chunkCacheIds = new int[chunksX * chunksY];
+
+        // Count the tiles first so the cache can be made exactly big enough
+        int tileCount = 0;
+        for (int layerIndex : layers) {
+            TiledMapTileLayer layer = getTileLayer(map, layerIndex);
+            if (layer == null) {
+                continue;
+            }
+            for (int y = 0; y < layer.getHeight(); y++) {
+                for (int x = 0; x < layer.getWidth(); x++) {
+                    TiledMapTileLayer.Cell cell = layer.getCell(x, y);
+                    if (cell != null && cell.getTile() != null) {
+                        tileCount++;
+                    }
+                }
+            }
+        }
+
+        spriteCache = new SpriteCache(Math.max(tileCount, 1), false);
+
+        // Bake each chunk, drawing every layer inside it in order
+        for (int chunkY = 0; chunkY < chunksY; chunkY++) {
+            for (int chunkX = 0; chunkX < chunksX; chunkX++) {
+                int startX = chunkX * chunkSize;
+                int startY = chunkY * chunkSize;
+                int endX = Math.min(startX + chunkSize, mapWidth);
+                int endY = Math.min(startY + chunkSize, mapHeight);
+                boolean empty = true;
+
+                spriteCache.beginCache();
+                for (int layerIndex : layers) {
+                    TiledMapTileLayer layer = getTileLayer(map, layerIndex);
+                    if (layer == null) {
+                        continue;
+                    }
+                    float color = Color.toFloatBits(1f, 1f, 1f, layer.getOpacity());
+                    float offsetX = layer.getRenderOffsetX() * unitScale;
+                    float offsetY = -layer.getRenderOffsetY() * unitScale;
+
+                    for (int y = startY; y < endY; y++) {
+                        for (int x = startX; x < endX; x++) {
+                            TiledMapTileLayer.Cell cell = layer.getCell(x, y);
+                            if (cell == null || cell.getTile() == null) {
+                                continue;
+                            }
+                            addTile(cell, x * tileWidth + offsetX, y * tileHeight + offsetY, unitScale, color);
+                            empty = false;
+                        }
+                    }
+                }
+                int cacheId = spriteCache.endCache();
+                chunkCacheIds[chunkY * chunksX + chunkX] = empty ? -1 : cacheId;
+            }
+        }
+    }
+
+    /**
+     * Returns a layer if it is a visible tile layer, otherwise null so it can be skipped
+     */
+    private TiledMapTileLayer getTileLayer(TiledMap map, int layerIndex) {
+        MapLayer layer = map.getLayers().get(layerIndex);
+        if (layer instanceof TiledMapTileLayer && layer.isVisible()) {
+            return (TiledMapTileLayer) layer;
+        }
+        return null;
+    }
+
+    /**
+     * Adds a single tile to the cache currently being built, handling flipped and rotated cells the same way
+     * OrthogonalTiledMapRenderer does
+     */
+    private void addTile(TiledMapTileLayer.Cell cell, float x, float y, float unitScale, float color) {
+        TiledMapTile tile = cell.getTile();
+        TextureRegion region = tile.getTextureRegion();
+
+        float x1 = x + tile.getOffsetX() * unitScale;
+        float y1 = y + tile.getOffsetY() * unitScale;
+        float x2 = x1 + region.getRegionWidth() * unitScale;
+        float y2 = y1 + region.getRegionHeight() * unitScale;
+
+        // Corners go bottom left, top left, top right, bottom right
+        cornerU[0] = region.getU();  cornerV[0] = region.getV2();
+        cornerU[1] = region.getU();  cornerV[1] = region.getV();
+        cornerU[2] = region.getU2(); cornerV[2] = region.getV();
+        cornerU[3] = region.getU2(); cornerV[3] = region.getV2();
+
+        if (cell.getFlipHorizontally()) {
+            swap(cornerU, 0, 2);
+            swap(cornerU, 1, 3);
+        }
+        if (cell.getFlipVertically()) {
+            swap(cornerV, 0, 2);
+            swap(cornerV, 1, 3);
+        }
+        // A rotation of 90 degrees shifts every corner's texture coordinates along by one
+        int rotation = cell.getRotation();
+        float u0 = cornerU[rotation % 4], v0 = cornerV[rotation % 4];
+        float u1 = cornerU[(rotation + 1) % 4], v1 = cornerV[(rotation + 1) % 4];
+        float u2 = cornerU[(rotation + 2) % 4], v2 = cornerV[(rotation + 2) % 4];
+        float u3 = cornerU[(rotation + 3) % 4], v3 = cornerV[(rotation + 3) % 4];
+
+        // Two triangles: bottom left, top left, top right then top right, bottom right, bottom left
+        int i = 0;
+        i = putVertex(i, x1, y1, color, u0, v0);
+        i = putVertex(i, x1, y2, color, u1, v1);
+        i = putVertex(i, x2, y2, color, u2, v2);
+        i = putVertex(i, x2, y2, color, u2, v2);
+        i = putVertex(i, x2, y1, color, u3, v3);
+        putVertex(i, x1, y1, color, u0, v0);
+
+        spriteCache.add(region.getTexture(), vertices, 0, FLOATS_PER_TILE);
+    }
+
+    private int putVertex(int i, float x, float y, float color, float u, float v) {
+        vertices[i++] = x;
+        vertices[i++] = y;
+        vertices[i++] = color;
+        vertices[i++] = u;
+        vertices[i++] = v;
+        return i;
+    }
+
+    private static void swap(float[] array, int a, int b) {
+        float temp = array[a];
+        array[a] = array[b];
+        array[b] = temp;
+    }
+
+    /**
+     * Sets the area of the map to draw from the camera, call once a frame before render()
+     *
+     * @param camera The camera the map is being viewed through
+     */
+    public void setView(OrthographicCamera camera) {
+        spriteCache.setProjectionMatrix(camera.combined);
+        float width = camera.viewportWidth * camera.zoom;
+        float height = camera.viewportHeight * camera.zoom;
+        viewBounds.set(camera.position.x - width / 2, camera.position.y - height / 2, width, height);
+    }
+
+    /**
+     * Draws every baked chunk that overlaps the view set in setView()
+     */
+    public void render() {
+        int firstX = Math.max(0, (int) Math.floor(viewBounds.x / chunkWorldWidth));
+        int firstY = Math.max(0, (int) Math.floor(viewBounds.y / chunkWorldHeight));
+        int lastX = Math.min(chunksX - 1, (int) Math.floor((viewBounds.x + viewBounds.width) / chunkWorldWidth));
+        int lastY = Math.min(chunksY - 1, (int) Math.floor((viewBounds.y + viewBounds.height) / chunkWorldHeight));
+
+        Gdx.gl.glEnable(GL20.GL_BLEND);
+        Gdx.gl.glBlendFunc(GL20.GL_SRC_ALPHA, GL20.GL_ONE_MINUS_SRC_ALPHA);
+        spriteCache.begin();
+        for (int chunkY = firstY; chunkY <= lastY; chunkY++) {
+            for (int chunkX = firstX; chunkX <= lastX; chunkX++) {
+                int cacheId = chunkCacheIds[chunkY * chunksX + chunkX];
+                if (cacheId != -1) {
+                    spriteCache.draw(cacheId);
+                }
+            }
+        }
+        spriteCache.end();
+    }
+
+    /**
+     * @return The width and height of each chunk in tiles
+     */
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    @Override
+    public void dispose() {
+        spriteCache.dispose();
+    }
+}
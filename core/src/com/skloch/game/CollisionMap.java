@@ -0,0 +1,157 @@
+package com.skloch.game;
+
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Bits;
+import com.badlogic.gdx.utils.IntMap;
+
+/**
+ * The collidable objects of a map rasterised into a grid of small cells, one bit per cell.
+ * Cells completely covered by an object are marked solid and can be checked with a single bit lookup.
+ * Cells only partly covered are marked partial, and remember the objects touching them for an exact check.
+ * The cost of a collision test depends only on the size of the area tested, not the number of objects in the map.
+ */
+public class CollisionMap {
+    private final int cellsX, cellsY;
+    private final float cellSize;
+    private final Bits solid, partial;
+    private final IntMap<Array<GameObject>> partialObjects;
+
+    /**
+     * Creates an empty collision map covering a tile map
+     *
+     * @param mapWidth The width of the map in tiles
+     * @param mapHeight The height of the map in tiles
+     * @param tileSize The size a tile is drawn at in world units
+     * @param cellsPerTile How many collision cells to split each tile into along each axis, higher values mean fewer
+     *                     partial cells at the cost of memory
+     */
+    public CollisionMap(int mapWidth, int mapHeight, float tileSize, int cellsPerTile) {
+        cellsX = mapWidth * cellsPerTile;
+        cellsY = mapHeight * cellsPerTile;
+        cellSize = tileSize / cellsPerTile;
+        solid = new Bits(cellsX * cellsY);
+        partial = new Bits(cellsX * cellsY);
+        partialObjects = new IntMap<Array<GameObject>>();
+    }
+
+    /**
+     * Rasterises an object into the map. Anything outside the map is ignored
+     *
+     * @param object The object to add
+     */
+    public void add(GameObject object) {
+        add(object, 0, 0, cellsX - 1, cellsY - 1);
+    }
+
+    /**
+     * Rasterises the part of an object inside a range of cells
+     */
+    private void add(GameObject object, int minX, int minY, int maxX, int maxY) {
+        int firstX = Math.max(0, (int) Math.floor(object.x / cellSize));
+        int firstY = Math.max(0, (int) Math.floor(object.y / cellSize));
+        // The last cell the object reaches into, an object ending exactly on a cell edge doesn't reach the next one
+        int lastX = Math.min(cellsX - 1, Math.max(firstX, (int) Math.ceil((object.x + object.width) / cellSize) - 1));
+        int lastY = Math.min(cellsY - 1, Math.max(firstY, (int) Math.ceil((object.y + object.height) / cellSize) - 1));
+
+        for (int y = Math.max(firstY, minY); y <= Math.min(lastY, maxY); y++) {
+            for (int x = Math.max(firstX, minX); x <= Math.min(lastX, maxX); x++) {
+                int index = y * cellsX + x;
+                if (solid.get(index)) {
+                    continue;
+                }
+                boolean covered = object.x <= x * cellSize && object.x + object.width >= (x + 1) * cellSize
+                        && object.y <= y * cellSize && object.y + object.height >= (y + 1) * cellSize;
+                if (covered) {
+                    solid.set(index);
+                    // Exact checks aren't needed any more
+                    partial.clear(index);
+                    partialObjects.remove(index);
+                } else {
+                    partial.set(index);
+                    Array<GameObject> objects = partialObjects.get(index);
+                    if (objects == null) {
+                        objects = new Array<GameObject>(false, 2);
+                        partialObjects.put(index, objects);
+                    }
+                    objects.add(object);
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes an object from the map. The cells it covered are cleared and the objects still touching them are
+     * rasterised into them again, since a solid cell doesn't remember which object filled it
+     *
+     * @param object The object to remove, it must not have moved since it was added
+     * @param others Every other object that might touch it, e.g. from a SpatialGrid query of its area
+     */
+    public void remove(GameObject object, Array<GameObject> others) {
+        int firstX = Math.max(0, (int) Math.floor(object.x / cellSize));
+        int firstY = Math.max(0, (int) Math.floor(object.y / cellSize));
+        int lastX = Math.min(cellsX - 1, Math.max(firstX, (int) Math.ceil((object.x + object.width) / cellSize) - 1));
+        int lastY = Math.min(cellsY - 1, Math.max(firstY, (int) Math.ceil((object.y + object.height) / cellSize) - 1));
+
+        for (int y = firstY; y <= lastY; y++) {
+            for (int x = firstX; x <= lastX; x++) {
+                int index = y * cellsX + x;
+                solid.clear(index);
+                partial.clear(index);
+                partialObjects.remove(index);
+            }
+        }
+        for (int i = 0; i < others.size; i++) {
+            if (others.get(i) != object) {
+                add(others.get(i), firstX, firstY, lastX, lastY);
+            }
+        }
+    }
+
+    /**
+     * Removes every object from the map
+     */
+    public void clear() {
+        solid.clear();
+        partial.clear();
+        partialObjects.clear();
+    }
+
+    /**
+     * Checks whether an area overlaps any object in the map, in the same way Rectangle.overlaps() would
+     *
+     * @param area The area to test, e.g. the player's feet
+     * @return true if the area hits an object
+     */
+    public boolean overlaps(Rectangle area) {
+        int firstX = Math.max(0, (int) Math.floor(area.x / cellSize));
+        int firstY = Math.max(0, (int) Math.floor(area.y / cellSize));
+        int lastX = Math.min(cellsX - 1, (int) Math.ceil((area.x + area.width) / cellSize) - 1);
+        int lastY = Math.min(cellsY - 1, (int) Math.ceil((area.y + area.height) / cellSize) - 1);
+
+        for (int y = firstY; y <= lastY; y++) {
+            for (int x = firstX; x <= lastX; x++) {
+                int index = y * cellsX + x;
+                if (solid.get(index)) {
+                    return true;
+                }
+                if (partial.get(index)) {
+                    Array<GameObject> objects = partialObjects.get(index);
+                    for (int i = 0; i < objects.size; i++) {
+                        if (area.overlaps(objects.get(i))) {
+                            return true;
+                        }
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return The size of a collision cell in world units
+     */
+    public float getCellSize() {
+        return cellSize;
+    }
+}
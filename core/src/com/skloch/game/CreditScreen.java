@@ -24,21 +24,22 @@ public class CreditScreen implements Screen{
     private Stage creditStage;
     private OrthographicCamera camera;
     private Viewport viewport;
+    private ScrollPane scrollWindow;
+    private Screen previousScreen;
 
     /**
      * A scene2d window consisting of a title, a scrollable widget and an exit button.
      * Credits are loaded from assets/Text/credits.txt and displayed in the scrollable widget
      * Thus any changes to assets or licenses must be reflected in credits.txt
+     * Made once by HustleGame.showCredits(), which calls reset() each time the credits are shown
      *
      * @param game An instance of the HustleGame class
-     * @param previousScreen The screen to return to when the exit button is pressed
      */
-    public CreditScreen (final HustleGame game, Screen previousScreen) {
+    public CreditScreen (final HustleGame game) {
 
         // Basically all the same code as the settings menu
         this.game = game;
-        creditStage = new Stage(new FitViewport(game.WIDTH, game.HEIGHT));
-        Gdx.input.setInputProcessor(creditStage);
+        creditStage = new Stage(new FitViewport(game.WIDTH, game.HEIGHT), game.batch);
 
         camera = new OrthographicCamera();
         viewport = new FitViewport(game.WIDTH, game.HEIGHT, camera);
@@ -62,7 +63,7 @@ public class CreditScreen implements Screen{
         Table scrollTable = new Table();
 
         // Scrollable widget
-        ScrollPane scrollWindow = new ScrollPane(scrollTable, game.skin);
+        scrollWindow = new ScrollPane(scrollTable, game.skin);
         scrollWindow.setFadeScrollBars(false);
         // scrollWindow.setDebug(true);
 
@@ -93,7 +94,6 @@ public class CreditScreen implements Screen{
             @Override
             public void changed(ChangeEvent event, Actor actor) {
                 game.soundManager.playButton();
-                dispose();
                 game.setScreen(previousScreen);
                 previousScreen.resume();
             }
@@ -101,6 +101,16 @@ public class CreditScreen implements Screen{
 
     }
 
+    /**
+     * Scrolls back to the top of the credits and sets which screen to go back to
+     * @param previousScreen The screen to return to when the exit button is pressed
+     */
+    public void reset(Screen previousScreen) {
+        this.previousScreen = previousScreen;
+        scrollWindow.setScrollY(0);
+        scrollWindow.updateVisualScroll();
+    }
+
     /**
      * Renders the credits window
      * @param delta The time in seconds since the last render.
@@ -130,11 +140,16 @@ public class CreditScreen implements Screen{
         viewport.update(width, height);
     }
 
-    // Other required methods from Screen
+    /**
+     * Takes the input whenever the credits are switched to
+     */
     @Override
     public void show() {
+        Gdx.input.setInputProcessor(creditStage);
     }
 
+    // Other required methods from Screen
+
     @Override
     public void hide() {
     }
@@ -147,7 +162,11 @@ public class CreditScreen implements Screen{
     public void resume() {
     }
 
+    /**
+     * Disposes of the credits stage, called by HustleGame when the game is closed
+     */
     @Override
     public void dispose() {
+        creditStage.dispose();
     }
 }
@@ -0,0 +1,189 @@
+package com.skloch.game;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.Camera;
+import com.badlogic.gdx.graphics.g2d.Batch;
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.glutils.GLProfiler;
+import com.badlogic.gdx.graphics.glutils.ShapeRenderer;
+import com.badlogic.gdx.utils.TimeUtils;
+
+/**
+ * A performance overlay for GameScreen, toggled with F3. Shows GL draw calls, texture binds and shader switches
+ * counted by a GLProfiler, how long each part of a frame took, and a graph of recent frame times.
+ * <p></p>
+ * GameScreen wraps each part of a frame in begin() and end() calls, which do nothing while the overlay is hidden.
+ * Parts run once per tick, like moving the player, add up over every tick in the frame.
+ */
+public class DebugOverlay {
+    // The parts of a frame that are timed
+    public static final int MOVE = 0, BACKGROUND = 1, PLAYER = 2, FOREGROUND = 3, UI_ACT = 4, UI_DRAW = 5;
+    private static final String[] PHASE_NAMES = {"player.move", "map background", "player batch", "map foreground",
+            "uiStage.act", "uiStage.draw"};
+    private static final int PHASE_COUNT = PHASE_NAMES.length;
+    // How many frames the graph shows
+    private static final int GRAPH_FRAMES = 240;
+    private static final float GRAPH_HEIGHT = 120; // For 50ms
+    private static final float GRAPH_MAX_MILLIS = 50;
+
+    private final GLProfiler profiler;
+    private boolean visible = false;
+    private final long[] phaseNanos = new long[PHASE_COUNT];
+    private final long[] phaseStarts = new long[PHASE_COUNT];
+    private final float[] phaseMillis = new float[PHASE_COUNT]; // Smoothed, so the numbers can be read
+    private final float[] frameMillis = new float[GRAPH_FRAMES];
+    private int frameIndex = 0;
+    private int drawCalls, textureBindings, shaderSwitches;
+    private long frameStart;
+    private float renderMillis;
+    private final StringBuilder text = new StringBuilder();
+
+    public DebugOverlay() {
+        profiler = new GLProfiler(Gdx.graphics);
+    }
+
+    /**
+     * Shows or hides the overlay, the GL calls are only counted while it is shown
+     */
+    public void toggle() {
+        visible = !visible;
+        if (visible) {
+            profiler.enable();
+        } else {
+            profiler.disable();
+        }
+    }
+
+    public boolean isVisible() {
+        return visible;
+    }
+
+    /**
+     * Call at the very start of a frame
+     */
+    public void beginFrame() {
+        if (!visible) {
+            return;
+        }
+        frameStart = TimeUtils.nanoTime();
+        profiler.reset();
+        for (int i = 0; i < PHASE_COUNT; i++) {
+            phaseNanos[i] = 0;
+        }
+    }
+
+    /**
+     * Starts timing part of the frame
+     *
+     * @param phase One of MOVE, BACKGROUND, PLAYER, FOREGROUND, UI_ACT or UI_DRAW
+     */
+    public void begin(int phase) {
+        if (visible) {
+            phaseStarts[phase] = TimeUtils.nanoTime();
+        }
+    }
+
+    /**
+     * Stops timing part of the frame, adding the time to any earlier runs of it this frame
+     */
+    public void end(int phase) {
+        if (visible) {
+            phaseNanos[phase] += TimeUtils.nanoTime() - phaseStarts[phase];
+        }
+    }
+
+    /**
+     * Records the frame's counts and times, then draws the overlay over everything. Call at the end of a frame,
+     * the overlay's own drawing isn't counted
+     *
+     * @param delta The time since the last frame, in seconds
+     * @param camera A camera showing the UI, e.g. the UI stage's
+     * @param batch The batch to draw text with
+     * @param shapeRenderer The shape renderer to draw the graph with
+     * @param font The font to write with
+     */
+    public void endFrame(float delta, Camera camera, Batch batch, ShapeRenderer shapeRenderer, BitmapFont font) {
+        if (!visible) {
+            return;
+        }
+        renderMillis = (TimeUtils.nanoTime() - frameStart) / 1000000f;
+        drawCalls = profiler.getDrawCalls();
+        textureBindings = profiler.getTextureBindings();
+        shaderSwitches = profiler.getShaderSwitches();
+        for (int i = 0; i < PHASE_COUNT; i++) {
+            phaseMillis[i] += (phaseNanos[i] / 1000000f - phaseMillis[i]) * 0.1f;
+        }
+        frameMillis[frameIndex] = delta * 1000f;
+        frameIndex = (frameIndex + 1) % GRAPH_FRAMES;
+
+        drawGraph(camera, shapeRenderer);
+        drawText(camera, batch, font);
+    }
+
+    /**
+     * Draws a bar for each recent frame's time, with lines at 60 and 30 frames per second
+     */
+    private void drawGraph(Camera camera, ShapeRenderer shapeRenderer) {
+        float x = 10, y = 10;
+        float scale = GRAPH_HEIGHT / GRAPH_MAX_MILLIS;
+        shapeRenderer.setProjectionMatrix(camera.combined);
+        shapeRenderer.begin(ShapeRenderer.ShapeType.Filled);
+        shapeRenderer.setColor(0, 0, 0, 1);
+        shapeRenderer.rect(x, y, GRAPH_FRAMES, GRAPH_HEIGHT);
+        for (int i = 0; i < GRAPH_FRAMES; i++) {
+            // Oldest on the left
+            float millis = frameMillis[(frameIndex + i) % GRAPH_FRAMES];
+            if (millis > 1000f / 30) {
+                shapeRenderer.setColor(1, 0.2f, 0.2f, 1);
+            } else if (millis > 1000f / 60 + 1) {
+                shapeRenderer.setColor(1, 0.8f, 0.2f, 1);
+            } else {
+                shapeRenderer.setColor(0.2f, 1, 0.2f, 1);
+            }
+            shapeRenderer.rect(x + i, y, 1, Math.min(millis, GRAPH_MAX_MILLIS) * scale);
+        }
+        shapeRenderer.setColor(1, 1, 1, 1);
+        shapeRenderer.rect(x, y + 1000f / 60 * scale, GRAPH_FRAMES, 1);
+        shapeRenderer.rect(x, y + 1000f / 30 * scale, GRAPH_FRAMES, 1);
+        shapeRenderer.end();
+    }
+
+    private void drawText(Camera camera, Batch batch, BitmapFont font) {
+        text.setLength(0);
+        text.append(Gdx.graphics.getFramesPerSecond()).append(" fps, frame ");
+        appendMillis(renderMillis).append('\n');
+        text.append("draw calls ").append(drawCalls)
+                .append(", texture binds ").append(textureBindings)
+                .append(", shader switches ").append(shaderSwitches).append('\n');
+        for (int i = 0; i < PHASE_COUNT; i++) {
+            text.append(PHASE_NAMES[i]).append(' ');
+            appendMillis(phaseMillis[i]).append('\n');
+        }
+
+        batch.setProjectionMatrix(camera.combined);
+        batch.begin();
+        font.draw(batch, text, 10, GRAPH_HEIGHT + 20 + font.getLineHeight() * (PHASE_COUNT + 2));
+        batch.end();
+    }
+
+    /**
+     * Writes a time like "1.25ms" without making a String
+     */
+    private StringBuilder appendMillis(float millis) {
+        int hundredths = Math.round(millis * 100);
+        text.append(hundredths / 100).append('.');
+        if (hundredths % 100 < 10) {
+            text.append('0');
+        }
+        return text.append(hundredths % 100).append("ms");
+    }
+
+    /**
+     * Stops counting GL calls, call when the screen is disposed of
+     */
+    public void dispose() {
+        if (visible) {
+            toggle();
+        }
+    }
+}
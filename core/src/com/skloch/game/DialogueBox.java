@@ -13,15 +13,13 @@ import com.badlogic.gdx.utils.Array;
 public class DialogueBox {
     private Window dialogueWindow;
     private Table dialogueTable;
-    private Label textLabel;
+    private TypewriterLabel textLabel;
     private Skin skin;
-    private final int MAXCHARS;
+    private final TextLayoutEngine layoutEngine;
     private SelectBox selectBox;
-    private Array<String> textLines;
+    private String[] textLines;
     private int linePointer = 0;
-    private String eventKey = null;
-    private float textCounter = 0;
-    private boolean scrollingText = false;
+    private EventCommand eventCommand = null;
 
 
 
@@ -29,7 +27,6 @@ public class DialogueBox {
         // Define some key values
         int WIDTH = 800;
         int HEIGHT = 200;
-        MAXCHARS = 35;
         this.skin = skin;
 
         // Create the window for the dialogue box
@@ -40,17 +37,21 @@ public class DialogueBox {
         dialogueWindow.addActor(dialogueTable);
         dialogueTable.setFillParent(true);
 
-        textLabel = new Label("Are you sure you want to sleep at the Piazza? This will cost you 10 energy", skin, "dialogue");
+        // Text scrolls onto the label at 48 characters a second
+        textLabel = new TypewriterLabel("Are you sure you want to sleep at the Piazza? This will cost you 10 energy", skin, "dialogue", 48f);
         dialogueTable.add(textLabel).expand().width(WIDTH - 80).top().padTop(40);
         textLabel.setWrap(false);
 
+        // Wraps text to the width of the label, 3 lines to a page
+        layoutEngine = new TextLayoutEngine(textLabel.getStyle().font, WIDTH - 80, 3, 32);
+
 
         dialogueWindow.setWidth(WIDTH);
         dialogueWindow.setHeight(HEIGHT);
 
         // Create selection box to allow user to make choices when interacting with objects (class defined below)
         this.selectBox = new SelectBox();
-        selectBox.setOptions(new String[]{"Yes", "No"}, new String[]{"piazza", "close"});
+        selectBox.setOptions(new String[]{"Yes", "No"}, new EventCommand[2]);
 
         setText("Are you sure you want to sleep at the Piazza? This will cost you 10 energy");
 
@@ -64,7 +65,7 @@ public class DialogueBox {
         private Table selectTable;
         private int choiceIndex = 0;
         private String[] options;
-        private String[] events;
+        private EventCommand[] events;
         private Array<Label> optionPointers = new Array<Label>();
         public SelectBox () {
             selectWindow = new Window("", skin);
@@ -85,13 +86,13 @@ public class DialogueBox {
         /**
          * Sets the options visible to the player when asking for a choice.
          * Also sets which events to call from each option.
-         * Event strings are translated into events in EventManager
+         * Events are compiled from event strings by EventManager
          * @see EventManager
          *
          * @param options The options available to the player e.g. "Yes" and "No"
-         * @param events The events called to the option of the same index E.g. "piazza" and "closeDialogue"
+         * @param events The events called to the option of the same index E.g. "piazza" and "exit"
          */
-        public void setOptions (String[] options, String[] events) {
+        public void setOptions (String[] options, EventCommand[] events) {
             selectTable.clearChildren();
 
             this.options = options;
@@ -157,13 +158,13 @@ public class DialogueBox {
         }
 
         /**
-         * Returns the event string associated with the selected choice
+         * Returns the event associated with the selected choice
          * Call hide() afterwards to close the menu
          *
-         * @return An event string to be passed to EventManager
+         * @return A compiled event to be run by EventManager
          */
 
-        public String getChoice () {
+        public EventCommand getChoice () {
             return events[choiceIndex];
         }
 
@@ -236,108 +237,42 @@ public class DialogueBox {
      */
     public void setText(String text) {
         initialiseLabelText(text);
-        scrollingText = true;
-        textCounter = 0;
+        textLabel.restart();
     }
 
     /**
      * Sets the text to be displayed on the dialogue box, automatically wraps it correctly
      * Additionally, schedules an event to be called after the text is done displaying
      * @param text THe text to display
-     * @param eventKey The event key to be triggered
+     * @param event The event to be triggered, compiled by EventManager
      */
-    public void setText(String text, String eventKey) {
+    public void setText(String text, EventCommand event) {
         initialiseLabelText(text);
-        this.eventKey = eventKey;
-        scrollingText = true;
-        textCounter = 0;
-
+        this.eventCommand = event;
+        textLabel.restart();
     }
 
-    public void scrollText(float speed) {
-        if (scrollingText) {
-            textCounter += speed;
-            if (Math.round(textCounter) >= textLines.get(linePointer).length()) {
-                scrollingText = false;
-                textLabel.setText(textLines.get(linePointer));
-            }
-            textLabel.setText(textLines.get(linePointer).substring(0, Math.round(textCounter)));
-        }
+    /**
+     * Sets how fast text scrolls onto the dialogue box
+     *
+     * @param charactersPerSecond How many characters appear each second
+     */
+    public void setTextSpeed(float charactersPerSecond) {
+        textLabel.setCharactersPerSecond(charactersPerSecond);
     }
 
     /**
-     * Formats the text to be displayed on a label widget. Adds a newline character every MAXCHARS num of characters
-     * accounts for any occuring linebreaks to take use of the size of the most space possible.
-     * Stores the formatted text in 3 chunks, which are then queued up to be pushed to the label whenever the user
+     * Formats the text to be displayed on a label widget. Wraps the text to the width of the dialogue box using the
+     * widths of the font's characters, and accounts for any occuring linebreaks.
+     * Stores the formatted text in 3 line chunks, which are then queued up to be pushed to the label whenever the user
      * presses e.
+     * Layouts are cached, so showing the same text again is free.
      *
      * @param text The text to format and push to the label
      */
     public void initialiseLabelText(String text) {
-        // Add a newline every 36 chars
-        String newString = "";
-        int lastSpace = 0;
-        int index = 0;
-        int totalIndex = 0;
-
-        // Add newline characters where the length of a section between two linebreaks is greater than MAXCHARS
-        for (char c : text.toCharArray()) {
-            // Account for any occuring linebreaks
-            if (c == '\n') {
-                index = 0;
-            }
-
-            if (index >= MAXCHARS) {
-                // If the current line is a space, just add a newline instead of a space
-                if (c == ' ') {
-                    newString = newString + "\n";
-                    totalIndex += 1;
-                    index = 0;
-                } else {
-                    // If not, Replace the last space with a linebreak and add the char
-                    // If the last linebreak is 0 or greater than MAXCHARS away, just add a break now
-                    if (lastSpace == 0 || (totalIndex - lastSpace) >= MAXCHARS) {
-                        newString = newString + "\n";
-                        index = 0;
-                    } else {
-                        newString = newString.substring(0, lastSpace) + "\n" + newString.substring(lastSpace+1);
-                        newString = newString + c;
-                        index = totalIndex - lastSpace;
-                        totalIndex += 1;
-                    }
-                }
-            } else {
-                newString = newString + c;
-                if (c == ' ') {
-                    lastSpace = totalIndex;
-                }
-
-                index += 1;
-                totalIndex += 1;
-            }
-        }
-
-        // Split the newString into chunks with 3 linebreaks
-        textLines = new Array<String>();
-        int numBreaks = 0;
-        String subString = "";
-
-        for (String s: newString.split("\n")) {
-            if (numBreaks == 2) {
-                subString += s;
-                textLines.add(subString);
-                subString = "";
-                numBreaks = 0;
-            } else {
-                subString += s + "\n";
-                numBreaks += 1;
-            }
-        }
-        if (subString != "") {
-            textLines.add(subString);
-        }
-
-        textLabel.setText(textLines.get(0));
+        textLines = layoutEngine.layout(text);
+        textLabel.setText(textLines[0]);
         linePointer = 0;
     }
 
@@ -363,7 +298,9 @@ public class DialogueBox {
     public void enter(EventManager eventManager) {
         if (selectBox.isVisible()) {
             selectBox.hide();
-            eventManager.event(selectBox.getChoice());
+            if (selectBox.getChoice() != null) {
+                eventManager.event(selectBox.getChoice());
+            }
         } else {
             advanceText(eventManager);
         }
@@ -373,25 +310,23 @@ public class DialogueBox {
      * Continues on to the next bit of text, or closes the window if the end is reached
      */
     private void advanceText(EventManager eventManager) {
-        if (scrollingText) {
-            scrollingText = false;
-            textCounter = 0;
-            textLabel.setText(textLines.get(linePointer));
+        if (!textLabel.isFinished()) {
+            // Skip to the end of the current page
+            textLabel.finish();
 
         } else {
             linePointer += 1;
-            if (linePointer >= textLines.size) {
+            if (linePointer >= textLines.length) {
                 hide();
-                scrollingText = false;
-                textCounter = 0;
-                if (eventKey != null) {
-                    eventManager.event(eventKey);
-                    eventKey = null;
+                if (eventCommand != null) {
+                    // Clear first in case the event sets new text with its own event
+                    EventCommand command = eventCommand;
+                    eventCommand = null;
+                    eventManager.event(command);
                 }
             } else {
-                textCounter = 0;
-                scrollingText = true;
-//            textLabel.setText(textLines.get(linePointer));
+                textLabel.setText(textLines[linePointer]);
+                textLabel.restart();
             }
         }
     }
@@ -0,0 +1,66 @@
+package com.skloch.game;
+
+/**
+ * An event string that has been compiled by EventManager, ready to be run any number of times.
+ * The string is split into its name and arguments once, and the handler for the name is looked up once,
+ * so running the command doesn't need to parse or search anything. Registering a new handler for the name
+ * re-binds the command, see EventManager.register().
+ * E.g. "comp_sci-3" has the name "comp_sci", the arguments ["comp_sci", "3"] and the number 3
+ */
+public class EventCommand {
+    public final String key;
+    public final String name;
+    public final String[] args;
+    public final int number;
+    private EventManager.EventHandler handler;
+
+    /**
+     * Creates a command, should only be made by EventManager.compile()
+     *
+     * @param key The full event string, e.g. "piazza-Dogs"
+     * @param handler The handler registered to the event's name
+     */
+    EventCommand(String key, EventManager.EventHandler handler) {
+        this.key = key;
+        this.handler = handler;
+        args = key.split("-");
+        name = args[0];
+
+        // Pre-parse the first argument if it is a number, -1 if there isn't one
+        int parsed = -1;
+        if (args.length > 1) {
+            try {
+                parsed = Integer.parseInt(args[1]);
+            } catch (NumberFormatException e) {
+                parsed = -1;
+            }
+        }
+        number = parsed;
+    }
+
+    /**
+     * @param handler The handler now registered to the event's name
+     */
+    void setHandler(EventManager.EventHandler handler) {
+        this.handler = handler;
+    }
+
+    /**
+     * Runs the event
+     */
+    public void run() {
+        handler.handle(this);
+    }
+
+    /**
+     * @return true if the event string had any arguments after its name
+     */
+    public boolean hasArgs() {
+        return args.length > 1;
+    }
+
+    @Override
+    public String toString() {
+        return key;
+    }
+}
@@ -2,19 +2,38 @@ package com.skloch.game;
 
 import com.badlogic.gdx.scenes.scene2d.actions.Actions;
 import com.badlogic.gdx.scenes.scene2d.actions.RunnableAction;
-import com.badlogic.gdx.utils.Array;
 
 import java.util.HashMap;
-import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * A class that maps Object's event strings to actual Java functions.
  */
 public class EventManager {
     private final GameScreen game;
+    private final GameState state;
     public HashMap<String, Integer> activityEnergies;
     private final HashMap<String, String> objectInteractions;
-    private final Array<String> talkTopics;
+    private final String[] talkTopics;
+    private final EventCommand[] topicCommands; // The "piazza-<topic>" command for each talk topic
+    // The topics offered when meeting friends, refilled each time so nothing is made while playing
+    private final String[] topicOptions = new String[3];
+    private final EventCommand[] topicOptionCommands = new EventCommand[3];
+    private final HashMap<String, EventHandler> handlers;
+    private final HashMap<String, EventCommand> compiledEvents;
+    private final EventHandler defaultHandler;
+    private final String[] studyOptions;
+    private final EventCommand[] studyCommands;
+    public final EventCommand exitCommand, fadeFromBlackCommand;
+
+    /**
+     * A function that can be run by an event, registered against the event's name with register()
+     */
+    public interface EventHandler {
+        /**
+         * @param command The compiled event being run, containing any arguments
+         */
+        void handle(EventCommand command);
+    }
 
     /**
      * A class that maps Object's event strings to actual Java functions.
@@ -22,17 +41,19 @@ public class EventManager {
      * E.g. a call to the Piazza function with an arg of 1 would be: "piazza-1"
      * Which the function interprets as "study at the piazza for 1 hour".
      * Object's event strings can be set in the Tiled map editor with a property called "event"
+     * <p></p>
+     * Event strings are compiled into EventCommands the first time they are seen, which can be kept and run
+     * again without any parsing. New events can be added with register() without changing this class.
      *
      * @param game An instance of the GameScreen containing a player and dialogue box
      */
     public EventManager (GameScreen game) {
         this.game = game;
+        // The rules of each activity live in GameState, this class just displays them
+        this.state = game.state;
 
         // How much energy an hour of each activity should take
-        activityEnergies = new HashMap<String, Integer>();
-        activityEnergies.put("studying", 10);
-        activityEnergies.put("meet_friends", 10);
-        activityEnergies.put("eating", 10);
+        activityEnergies = state.activityEnergies;
 
 
         // Define what to say when interacting with an object who's text won't change
@@ -46,51 +67,153 @@ public class EventManager {
 
         // Some random topics that can be chatted about
         String[] topics = {"Dogs", "Cats", "Exams", "Celebrities", "Flatmates", "Video games", "Sports", "Food", "Fashion"};
-        talkTopics = new Array<String>(topics);
-    }
+        talkTopics = topics;
 
-    public void event (String eventKey) {
-        String[] args = eventKey.split("-");
+        // Register the functions each event name runs
+        handlers = new HashMap<String, EventHandler>();
+        compiledEvents = new HashMap<String, EventCommand>();
+        registerEvents();
 
-        // Important functions, most likely called after displaying text
-        if (args[0].equals("fadefromblack")) {
-            fadeFromBlack();
-        } else if (args[0].equals("fadetoblack")) {
-            fadeToBlack();
-        } else if (args[0].equals("gameover")) {
-            game.GameOver();
+        // Any event without a handler just says what the object is
+        defaultHandler = new EventHandler() {
+            @Override
+            public void handle(EventCommand command) {
+                objectEvent(command.key);
+            }
+        };
+
+        // Compile events that are offered as options up front
+        exitCommand = compile("exit");
+        fadeFromBlackCommand = compile("fadefromblack");
+        studyOptions = new String[] {"2 Hours (20)", "3 Hours (30)", "4 Hours (40)"};
+        studyCommands = new EventCommand[] {compile("comp_sci-2"), compile("comp_sci-3"), compile("comp_sci-4")};
+        topicCommands = new EventCommand[topics.length];
+        for (int i = 0; i < topics.length; i++) {
+            topicCommands[i] = compile("piazza-" + topics[i]);
         }
+    }
+
+    /**
+     * Registers the events built into the game
+     */
+    private void registerEvents() {
+        // Important functions, most likely called after displaying text
+        register("fadefromblack", new EventHandler() {
+            @Override
+            public void handle(EventCommand command) {
+                fadeFromBlack();
+            }
+        });
+        register("fadetoblack", new EventHandler() {
+            @Override
+            public void handle(EventCommand command) {
+                fadeToBlack();
+            }
+        });
+        register("gameover", new EventHandler() {
+            @Override
+            public void handle(EventCommand command) {
+                game.GameOver();
+            }
+        });
 
         // Events related to objects
-        switch (args[0]) {
-            case "tree":
+        register("tree", new EventHandler() {
+            @Override
+            public void handle(EventCommand command) {
                 treeEvent();
-                break;
-            case "chest":
+            }
+        });
+        register("chest", new EventHandler() {
+            @Override
+            public void handle(EventCommand command) {
                 chestEvent();
-                break;
-            case "piazza":
-                piazzaEvent(args);
-                break;
-            case "comp_sci":
-                compSciEvent(args);
-                break;
-            case "rch":
-                ronCookeEvent(args);
-                break;
-            case "accomodation":
-                accomEvent(args);
-                break;
-            case "exit":
+            }
+        });
+        register("piazza", new EventHandler() {
+            @Override
+            public void handle(EventCommand command) {
+                piazzaEvent(command);
+            }
+        });
+        register("comp_sci", new EventHandler() {
+            @Override
+            public void handle(EventCommand command) {
+                compSciEvent(command);
+            }
+        });
+        register("rch", new EventHandler() {
+            @Override
+            public void handle(EventCommand command) {
+                ronCookeEvent(command);
+            }
+        });
+        register("accomodation", new EventHandler() {
+            @Override
+            public void handle(EventCommand command) {
+                accomEvent(command);
+            }
+        });
+        register("exit", new EventHandler() {
+            @Override
+            public void handle(EventCommand command) {
                 // Should do nothing and just close the dialogue menu
                 game.dialogueBox.hide();
-                break;
-            default:
-                objectEvent(eventKey);
-                break;
+            }
+        });
+    }
 
+    /**
+     * Registers a function to be run by any event with this name, replacing any existing one.
+     * Commands already compiled with this name are re-bound, so they run the new function too.
+     *
+     * @param name The name of the event, the part of the event string before any dashes
+     * @param handler The function to run
+     */
+    public void register (String name, EventHandler handler) {
+        handlers.put(name, handler);
+        // Only done when registering, so running a command still doesn't need to look anything up
+        for (EventCommand command : compiledEvents.values()) {
+            if (command.name.equals(name)) {
+                command.setHandler(handler);
+            }
         }
+    }
 
+    /**
+     * Compiles an event string into a command that can be run any number of times.
+     * Commands are cached, so compiling the same string twice returns the same command.
+     *
+     * @param eventKey An event string, e.g. "comp_sci-3"
+     * @return The compiled command
+     */
+    public EventCommand compile (String eventKey) {
+        EventCommand command = compiledEvents.get(eventKey);
+        if (command == null) {
+            int dash = eventKey.indexOf('-');
+            EventHandler handler = handlers.get(dash == -1 ? eventKey : eventKey.substring(0, dash));
+            command = new EventCommand(eventKey, handler != null ? handler : defaultHandler);
+            compiledEvents.put(eventKey, command);
+        }
+        return command;
+    }
+
+    /**
+     * Runs the event for an event string, compiling it first if it hasn't been seen before
+     *
+     * @param eventKey An event string, e.g. "comp_sci-3"
+     */
+    public void event (String eventKey) {
+        compile(eventKey).run();
+    }
+
+    /**
+     * Runs an already compiled event
+     *
+     * @param command The command to run
+     */
+    public void event (EventCommand command) {
+        command.run();
     }
 
     /**
@@ -140,28 +263,26 @@ public class EventManager {
      * Lets the player study at the piazza for x num of hours, decreases the player's energy and increments the
      * game time.
      *
-     * @param args Arguments to be passed, should contain the hours the player wants to study. E.g. ["piazza", "1"]
+     * @param command The event being run, may contain a topic to talk about. E.g. "piazza-Dogs"
      */
-    public void piazzaEvent(String[] args) {
-        if (game.getSeconds() > 8*60) {
-            int energyCost = activityEnergies.get("meet_friends");
+    public void piazzaEvent(EventCommand command) {
+        if (!state.isTooEarly()) {
             // If the player is too tired to meet friends
-            if (game.getEnergy() < energyCost) {
+            if (!state.hasEnergyFor(GameState.MEET_FRIENDS, 1)) {
                 game.dialogueBox.setText("You are too tired to meet your friends right now!");
 
-            } else if (args.length == 1) {
+            } else if (!command.hasArgs()) {
                 // Ask the player to chat about something (makes no difference)
-                String[] topics = randomTopics(3);
+                pickTopics();
                 game.dialogueBox.setText("What do you want to chat about?");
-                game.dialogueBox.getSelectBox().setOptions(topics, new String[]{"piazza-"+topics[0], "piazza-"+topics[1], "piazza-"+topics[2]});
+                game.dialogueBox.getSelectBox().setOptions(topicOptions, topicOptionCommands);
             } else {
                 // Say that the player chatted about this topic for 1-3 hours
                 // RNG factor adds a slight difficulty (may consume too much energy to study)
-                int hours = ThreadLocalRandom.current().nextInt(1, 4);
-                game.dialogueBox.setText(String.format("You talked about %s for %d hours!", args[1].toLowerCase(), hours));
-                game.decreaseEnergy(energyCost * hours);
-                game.passTime(hours * 60); // in seconds
-                game.addRecreationalHours(hours);
+                int hours = 1 + state.random.nextInt(3);
+                game.dialogueBox.setText(String.format("You talked about %s for %d hours!", command.args[1].toLowerCase(), hours));
+                state.meetFriends(hours);
+                game.updateStats();
             }
         } else {
             game.dialogueBox.setText("It's too early in the morning to meet your friends, go to bed!");
@@ -169,53 +290,55 @@ public class EventManager {
     }
 
     /**
-     * @param amount The amount of topics to return
-     * @return An array of x random topics the player can chat about
+     * Fills topicOptions with different random topics the player can chat about, and topicOptionCommands with
+     * their events
      */
-    private String[] randomTopics(int amount) {
-        // Returns an array of 3 random topics
-        Array<String> topics = new Array<String>(amount);
-
-        for (int i = 0;i<amount;i++) {
-            String choice = talkTopics.random();
-            // If statement to ensure topic hasn't already been selected
-            if (!topics.contains(choice, false)) {
-                topics.add(choice);
+    private void pickTopics() {
+        for (int i = 0; i < topicOptions.length; i++) {
+            // Uses the game's seeded random so replays pick the same topics
+            int choice = state.random.nextInt(talkTopics.length);
+            // Ensure the topic hasn't already been selected
+            boolean picked = false;
+            for (int j = 0; j < i; j++) {
+                if (topicOptions[j].equals(talkTopics[choice])) {
+                    picked = true;
+                }
+            }
+            if (!picked) {
+                topicOptions[i] = talkTopics[choice];
+                topicOptionCommands[i] = topicCommands[choice];
             } else {
                 i -= 1;
             }
         }
-
-        return topics.toArray(String.class);
     }
 
     /**
      * The event to be run when interacting with the computer science building
      * Gives the player the option to study for 2, 3 or 4 hours
-     * @param args
+     * @param command The event being run, may contain the hours to study for. E.g. "comp_sci-3"
      */
-    public void compSciEvent(String[] args) {
-        if (game.getSeconds() > 8*60) {
-            int energyCost = activityEnergies.get("studying");
+    public void compSciEvent(EventCommand command) {
+        if (!state.isTooEarly()) {
+            int energyCost = state.getEnergyCost(GameState.STUDYING);
             // If the player is too tired for any studying:
-            if (game.getEnergy() < energyCost) {
+            if (!state.hasEnergyFor(GameState.STUDYING, 1)) {
                 game.dialogueBox.hideSelectBox();
                 game.dialogueBox.setText("You are too tired to study right now!");
-            } else if (args.length == 1) {
+            } else if (!command.hasArgs()) {
                 // If the player has not yet chosen how many hours, ask
                 game.dialogueBox.setText("Study for how long?");
-                game.dialogueBox.getSelectBox().setOptions(new String[]{"2 Hours (20)", "3 Hours (30)", "4 Hours (40)"}, new String[]{"comp_sci-2", "comp_sci-3", "comp_sci-4"});
+                game.dialogueBox.getSelectBox().setOptions(studyOptions, studyCommands);
             } else {
-                int hours = Integer.parseInt(args[1]);
+                int hours = command.number;
                 // If the player does not have enough energy for the selected hours
-                if (game.getEnergy() < hours*energyCost) {
+                if (!state.hasEnergyFor(GameState.STUDYING, hours)) {
                     game.dialogueBox.setText("You don't have the energy to study for this long!");
                 } else {
                     // If they do have the energy to study
-                    game.dialogueBox.setText(String.format("You studied for %s hours!\nYou lost %d energy", args[1], hours*energyCost));
-                    game.decreaseEnergy(energyCost * hours);
-                    game.addStudyHours(hours);
-                    game.passTime(hours * 60); // in seconds
+                    game.dialogueBox.setText(String.format("You studied for %d hours!\nYou lost %d energy", hours, hours*energyCost));
+                    state.study(hours);
+                    game.updateStats();
                 }
             }
         } else {
@@ -227,17 +350,17 @@ public class EventManager {
     /**
      * The event to be run when the player interacts with the ron cooke hub
      * Gives the player the choice to eat breakfast, lunch or dinner depending on the time of day
-     * @param args
+     * @param command The event being run, arguments are unused
      */
-    public void ronCookeEvent(String[] args) {
-        if (game.getSeconds() > 8*60) {
-            int energyCost = activityEnergies.get("eating");
-            if (game.getEnergy() < energyCost) {
+    public void ronCookeEvent(EventCommand command) {
+        if (!state.isTooEarly()) {
+            int energyCost = state.getEnergyCost(GameState.EATING);
+            if (!state.hasEnergyFor(GameState.EATING, 1)) {
                 game.dialogueBox.setText("You are too tired to eat right now!");
             } else {
-                game.dialogueBox.setText(String.format("You took an hour to eat %s at the Ron Cooke Hub!\nYou lost %d energy!", game.getMeal(), energyCost));
-                game.decreaseEnergy(energyCost);
-                game.passTime(60); // in seconds
+                game.dialogueBox.setText(String.format("You took an hour to eat %s at the Ron Cooke Hub!\nYou lost %d energy!", state.getMeal(), energyCost));
+                state.eat();
+                game.updateStats();
             }
         } else {
             game.dialogueBox.setText("It's too early in the morning to eat food, go to bed!");
@@ -250,22 +373,16 @@ public class EventManager {
      * the player gets
      * Then queues up fadeFromBlack to be called when this dialogue closes
      * @see GameScreen fadeToBlack function
-     * @param args Unused currently
+     * @param command The event being run, arguments are unused currently
      */
-    public void accomEvent(String[] args) {
+    public void accomEvent(EventCommand command) {
         game.setSleeping(true);
         game.dialogueBox.hide();
 
         // Calculate the hours slept to the nearest hour
         // Wakes the player up at 8am
-        float secondsSlept;
-        if (game.getSeconds() < 60*8) {
-            secondsSlept = (60*8 - game.getSeconds());
-        } else {
-            // Account for the wakeup time being in the next day
-            secondsSlept = (((60*8) + 1440) - game.getSeconds());
-        }
-        int hoursSlept = Math.round(secondsSlept / 60f);
+        final float secondsSlept = state.getSecondsUntilWakeUp();
+        final int hoursSlept = GameState.toHoursSlept(secondsSlept);
 
         RunnableAction setTextAction = new RunnableAction();
         setTextAction.setRunnable(new Runnable() {
@@ -273,11 +390,10 @@ public class EventManager {
             public void run() {
                 if (game.getSleeping()) {
                     game.dialogueBox.show();
-                    game.dialogueBox.setText(String.format("You slept for %d hours!\nYou recovered %d energy!", hoursSlept, Math.min(100, hoursSlept*13)), "fadefromblack");
+                    game.dialogueBox.setText(String.format("You slept for %d hours!\nYou recovered %d energy!", hoursSlept, Math.min(100, hoursSlept*13)), fadeFromBlackCommand);
                     // Restore energy and pass time
-                    game.setEnergy(hoursSlept*13);
-                    game.passTime(secondsSlept);
-                    game.addSleptHours(hoursSlept);
+                    state.sleep(secondsSlept);
+                    game.updateStats();
                 }
             }
         });
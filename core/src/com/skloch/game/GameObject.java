@@ -6,14 +6,36 @@ import com.badlogic.gdx.math.Rectangle;
 /**
  * An object that stores a position and dimensions, but can also store extra properties when loaded from a tilemap.
  * Player can interact and trigger events with these objects.
+ * <p></p>
+ * The properties are fixed once the object is made. Whether the object is interactable, and its compiled event,
+ * are worked out from them once and kept by the Player and EventManager, so they must not be changed afterwards.
  */
 public class GameObject extends Rectangle {
-    public MapProperties properties;
+    public final MapProperties properties;
+
+    /**
+     * What happens when the player interacts with an object
+     */
+    public enum Interaction {
+        NONE, // Just collides with the player
+        EVENT, // Asks the player if they want to trigger an event
+        TEXT // Displays some text, like a sign
+    }
+
+    // Properties read once when the object is made, so they don't need to be looked up every frame
+    public Interaction interaction = Interaction.NONE;
+    public String event; // The full event string, e.g. "piazza"
+    public String eventName; // The event string without any arguments, used to look up interaction text
+    public EventCommand eventCommand; // The event compiled by EventManager, set when the object is handed to the player
+    public EventCommand[] eventOptions; // The events for answering yes or no to the object's event, set with eventCommand
+    public String text;
 
     public float centreX;
 
     public float centreY;
 
+    // Used by SpatialGrid to avoid returning the same object twice in one query
+    int queryStamp;
 
 
     // Create like a normal rectangle
@@ -28,6 +50,7 @@ public class GameObject extends Rectangle {
     public GameObject(float x, float y, float width, float height) {
         super(x, y, width, height);
         properties = new MapProperties();
+        parseProperties();
 
         centreX = x + width / 2;
         centreY = y + height / 2;
@@ -48,6 +71,7 @@ public class GameObject extends Rectangle {
                 (float) objectProperties.get("height") * scale
         );
         properties = objectProperties;
+        parseProperties();
 
         centreX = x + width / 2;
         centreY = y + height / 2;
@@ -55,12 +79,32 @@ public class GameObject extends Rectangle {
 
 
     /**
-     * Puts an Object class into the GameObject's properties
-     * @param key The key of the object
-     * @param value The object to pass
+     * Reads the "event" and "text" properties into typed fields, an event takes priority over text
+     */
+    private void parseProperties() {
+        Object eventProperty = properties.get("event");
+        Object textProperty = properties.get("text");
+        event = eventProperty != null ? eventProperty.toString() : null;
+        text = textProperty != null ? textProperty.toString() : null;
+
+        if (event != null) {
+            interaction = Interaction.EVENT;
+            int dash = event.indexOf('-');
+            eventName = dash == -1 ? event : event.substring(0, dash);
+        } else if (text != null) {
+            interaction = Interaction.TEXT;
+            eventName = null;
+        } else {
+            interaction = Interaction.NONE;
+            eventName = null;
+        }
+    }
+
+    /**
+     * @return true if the player can interact with this object
      */
-    public void put(String key, Object value) {
-        properties.put(key, value);
+    public boolean isInteractable() {
+        return interaction != Interaction.NONE;
     }
 
     /**
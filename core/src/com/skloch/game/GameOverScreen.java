@@ -25,21 +25,19 @@ public class GameOverScreen implements Screen {
     Stage gameOverStage;
     Viewport viewport;
     OrthographicCamera camera;
+    private Label hoursStudiedLabel, hoursRecreationalLabel, hoursSleptLabel;
 
     /**
      * A screen to display a 'Game Over' screen when the player finishes their exams
      * Currently does not calculate a score, just shows the player's stats to them, as requested in assessment 1
      * Tracking them now will make win conditions easier to implement for assessment 2
+     * Made once by HustleGame.showGameOver(), which calls reset() with the stats of each game
      *
      * @param game An instance of HustleGame
-     * @param hoursStudied The hours studied in the playthrough
-     * @param hoursRecreational The hours of fun had in the playthrough
-     * @param hoursSlept The hours slept in the playthrough
      */
-    public GameOverScreen (final HustleGame game, int hoursStudied, int hoursRecreational, int hoursSlept) {
+    public GameOverScreen (final HustleGame game) {
         this.game = game;
-        gameOverStage = new Stage(new FitViewport(game.WIDTH, game.HEIGHT));
-        Gdx.input.setInputProcessor(gameOverStage);
+        gameOverStage = new Stage(new FitViewport(game.WIDTH, game.HEIGHT), game.batch);
 
         camera = new OrthographicCamera();
         viewport = new FitViewport(game.WIDTH, game.HEIGHT, camera);
@@ -65,15 +63,18 @@ public class GameOverScreen implements Screen {
         // Display scores
         scoresTable.add(new Label("Hours Studied", game.skin, "interaction")).padBottom(5);
         scoresTable.row();
-        scoresTable.add(new Label(String.valueOf(hoursStudied), game.skin, "button")).padBottom(20);
+        hoursStudiedLabel = new Label("0", game.skin, "button");
+        scoresTable.add(hoursStudiedLabel).padBottom(20);
         scoresTable.row();
         scoresTable.add(new Label("Recreational hours", game.skin, "interaction")).padBottom(5);
         scoresTable.row();
-        scoresTable.add(new Label(String.valueOf(hoursRecreational), game.skin, "button")).padBottom(20);
+        hoursRecreationalLabel = new Label("0", game.skin, "button");
+        scoresTable.add(hoursRecreationalLabel).padBottom(20);
         scoresTable.row();
         scoresTable.add(new Label("Hours Slept", game.skin, "interaction")).padBottom(5);
         scoresTable.row();
-        scoresTable.add(new Label(String.valueOf(hoursSlept), game.skin, "button"));
+        hoursSleptLabel = new Label("0", game.skin, "button");
+        scoresTable.add(hoursSleptLabel);
 
 
         // Exit button
@@ -84,9 +85,8 @@ public class GameOverScreen implements Screen {
             @Override
             public void changed(ChangeEvent event, Actor actor) {
                 game.soundManager.playButton();
-                game.soundManager.overworldMusic.stop();
-                dispose();
-                game.setScreen(new MenuScreen(game));
+                game.soundManager.stopOverworldMusic();
+                game.showMenu();
             }
         });
 
@@ -103,6 +103,18 @@ public class GameOverScreen implements Screen {
     }
 
 
+    /**
+     * Shows the stats of a finished game
+     * @param hoursStudied The hours studied in the playthrough
+     * @param hoursRecreational The hours of fun had in the playthrough
+     * @param hoursSlept The hours slept in the playthrough
+     */
+    public void reset(int hoursStudied, int hoursRecreational, int hoursSlept) {
+        hoursStudiedLabel.setText(hoursStudied);
+        hoursRecreationalLabel.setText(hoursRecreational);
+        hoursSleptLabel.setText(hoursSlept);
+    }
+
     /**
      * Renders the screen and the background each frame
      * @param delta The time in seconds since the last render.
@@ -133,11 +145,16 @@ public class GameOverScreen implements Screen {
         viewport.update(width, height);
     }
 
-    // Other required methods from Screen
+    /**
+     * Takes the input whenever the screen is switched to
+     */
     @Override
     public void show() {
+        Gdx.input.setInputProcessor(gameOverStage);
     }
 
+    // Other required methods from Screen
+
     @Override
     public void hide() {
     }
@@ -150,7 +167,11 @@ public class GameOverScreen implements Screen {
     public void resume() {
     }
 
+    /**
+     * Disposes of the stage, called by HustleGame when the game is closed
+     */
     @Override
     public void dispose() {
+        gameOverStage.dispose();
     }
 }
@@ -5,12 +5,9 @@ import com.badlogic.gdx.InputAdapter;
 import com.badlogic.gdx.graphics.GL20;
 import com.badlogic.gdx.graphics.OrthographicCamera;
 import com.badlogic.gdx.graphics.Texture;
-import com.badlogic.gdx.maps.MapObjects;
-import com.badlogic.gdx.maps.MapProperties;
-import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
-import com.badlogic.gdx.maps.tiled.renderers.OrthogonalTiledMapRenderer;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
 import com.badlogic.gdx.math.Rectangle;
-import com.badlogic.gdx.math.Vector3;
+import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.scenes.scene2d.Actor;
 import com.badlogic.gdx.scenes.scene2d.Group;
 import com.badlogic.gdx.scenes.scene2d.actions.Actions;
@@ -19,7 +16,11 @@ import com.badlogic.gdx.scenes.scene2d.ui.Table;
 import com.badlogic.gdx.scenes.scene2d.ui.TextButton;
 import com.badlogic.gdx.scenes.scene2d.utils.ChangeListener;
 import com.badlogic.gdx.scenes.scene2d.ui.Image;
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.ObjectMap;
 import com.badlogic.gdx.utils.ScreenUtils;
+import com.badlogic.gdx.utils.StringBuilder;
+import com.badlogic.gdx.utils.TimeUtils;
 import com.badlogic.gdx.Screen;
 import com.badlogic.gdx.scenes.scene2d.Stage;
 import com.badlogic.gdx.utils.viewport.FitViewport;
@@ -36,42 +37,88 @@ import com.badlogic.gdx.graphics.glutils.ShapeRenderer.ShapeType;
 public class GameScreen implements Screen {
     final HustleGame game;
     private OrthographicCamera camera;
-    private int energy = 100;
-    private int hoursStudied, hoursRecreational, hoursSlept;
-    private float daySeconds = 0; // Current seconds elapsed in day
-    private int day = 1; // What day the game is on
+    // Energy, time and scores, kept separate from the screen so they can be simulated without graphics
+    public final GameState state;
+    // Keeps the time, day, energy bar and interaction prompt up to date, see bindHud()
+    private final Hud hud = new Hud();
+    private boolean gameOver; // Set once GameOver() has left this screen
     private Label timeLabel, dayLabel;
     public Player player;
     private Window escapeMenu;
     private Viewport viewport;
-    public OrthogonalTiledMapRenderer mapRenderer;
+    public MapView mapView;
+    // The map the player is on and its objects, and the objects of every map visited so far this game
+    private WorldMap currentMap;
+    private MapArea currentArea;
+    private final ObjectMap<String, MapArea> areas = new ObjectMap<String, MapArea>();
+    // Set by a tick when the player walks into a portal, the player is moved once the tick is over, see takePortal()
+    private volatile GameObject enteredPortal;
+    // How close the player gets to a portal before the map it leads to starts loading, in tiles
+    private static final float PRELOAD_DISTANCE = 10;
+    // Used instead of mapView when the map is streamed, see HustleGame.streamMap
+    private MapStreamer mapStreamer;
     public Stage uiStage;
     private Label interactionLabel;
     private EventManager eventManager;
+    // The options offered when interacting with an object, see GameObject.eventOptions for their events
+    private static final String[] YES_NO = {"Yes", "No"};
 //    private OptionDialogue optionDialogue;
     protected InputMultiplexer inputMultiplexer;
     private Table uiTable;
     private Image energyBar;
     public DialogueBox dialogueBox;
     public final Image blackScreen;
-    private boolean sleeping = false;
-
+    // Fixed timestep, see render()
+    private static final float MAX_FRAME_TIME = 0.25f;
+    private float tickAccumulator = 0;
+    private final float tickLength;
+    private int tickCount = 0; // Ticks run since the game started
+    private final MovementInput movementInput = new MovementInput();
+    // Recording and playing back inputs, see InputRecording
+    private InputRecording recording, replay;
+    private final IntArray replayKeys = new IntArray();
+    // How long a frame can spend running ticks when replaying at maximum speed
+    private static final long MAX_SPEED_FRAME_NANOS = 50000000; // 50ms
+    private float cameraX, cameraY, previousCameraX, previousCameraY;
+    // What is drawn this frame, copied from the game after the ticks, see capture()
+    private final GameSnapshot frame = new GameSnapshot();
+    // Runs the ticks on another thread if game.useLogicThread is set, then the fields below are used to pass the
+    // input and the menus' visibility to it. The lock is held by each tick, and by this thread when it changes the game
+    private LogicThread logicThread;
+    private final Object simulationLock = new Object();
+    private final MovementInput threadInput = new MovementInput();
+    private volatile int threadMovement;
+    private volatile boolean threadMenuOpen, threadDialogueOpen;
+    // Frame timings and GL counts, toggled with F3
+    private final DebugOverlay debugOverlay = new DebugOverlay();
 
     /**
      *
      * @param game An instance of the class HustleGame containing variables that only need to be loaded or
      *             initialised once.
      * @param avatarChoice Which avatar the player has picked, 0 for the more masculine avatar, 1 for the more feminine
+     *                     Ignored when playing back a recording, which uses the avatar it was recorded with
      */
     public GameScreen(final HustleGame game, int avatarChoice) {
         // Important game variables
         this.game = game;
         this.game.gameScreen = this;
+        // A new game, starting at 8:00am on day 1
+        // Replays start with the same seed, avatar and tick rate as the recorded game so they play out the same
+        if (game.replayFile != null) {
+            replay = InputRecording.load(Gdx.files.local(game.replayFile));
+            avatarChoice = replay.avatar;
+            state = new GameState(replay.seed);
+            tickLength = 1f / replay.ticksPerSecond;
+        } else {
+            state = new GameState();
+            tickLength = 1f / game.ticksPerSecond;
+            if (game.recordFile != null) {
+                recording = new InputRecording(state.getSeed(), game.ticksPerSecond, avatarChoice);
+            }
+        }
         eventManager = new EventManager(this);
 
-        // Scores
-        hoursStudied = hoursRecreational = hoursSlept = 0;
-
 
         // Camera and viewport settings
         camera = new OrthographicCamera();
@@ -82,9 +129,9 @@ public class GameScreen implements Screen {
 
 
         // Create a stage for the user interface to be on
-        uiStage = new Stage(new FitViewport(game.WIDTH, game.HEIGHT));
+        uiStage = new Stage(new FitViewport(game.WIDTH, game.HEIGHT), game.batch);
         // Add a black image over everything first
-        blackScreen = new Image(new Texture(Gdx.files.internal("Sprites/black_square.png")));
+        blackScreen = new Image(game.textures.acquire(Assets.BLACK_SQUARE, Texture.class));
         blackScreen.setSize(viewport.getWorldWidth(), viewport.getWorldHeight());
         blackScreen.addAction(Actions.alpha(0f));
 
@@ -96,10 +143,11 @@ public class GameScreen implements Screen {
 
 
         // Create a player class
+        TextureAtlas playerAtlas = game.textures.acquire(Assets.PLAYER_ATLAS, TextureAtlas.class);
         if (avatarChoice == 1) {
-            player = new Player("avatar1");
+            player = new Player("avatar1", playerAtlas);
         } else {
-            player = new Player("avatar2");
+            player = new Player("avatar2", playerAtlas);
         }
 
 
@@ -133,22 +181,19 @@ public class GameScreen implements Screen {
         // Load energy bar elements
         Group energyGroup = new Group();
         energyGroup.setDebug(true);
-        energyBar = new Image(new Texture(Gdx.files.internal("Interface/Energy Bar/green_bar.png")));
-        Image energyBarOutline = new Image(new Texture(Gdx.files.internal("Interface/Energy Bar/bar_outline.png")));
+        energyBar = new Image(game.textures.acquire(Assets.ENERGY_BAR, Texture.class));
+        Image energyBarOutline = new Image(game.textures.acquire(Assets.ENERGY_BAR_OUTLINE, Texture.class));
         energyBarOutline.setPosition(viewport.getWorldWidth()-energyBarOutline.getWidth() - 15, 15);
         energyBar.setPosition(energyBarOutline.getX()+16, energyBarOutline.getY()+16);
         energyGroup.addActor(energyBar);
         energyGroup.addActor(energyBarOutline);
 
 
-        // Set initial time
-        daySeconds = (8*60); // 8:00 am
-
         // Table to display date and time
         Table timeTable = new Table();
         timeTable.setFillParent(true);
-        timeLabel = new Label(formatTime((int) daySeconds), game.skin, "time");
-        dayLabel = new Label(String.format("Day %d", day), game.skin, "day");
+        timeLabel = new Label(formatTime((int) state.getSeconds()), game.skin, "time");
+        dayLabel = new Label(String.format("Day %d", state.getDay()), game.skin, "day");
         timeTable.add(timeLabel).uniformX();
         timeTable.row();
         timeTable.add(dayLabel).uniformX().left().padTop(2);
@@ -162,6 +207,7 @@ public class GameScreen implements Screen {
         uiStage.addActor(dialogueBox.getWindow());
         uiStage.addActor(dialogueBox.getSelectBox().getWindow());
         setupEscapeMenu(uiStage);
+        bindHud();
 
 
 
@@ -179,58 +225,69 @@ public class GameScreen implements Screen {
         // back to this screen from the settings menu
         inputMultiplexer = new InputMultiplexer();
         inputMultiplexer.addProcessor(gameKeyBoardInput);
-        inputMultiplexer.addProcessor(uiStage);
+        // Clicking the UI isn't recorded, so it is left out while a replay plays
+        if (replay == null) {
+            inputMultiplexer.addProcessor(uiStage);
+        }
         Gdx.input.setInputProcessor(inputMultiplexer);
 
 
 
         // Setup map
-        float unitScale = game.mapScale / game.mapSquareSize;
-        mapRenderer = new OrthogonalTiledMapRenderer(game.map, unitScale);
-
-        // Set the player to the middle of the map
-        // Get the dimensions of the top layer
-        TiledMapTileLayer layer0 = (TiledMapTileLayer) game.map.getLayers().get(0);
-        player.setPos(layer0.getWidth()*game.mapScale / 2f, layer0.getHeight()*game.mapScale / 2f);
-        // Put camera on player
-        camera.position.set(player.getCentreX(), player.getCentreY(), 0);
-
-        // Give objects to player
-        for (int layer : game.objectLayers) {
-            // Get all objects on the layer
-            MapObjects objects = game.map.getLayers().get(layer).getObjects();
-
-            // Loop through each, handing them to the player
-            for (int i = 0; i < objects.getCount(); i++) {
-                // Get the properties of each object
-                MapProperties properties = objects.get(i).getProperties();
-                // If this is the spawn object, move the player there and don't collide
-                if (properties.get("spawn") != null) {
-                    player.setPos(((float) properties.get("x")) *unitScale, ((float) properties.get("y"))*unitScale);
-                    camera.position.set(player.getPosAsVec3());
-                } else {
-                    // Make a new gameObject with these properties, passing along the scale the map is rendered
-                    // at for accurate coordinates
-                    player.addCollidable(new GameObject(properties, unitScale));
-                }
+        if (game.streamedMap != null) {
+            StreamedMap map = game.streamedMap;
+            float unitScale = game.mapScale / map.tileWidth;
+
+            // Set the player to the middle of the map, or the spawn point if there is one
+            player.setPos(map.width*game.mapScale / 2f, map.height*game.mapScale / 2f);
+            if (map.spawn != null) {
+                player.setPos(((float) map.spawn.get("x")) *unitScale, ((float) map.spawn.get("y"))*unitScale);
             }
-        }
+            // Put camera on player
+            camera.position.set(player.getCentreX(), player.getCentreY(), 0);
+
+            // Objects are bucketed into a grid of map tiles so the player only checks objects near them
+            player.setSpatialGrid(new SpatialGrid(map.width, map.height, game.mapScale));
+            // Objects are also rasterised into a bitmap so movement can be checked without looking at objects at all
+            player.setCollisionMap(new CollisionMap(map.width, map.height, game.mapScale, game.collisionCellsPerTile));
+            // Only the objects in the chunks around the player are loaded, they are handed over as the player moves
+            mapStreamer = new MapStreamer(map, unitScale, game.mapMemoryBudget, game.batch, new MapStreamer.Listener() {
+                @Override
+                public void objectAdded(GameObject object) {
+                    addObject(object);
+                }
 
-        // Set the player to not go outside the bounds of the map
-        // Assumes the bottom left corner of the map is at 0, 0
-        player.setBounds(
-                new Rectangle(
-                        0,
-                        0,
-                        game.mapProperties.get("width", Integer.class) * game.mapScale,
-                        game.mapProperties.get("height", Integer.class) * game.mapScale
-                )
-        );
+                @Override
+                public void objectRemoved(GameObject object) {
+                    player.removeCollidable(object);
+                }
+            });
+            mapStreamer.update(player.getCentreX(), player.getCentreY());
+
+            // Set the player to not go outside the bounds of the map
+            // Assumes the bottom left corner of the map is at 0, 0
+            player.setBounds(new Rectangle(0, 0, map.width * game.mapScale, map.height * game.mapScale));
+        } else {
+            enterMap(game.world.get(game.startMap), null);
+        }
         game.shapeRenderer.setProjectionMatrix(camera.combined);
 
+        // The camera is moved each tick, start it wherever it was placed above
+        cameraX = previousCameraX = camera.position.x;
+        cameraY = previousCameraY = camera.position.y;
+
         // Display a little good morning message
         dialogueBox.show();
         dialogueBox.setText(getWakeUpMessage());
+
+        capture(frame);
+        if (game.useLogicThread) {
+            if (replay != null || recording != null) {
+                System.out.println("WARNING: Recording and replaying need the game on one thread, not starting the logic thread");
+            } else {
+                startLogicThread();
+            }
+        }
     }
 
     @Override
@@ -241,24 +298,24 @@ public class GameScreen implements Screen {
     /**
      * Renders the player, updates sound, renders the map and updates any UI elements
      * Called every frame
+     * <p></p>
+     * The game itself is simulated in fixed steps of 1 / game.ticksPerSecond seconds, as many as fit in the time
+     * passed, so the player moves at the same speed at any frame rate. The player and camera are then drawn part
+     * way between their last two positions, so movement still looks smooth when frames and ticks don't line up.
+     * When replaying at maximum speed, ticks are run for as long as a frame allows and only the last is drawn.
+     * With a LogicThread the ticks run on their own, and this only runs the UI and draws the latest tick.
      *
      * @param delta The time in seconds since the last render.
      */
     @Override
     public void render (float delta) {
+        debugOverlay.beginFrame();
         // Clear screen
         ScreenUtils.clear(0, 0, 0, 1);
         Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT);
         viewport.apply(); // Update the viewport
 
 
-        // Set delta to a constant value to minimise stuttering issues when moving the camera and player
-        // Solution found here: https://www.reddit.com/r/libgdx/comments/5z6qaf/can_someone_help_me_understand_timestepsstuttering/
-        delta = 0.016667f;
-        // Update sound timers
-        game.soundManager.processTimers(delta);
-
-
         // Load timer bar - needs fixing and drawing
         //TextureAtlas blueBar = new TextureAtlas(Gdx.files.internal("Interface/BlueTimeBar/BlueBar.atlas"));
         //Skin blueSkin = new Skin(blueBar);
@@ -266,89 +323,104 @@ public class GameScreen implements Screen {
         //timeBar.act(delta);
 
 
-        // Increment the time and possibly day
-        if (!escapeMenu.isVisible() && !sleeping) {
-            passTime(Gdx.graphics.getDeltaTime());
-        }
-        timeLabel.setText(formatTime((int) daySeconds));
-
-        // Freeze the player's movement for this frame if any menus are visible
-        if (escapeMenu.isVisible() || dialogueBox.isVisible() || sleeping) {
-            player.setFrozen(true);
+        // How far between the last two ticks this frame is
+        float alpha;
+        if (logicThread != null) {
+            updateLogicThread(delta);
+            logicThread.read(frame);
+            alpha = Math.min((TimeUtils.nanoTime() - frame.publishedNanos) / (float) logicThread.getStepNanos(), 1);
         } else {
-            player.setFrozen(false);
+            if (replay != null && game.replayMaxSpeed) {
+                // Skip drawing the ticks in between, only the state at the end of the frame is shown
+                long stopTime = TimeUtils.nanoTime() + MAX_SPEED_FRAME_NANOS;
+                while (replay != null && !gameOver && TimeUtils.nanoTime() < stopTime) {
+                    tick(tickLength);
+                }
+                tickAccumulator = 0;
+            } else {
+                // Run as many fixed simulation steps as fit in the time passed
+                // Cap the time so a long stall doesn't make the game try to catch up forever
+                tickAccumulator += Math.min(delta, MAX_FRAME_TIME);
+                while (tickAccumulator >= tickLength) {
+                    tick(tickLength);
+                    tickAccumulator -= tickLength;
+                }
+            }
+            alpha = tickAccumulator / tickLength;
+            capture(frame);
         }
 
-        dialogueBox.scrollText(0.8f);
-
+        if (mapStreamer == null) {
+            if (logicThread != null && enteredPortal != null) {
+                synchronized (simulationLock) {
+                    takePortal();
+                    capture(frame);
+                }
+            }
+            preloadMaps();
+        }
 
-        // Let the player move to keyboard presses if not frozen
-        // Player.move() handles player collision
-        // Also play a footstep sound if they are moving
-        player.move(delta);
-        if (player.isMoving()) {
-            game.soundManager.playFootstep();
-        } else {
-            game.soundManager.footstepBool = false;
+        // Show any changes to the state made by ticks or events
+        if (updateStats()) {
+            return;
         }
 
+        // Put the camera between its last two positions
+        camera.position.set(frame.getCameraX(alpha), frame.getCameraY(alpha), 0);
+        camera.update();
+        // Sounds in the world are heard from the player
+        game.soundManager.setListener(frame.getPlayerX(alpha) + player.sprite.width / 2f, frame.getPlayerY(alpha) + player.sprite.height / 2f);
+
 
         // Update the map's render position
-        mapRenderer.setView(camera);
+        if (mapStreamer != null) {
+            mapStreamer.setView(camera);
+        } else {
+            mapView.setView(camera);
+        }
         // Draw the background layer
-        mapRenderer.render(game.backgroundLayers);
+        debugOverlay.begin(DebugOverlay.BACKGROUND);
+        if (mapStreamer != null) {
+            mapStreamer.renderBackground();
+        } else {
+            mapView.renderBackground();
+        }
+        debugOverlay.end(DebugOverlay.BACKGROUND);
 
         // Begin the spritebatch to draw the player on the screen
+        debugOverlay.begin(DebugOverlay.PLAYER);
         game.batch.setProjectionMatrix(camera.combined);
         game.batch.begin();
 
         // Player, draw and scale
         game.batch.draw(
-                player.getCurrentFrame(),
-                player.sprite.x, player.sprite.y,
+                frame.playerFrame,
+                frame.getPlayerX(alpha), frame.getPlayerY(alpha),
                 0, 0,
                 player.sprite.width, player.sprite.height,
                 1f, 1f, 1
         );
 
         game.batch.end();
+        debugOverlay.end(DebugOverlay.PLAYER);
 
         // Render map foreground layers
-        mapRenderer.render(game.foregroundLayers);
-
-
-        // Check if the interaction (press e to use) label needs to be drawn
-        interactionLabel.setVisible(false);
-        if (!dialogueBox.isVisible() && !escapeMenu.isVisible() && !sleeping) {
-            if (player.nearObject()) {
-                interactionLabel.setVisible(true);
-                // Change text whether pressing E will interact or just read text
-                if (player.getClosestObject().get("event") != null) {
-                    interactionLabel.setText("E - Interact");
-                } else if (player.getClosestObject().get("text") != null) {
-                    interactionLabel.setText("E - Read Sign");
-                }
-            }
+        debugOverlay.begin(DebugOverlay.FOREGROUND);
+        if (mapStreamer != null) {
+            mapStreamer.renderForeground();
+        } else {
+            mapView.renderForeground();
         }
+        debugOverlay.end(DebugOverlay.FOREGROUND);
 
 
-        // Update UI elements
+        // Draw UI elements, they are updated each tick
+        debugOverlay.begin(DebugOverlay.UI_DRAW);
         uiStage.getViewport().apply();
-        uiStage.act(delta);
         uiStage.draw();
+        debugOverlay.end(DebugOverlay.UI_DRAW);
 
-
-        // Focus the camera on the center of the player
-        // Make it slide into place too
-        // Change to camera.positon.set() to remove cool sliding
-        camera.position.slerp(
-                new Vector3(
-                        player.getCentreX(),
-                        player.getCentreY(),
-                        0
-                ),
-                delta*9
-        );
+        debugOverlay.endFrame(delta, uiStage.getCamera(), game.batch, game.shapeRenderer, game.skin.getFont("Button_white"));
 
 
         // Debug - Draw player hitboxes
@@ -358,9 +430,320 @@ public class GameScreen implements Screen {
 //        if (player.getClosestObject() != null) {
 //            System.out.println(player.getClosestObject().get("event"));
 //        }
+    }
 
+    /**
+     * Advances the game by one fixed step: reads the input, runs the simulation and updates the UI
+     *
+     * @param step The length of the step in seconds
+     */
+    private void tick (float step) {
+        // Read this tick's input, from the keyboard or the replay
+        if (replay != null) {
+            replay.play(tickCount, movementInput, replayKeys);
+            for (int i = 0; i < replayKeys.size; i++) {
+                handleKey(replayKeys.get(i));
+            }
+        } else {
+            movementInput.pollKeyboard();
+            if (recording != null) {
+                recording.recordMovement(tickCount, movementInput);
+            }
+        }
 
-        camera.update();
+        // Update sound timers
+        game.soundManager.processTimers(step);
+
+        debugOverlay.begin(DebugOverlay.MOVE);
+        simulate(step, movementInput, escapeMenu.isVisible(), dialogueBox.isVisible());
+        takePortal();
+        debugOverlay.end(DebugOverlay.MOVE);
+        playFootsteps(player.isMoving(), getSurface());
+
+        // Update UI elements here rather than each frame, since fades and dialogue can trigger events
+        // Dialogue text scrolls itself in uiStage.act()
+        debugOverlay.begin(DebugOverlay.UI_ACT);
+        uiStage.act(step);
+        debugOverlay.end(DebugOverlay.UI_ACT);
+
+        tickCount++;
+        if (replay != null && replay.isFinished(tickCount)) {
+            // Hand control back to the player
+            System.out.println("Replay finished after " + tickCount + " ticks");
+            replay = null;
+            inputMultiplexer.addProcessor(uiStage);
+        }
+    }
+
+    /**
+     * The part of a tick that doesn't touch the UI, so it can run on the logic thread: passes time, moves the
+     * player and moves the camera towards them
+     *
+     * @param step The length of the step in seconds
+     * @param input The directions the player is moving in
+     * @param menuOpen Whether the escape menu is open, which pauses time
+     * @param dialogueOpen Whether the dialogue box is open, which stops the player moving
+     */
+    private void simulate (float step, MovementInput input, boolean menuOpen, boolean dialogueOpen) {
+        // Increment the time and possibly day
+        if (!menuOpen && !state.isSleeping()) {
+            state.passTime(step);
+        }
+
+        // Freeze the player's movement for this frame if any menus are visible
+        player.setFrozen(menuOpen || dialogueOpen || state.isSleeping());
+
+        // Let the player move to keyboard presses if not frozen
+        // Player.move() handles player collision
+        player.move(step, input);
+        // Load the map around where the player has moved to
+        if (mapStreamer != null) {
+            mapStreamer.update(player.getCentreX(), player.getCentreY());
+        } else if (enteredPortal == null) {
+            for (GameObject portal : currentArea.portals) {
+                if (player.feet.overlaps(portal)) {
+                    enteredPortal = portal;
+                    break;
+                }
+            }
+        }
+
+        // Focus the camera on the center of the player
+        // Make it slide into place too
+        // Set cameraX and cameraY to the player's centre to remove cool sliding
+        previousCameraX = cameraX;
+        previousCameraY = cameraY;
+        cameraX += (player.getCentreX() - cameraX) * Math.min(step * 9, 1);
+        cameraY += (player.getCentreY() - cameraY) * Math.min(step * 9, 1);
+    }
+
+    /**
+     * Hands an object from the map to the player to collide and interact with
+     */
+    private void addObject (GameObject object) {
+        compileEvent(object);
+        player.addCollidable(object);
+    }
+
+    /**
+     * Resolves an object's event now, so interacting with it doesn't need to parse or make anything
+     */
+    private void compileEvent (GameObject object) {
+        if (object.event != null) {
+            object.eventCommand = eventManager.compile(object.event);
+            object.eventOptions = new EventCommand[]{object.eventCommand, eventManager.exitCommand};
+        }
+    }
+
+    /**
+     * Moves the player onto a map, loading it and making its objects and renderers if preloadMaps() hasn't already.
+     * They are kept for the rest of the game, so coming back to it is quick
+     *
+     * @param map The map to move to
+     * @param from The name of the map the player came from, to find where to arrive, or null to use the spawn point
+     */
+    private void enterMap (WorldMap map, String from) {
+        game.world.load(map);
+        MapArea area = areas.get(map.name);
+        if (area == null) {
+            area = makeArea(map);
+        }
+        currentMap = map;
+        currentArea = area;
+        // The map's renderers are made the first time it is visited and reused by every game after
+        mapView = map.getView(game.shaderLayers, game.mapScale, game.batch);
+
+        player.setObjects(area.collidables, area.interactables, area.spatialGrid, area.collisionMap);
+        // Set the player to not go outside the bounds of the map
+        player.setBounds(area.bounds);
+
+        // Arrive by the portal from the last map, else at the spawn point, else in the middle of the map
+        Vector2 position = from != null ? area.arrivals.get(from) : null;
+        if (position == null) {
+            position = area.spawn;
+        }
+        if (position != null) {
+            player.teleport(position.x, position.y);
+        } else {
+            player.teleport(area.bounds.width / 2f, area.bounds.height / 2f);
+        }
+
+        // Put camera on player, without sliding there from the last map
+        cameraX = previousCameraX = player.getCentreX();
+        cameraY = previousCameraY = player.getCentreY();
+        camera.position.set(cameraX, cameraY, 0);
+    }
+
+    /**
+     * Makes the objects of a loaded map and keeps them for the rest of the game
+     */
+    private MapArea makeArea (WorldMap map) {
+        MapArea area = new MapArea(map, game.mapScale, game.collisionCellsPerTile);
+        for (GameObject object : area.collidables) {
+            compileEvent(object);
+        }
+        areas.put(map.name, area);
+        return area;
+    }
+
+    /**
+     * Moves the player to the map behind the portal they walked into last tick, if they did
+     */
+    private void takePortal () {
+        GameObject portal = enteredPortal;
+        if (portal == null) {
+            return;
+        }
+        enteredPortal = null;
+        String name = portal.properties.get("portal", String.class);
+        WorldMap target = game.world.get(name);
+        if (target == null) {
+            System.out.println("WARNING: Portal leads to " + name + ", which isn't a map in the world");
+            // Stop it being walked into again
+            currentArea.portals.removeValue(portal, true);
+            return;
+        }
+        enterMap(target, currentMap.name);
+    }
+
+    /**
+     * Starts loading the maps behind any portals the player is near, and carries on loading them a little each frame.
+     * Once a map has loaded, its objects and renderers are made too, one a frame, so crossing the portal doesn't
+     * have to make anything
+     */
+    private void preloadMaps () {
+        float range = PRELOAD_DISTANCE * game.mapScale;
+        boolean prepared = false;
+        // From the player's centre, like the camera and portals, so it doesn't depend on which way they come from
+        float playerX = frame.playerX + player.sprite.width / 2f;
+        float playerY = frame.playerY + player.sprite.height / 2f;
+        for (GameObject portal : currentArea.portals) {
+            float dx = Math.max(Math.max(portal.x - playerX, playerX - (portal.x + portal.width)), 0);
+            float dy = Math.max(Math.max(portal.y - playerY, playerY - (portal.y + portal.height)), 0);
+            if (dx * dx + dy * dy < range * range) {
+                WorldMap target = game.world.get(portal.properties.get("portal", String.class));
+                if (target != null) {
+                    game.world.preload(target);
+                    if (!prepared && game.world.isLoaded(target)) {
+                        prepared = prepareMap(target);
+                    }
+                }
+            }
+        }
+        game.world.update();
+    }
+
+    /**
+     * Does the next step of getting a loaded map ready to enter: taking it from the AssetManager, making its
+     * objects, then making its renderers
+     *
+     * @return true if a step was done, false if the map is ready
+     */
+    private boolean prepareMap (WorldMap map) {
+        if (map.map == null) {
+            game.world.load(map);
+        } else if (!areas.containsKey(map.name)) {
+            makeArea(map);
+        } else if (!map.hasView()) {
+            map.getView(game.shaderLayers, game.mapScale, game.batch);
+        } else {
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Plays a footstep sound if the player is moving
+     *
+     * @param surface What the player is walking on, see Surfaces
+     */
+    private void playFootsteps (boolean moving, int surface) {
+        if (moving) {
+            game.soundManager.playFootstep(surface);
+        } else {
+            game.soundManager.footstepBool = false;
+        }
+    }
+
+    /**
+     * @return The surface of the ground under the middle of the player's feet, see Surfaces. Streamed maps don't
+     * have surfaces, so always Surfaces.NONE for them
+     */
+    private int getSurface () {
+        if (currentMap == null) {
+            return Surfaces.NONE;
+        }
+        int tileX = (int) ((player.feet.x + player.feet.width / 2f) / game.mapScale);
+        int tileY = (int) ((player.feet.y + player.feet.height / 2f) / game.mapScale);
+        return currentMap.getSurface(tileX, tileY);
+    }
+
+    /**
+     * Copies what is needed to draw a frame out of the game
+     *
+     * @param snapshot The snapshot to fill
+     */
+    private void capture (GameSnapshot snapshot) {
+        snapshot.tick = tickCount;
+        snapshot.playerX = player.getX();
+        snapshot.playerY = player.getY();
+        snapshot.previousPlayerX = player.getPreviousX();
+        snapshot.previousPlayerY = player.getPreviousY();
+        snapshot.playerFrame = player.getCurrentFrame();
+        snapshot.moving = player.isMoving();
+        snapshot.surface = getSurface();
+        snapshot.cameraX = cameraX;
+        snapshot.cameraY = cameraY;
+        snapshot.previousCameraX = previousCameraX;
+        snapshot.previousCameraY = previousCameraY;
+        snapshot.seconds = (int) state.getSeconds();
+        snapshot.day = state.getDay();
+        snapshot.energy = state.getEnergy();
+        snapshot.sleeping = state.isSleeping();
+        snapshot.interaction = player.nearObject() ? player.getClosestObject().interaction.ordinal() : Hud.HIDDEN;
+    }
+
+    /**
+     * Starts running the ticks on a LogicThread
+     */
+    private void startLogicThread () {
+        logicThread = new LogicThread(new LogicThread.Simulation() {
+            @Override
+            public void tick(float step) {
+                threadInput.setBits(threadMovement);
+                simulate(step, threadInput, threadMenuOpen, threadDialogueOpen);
+                tickCount++;
+            }
+
+            @Override
+            public void capture(GameSnapshot snapshot) {
+                GameScreen.this.capture(snapshot);
+            }
+        }, simulationLock, game.ticksPerSecond);
+        logicThread.start();
+    }
+
+    /**
+     * The render thread's half of a frame when the ticks run on a LogicThread: passes the keyboard and the state of
+     * the menus to the logic thread, plays sounds and runs the UI
+     *
+     * @param delta The time since the last frame
+     */
+    private void updateLogicThread (float delta) {
+        movementInput.pollKeyboard();
+        threadMovement = movementInput.toBits();
+        threadMenuOpen = escapeMenu.isVisible();
+        threadDialogueOpen = dialogueBox.isVisible();
+
+        game.soundManager.processTimers(delta);
+        // Uses the last frame's snapshot, a frame late at most
+        playFootsteps(frame.moving, frame.surface);
+
+        debugOverlay.begin(DebugOverlay.UI_ACT);
+        synchronized (simulationLock) {
+            uiStage.act(delta);
+        }
+        debugOverlay.end(DebugOverlay.UI_ACT);
     }
 
 
@@ -408,9 +791,13 @@ public class GameScreen implements Screen {
             @Override
             public void changed(ChangeEvent event, Actor actor) {
                 if (escapeMenu.isVisible()) {
-                    game.soundManager.playButton();
-                    game.soundManager.playOverworldMusic();
-                    escapeMenu.setVisible(false);
+                    // The same as pressing escape, and recorded as it so the replay closes the menu too
+                    synchronized (simulationLock) {
+                        handleKey(Input.Keys.ESCAPE);
+                    }
+                    if (recording != null) {
+                        recording.recordKey(tickCount, Input.Keys.ESCAPE);
+                    }
                 }
             }
         });
@@ -424,7 +811,7 @@ public class GameScreen implements Screen {
             public void changed(ChangeEvent event, Actor actor) {
                 if (escapeMenu.isVisible()) {
                     game.soundManager.playButton();
-                    game.setScreen(new SettingsScreen(game, thisScreen));
+                    game.showSettings(thisScreen);
                 }
             }
         });
@@ -435,8 +822,9 @@ public class GameScreen implements Screen {
                 if (escapeMenu.isVisible()) {
                     game.soundManager.playButton();
                     game.soundManager.stopOverworldMusic();
-                    dispose();
-                    game.setScreen(new MenuScreen(game));
+                    finishRecording();
+                    game.showMenu();
+                    disposeLater();
                 }
             }
         });
@@ -479,12 +867,31 @@ public class GameScreen implements Screen {
     }
 
     /**
-     * Disposes of certain elements, called when the game is closed
+     * Disposes of this game's UI and gives back its textures, called when the game is left.
+     * The map's renderers belong to HustleGame and are kept for the next game, a streamed map's chunks are dropped
      */
     @Override
     public void dispose () {
+        if (logicThread != null) {
+            logicThread.stop();
+            logicThread = null;
+        }
+        if (mapStreamer != null) {
+            mapStreamer.dispose();
+        }
+        finishRecording();
+        if (game.gameScreen == this) {
+            game.gameScreen = null;
+        }
         uiStage.dispose();
-        mapRenderer.dispose();
+        debugOverlay.dispose();
+        game.textures.release(Assets.BLACK_SQUARE);
+        game.textures.release(Assets.PLAYER_ATLAS);
+        game.textures.release(Assets.ENERGY_BAR);
+        game.textures.release(Assets.ENERGY_BAR_OUTLINE);
+        if (game.reportTextures) {
+            System.out.println(game.textures.report());
+        }
     }
 
     /**
@@ -513,16 +920,80 @@ public class GameScreen implements Screen {
      * @param delta The time in seconds to add
      */
     public void passTime(float delta) {
-        daySeconds += delta;
-        while (daySeconds >= 1440) {
-            daySeconds -= 1440;
-            day += 1;
-            dayLabel.setText(String.format("Day %s", day));
-        }
+        state.passTime(delta);
+        updateStats();
+    }
+
+    /**
+     * Updates the HUD to match the state, and ends the game if the last day is over.
+     * Called every frame, and after anything changes the state outside of a frame
+     *
+     * @return true if the game is over and this screen has been left
+     */
+    public boolean updateStats() {
+        hud.update();
 
-        if (day >= 8) {
-            GameOver();
+        synchronized (simulationLock) {
+            if (state.isGameOver()) {
+                GameOver();
+                return true;
+            }
         }
+        return false;
+    }
+
+    /**
+     * Binds the HUD's widgets to the values they show, so they are only changed when the values change
+     */
+    private void bindHud() {
+        hud.bindLabel(timeLabel, new Hud.Value() {
+            @Override
+            public int get() {
+                return frame.seconds;
+            }
+        }, new Hud.Format() {
+            @Override
+            public void write(int value, StringBuilder text) {
+                Hud.writeTime(value, text);
+            }
+        });
+        hud.bindLabel(dayLabel, new Hud.Value() {
+            @Override
+            public int get() {
+                return frame.day;
+            }
+        }, new Hud.Format() {
+            @Override
+            public void write(int value, StringBuilder text) {
+                text.append("Day ").append(value);
+            }
+        });
+        hud.bindScaleY(energyBar, new Hud.Value() {
+            @Override
+            public int get() {
+                return frame.energy;
+            }
+        }, 100);
+        // The interaction prompt shows which kind of object the player is next to, if any
+        hud.bindLabel(interactionLabel, new Hud.Value() {
+            @Override
+            public int get() {
+                if (dialogueBox.isVisible() || escapeMenu.isVisible() || frame.sleeping) {
+                    return Hud.HIDDEN;
+                }
+                return frame.interaction;
+            }
+        }, new Hud.Format() {
+            @Override
+            public void write(int value, StringBuilder text) {
+                // Change text whether pressing E will interact or just read text
+                if (value == GameObject.Interaction.TEXT.ordinal()) {
+                    text.append("E - Read Sign");
+                } else {
+                    text.append("E - Interact");
+                }
+            }
+        });
     }
 
     /**
@@ -533,19 +1004,9 @@ public class GameScreen implements Screen {
      */
     public String formatTime(int seconds) {
         // Takes a number of seconds and converts it into a 12 hour clock time
-        int hour = Math.floorDiv(seconds, 60);
-        String minutes = String.format("%02d", (seconds - hour * 60));
-
-        // Make 12 hour
-        if (hour == 24 || hour == 0) {
-            return String.format("12:%sam", minutes);
-        } else if (hour == 12) {
-            return String.format("12:%spm", minutes);
-        } else if (hour > 12) {
-            return String.format("%d:%spm", hour-12, minutes);
-        } else {
-            return String.format("%d:%sam", hour, minutes);
-        }
+        StringBuilder text = new StringBuilder(8);
+        Hud.writeTime(seconds, text);
+        return text.toString();
     }
 
 
@@ -558,71 +1019,99 @@ public class GameScreen implements Screen {
         return new InputAdapter() {
             @Override
             public boolean keyDown (int keycode) {
-                // SHOW ESCAPE MENU CODE
-                if (keycode == Input.Keys.ESCAPE) {
-                    if (escapeMenu.isVisible()) {
-                        game.soundManager.playButton();
-                        game.soundManager.playOverworldMusic();
-                        escapeMenu.setVisible(false);
-                    } else {
-                        // game.soundManager.pauseOverworldMusic();
-                        game.soundManager.playButton();
-                        escapeMenu.setVisible(true);
-                    }
-                    // Return true to indicate the keydown event was handled
+                // Debug keys work during replays and aren't recorded
+                if (keycode == Input.Keys.F3) {
+                    debugOverlay.toggle();
                     return true;
                 }
+                // The replay presses its own keys each tick
+                if (replay != null) {
+                    return true;
+                }
+                boolean handled;
+                synchronized (simulationLock) {
+                    handled = handleKey(keycode);
+                }
+                if (handled && recording != null) {
+                    // Pressed before the next tick runs, so played back before it too
+                    recording.recordKey(tickCount, keycode);
+                }
+                return handled;
+            }
+        };
+    }
 
-                // SHOW OPTION MENU / ACT ON OPTION MENU CODE
-                if (keycode == Input.Keys.E || keycode == Input.Keys.ENTER || keycode == Input.Keys.SPACE) {
-                    if (!escapeMenu.isVisible()) {
-                        // If a dialogue box is visible, choose an option or advance text
-                        if (dialogueBox.isVisible()) {
-                            dialogueBox.enter(eventManager);
-                            game.soundManager.playButton();
-
-                        } else if (player.nearObject() && !sleeping) {
-                            // If the object has an event associated with it
-                            if (player.getClosestObject().get("event") != null) {
-                                // Show a dialogue menu asking if they want to do an interaction with the object
-                                dialogueBox.show();
-                                dialogueBox.getSelectBox().setOptions(new String[]{"Yes", "No"}, new String[]{(String) player.getClosestObject().get("event"), "exit"});
-                                if (eventManager.hasCustomObjectInteraction((String) player.getClosestObject().get("event"))) {
-                                    dialogueBox.setText(eventManager.getObjectInteraction((String) player.getClosestObject().get("event")));
-                                } else {
-                                    dialogueBox.setText("Interact with " + player.getClosestObject().get("event") + "?");
-                                }
-                                dialogueBox.show();
-                                dialogueBox.getSelectBox().show();
-                                game.soundManager.playDialogueOpen();
-
-                            } else if (player.getClosestObject().get("text") != null) {
-                                // Otherwise, if it is a text object, just display its text
-                                dialogueBox.show();
-                                dialogueBox.setText((String) player.getClosestObject().get("text"));
-                            }
+    /**
+     * Acts on a key press, from the keyboard or a replay
+     *
+     * @param keycode The key pressed, from Input.Keys
+     * @return true if the key did something
+     */
+    private boolean handleKey (int keycode) {
+        // SHOW ESCAPE MENU CODE
+        if (keycode == Input.Keys.ESCAPE) {
+            if (escapeMenu.isVisible()) {
+                game.soundManager.playButton();
+                game.soundManager.playOverworldMusic();
+                escapeMenu.setVisible(false);
+            } else {
+                // game.soundManager.pauseOverworldMusic();
+                game.soundManager.playButton();
+                escapeMenu.setVisible(true);
+            }
+            // Return true to indicate the keydown event was handled
+            return true;
+        }
+
+        // SHOW OPTION MENU / ACT ON OPTION MENU CODE
+        if (keycode == Input.Keys.E || keycode == Input.Keys.ENTER || keycode == Input.Keys.SPACE) {
+            if (!escapeMenu.isVisible()) {
+                // If a dialogue box is visible, choose an option or advance text
+                if (dialogueBox.isVisible()) {
+                    dialogueBox.enter(eventManager);
+                    game.soundManager.playButton();
+
+                } else if (player.nearObject() && !state.isSleeping()) {
+                    GameObject object = player.getClosestObject();
+                    // If the object has an event associated with it
+                    if (object.interaction == GameObject.Interaction.EVENT) {
+                        // Show a dialogue menu asking if they want to do an interaction with the object
+                        dialogueBox.show();
+                        dialogueBox.getSelectBox().setOptions(YES_NO, object.eventOptions);
+                        if (eventManager.hasCustomObjectInteraction(object.eventName)) {
+                            dialogueBox.setText(eventManager.getObjectInteraction(object.eventName));
+                        } else {
+                            dialogueBox.setText("Interact with " + object.event + "?");
                         }
-                        return true;
+                        dialogueBox.show();
+                        dialogueBox.getSelectBox().show();
+                        game.soundManager.playDialogueOpen(object);
+
+                    } else if (object.interaction == GameObject.Interaction.TEXT) {
+                        // Otherwise, if it is a text object, just display its text
+                        dialogueBox.show();
+                        dialogueBox.setText(object.text);
                     }
                 }
+                return true;
+            }
+        }
 
-                // If an option dialogue is open it should soak up all keypresses
-                if (dialogueBox.isVisible() && dialogueBox.getSelectBox().isVisible() && !escapeMenu.isVisible()) {
-                    // Up or down
-                    if (keycode == Input.Keys.W || keycode == Input.Keys.UP) {
-                        dialogueBox.getSelectBox().choiceUp();
-                    } else if (keycode == Input.Keys.S || keycode == Input.Keys.DOWN) {
-                        dialogueBox.getSelectBox().choiceDown();
-                    }
+        // If an option dialogue is open it should soak up all keypresses
+        if (dialogueBox.isVisible() && dialogueBox.getSelectBox().isVisible() && !escapeMenu.isVisible()) {
+            // Up or down
+            if (keycode == Input.Keys.W || keycode == Input.Keys.UP) {
+                dialogueBox.getSelectBox().choiceUp();
+            } else if (keycode == Input.Keys.S || keycode == Input.Keys.DOWN) {
+                dialogueBox.getSelectBox().choiceDown();
+            }
 
-                    return true;
+            return true;
 
-                }
+        }
 
 
-                return false;
-            }
-        };
+        return false;
     }
 
 
@@ -632,18 +1121,15 @@ public class GameScreen implements Screen {
      * @param energy An int between 0 and 100
      */
     public void setEnergy(int energy) {
-        this.energy = energy;
-        if (this.energy > 100) {
-            this.energy = 100;
-        }
-        energyBar.setScaleY(this.energy / 100f);
+        state.setEnergy(energy);
+        updateStats();
     }
 
     /**
      * @return The player's energy out of 100
      */
     public int getEnergy() {
-        return this.energy;
+        return state.getEnergy();
     }
 
     /**
@@ -652,11 +1138,8 @@ public class GameScreen implements Screen {
      * @param energy The energy to decrement
      */
     public void decreaseEnergy(int energy) {
-        this.energy = this.energy - energy;
-        if (this.energy < 0) {
-            this.energy = 0;
-        }
-        energyBar.setScaleY(this.energy / 100f);
+        state.decreaseEnergy(energy);
+        updateStats();
     }
 
     // Functions related to game score and requirements
@@ -666,7 +1149,7 @@ public class GameScreen implements Screen {
      * @param hours The amount of hours to add
      */
     public void addStudyHours(int hours) {
-        hoursStudied += hours;
+        state.addStudyHours(hours);
     }
 
     /**
@@ -674,39 +1157,21 @@ public class GameScreen implements Screen {
      * @param hours The amount of hours to add
      */
     public void addRecreationalHours(int hours) {
-        hoursRecreational += hours;
+        state.addRecreationalHours(hours);
     }
 
     /**
      * @return Returns 'breakfast', 'lunch' or 'dinner' depending on the time of day
      */
     public String getMeal() {
-        int hours = Math.floorDiv((int) daySeconds, 60);
-        if (hours >= 7 && hours <= 10) {
-            //Breakfast between 7:00-10:59am
-            return "breakfast";
-        } else if (hours > 10 && hours <= 16) {
-            // Lunch between 10:00am and 4:59pm
-            return "lunch";
-        } else if (hours > 16 && hours <= 21) {
-            // Dinner served between 4:00pm and 9:59pm
-            return "dinner";
-        } else {
-            // Nothing is served between 10:00pm and 6:59am
-            return "food";
-        }
+        return state.getMeal();
     }
 
     /**
      * @return A wake up message based on the time left until the exam
      */
     public String getWakeUpMessage() {
-        int daysLeft = 8 - day;
-        if (daysLeft != 1) {
-            return String.format("You have %d days left until your exam!\nRemember to eat, study and have fun, but don't overwork yourself!", daysLeft);
-        } else {
-            return "Your exam is tomorrow! I hope you've been studying! Remember not to overwork yourself and get enough sleep!";
-        }
+        return state.getWakeUpMessage();
     }
 
 
@@ -714,34 +1179,63 @@ public class GameScreen implements Screen {
      * @param sleeping Sets the value of sleeping
      */
     public void setSleeping(boolean sleeping) {
-        this.sleeping = sleeping;
+        state.setSleeping(sleeping);
     }
 
     /**
      * @return true if the player is sleeping
      */
     public boolean getSleeping() {
-        return sleeping;
+        return state.isSleeping();
     }
 
     /**
      * @param hours Add this amount of hours to the total hours slept
      */
     public void addSleptHours(int hours) {
-        hoursSlept += hours;
+        state.addSleptHours(hours);
     }
 
     /**
      * @return The number of seconds elapsed in the day
      */
     public float getSeconds() {
-        return daySeconds;
+        return state.getSeconds();
     }
 
     /**
      * Ends the game, called at the end of the 7th day, switches to a screen that displays a score
      */
     public void GameOver() {
-        game.setScreen(new GameOverScreen(game, hoursStudied, hoursRecreational, hoursSlept));
+        if (gameOver) {
+            return;
+        }
+        gameOver = true;
+        finishRecording();
+        game.showGameOver(state.getHoursStudied(), state.getHoursRecreational(), state.getHoursSlept());
+        disposeLater();
+    }
+
+    /**
+     * Disposes of this screen once the current frame is over, for when the game is left part way through a tick
+     */
+    private void disposeLater() {
+        Gdx.app.postRunnable(new Runnable() {
+            @Override
+            public void run() {
+                dispose();
+            }
+        });
+    }
+
+    /**
+     * Saves the inputs recorded so far to game.recordFile and stops recording, does nothing if not recording
+     */
+    public void finishRecording() {
+        if (recording != null) {
+            recording.save(Gdx.files.local(game.recordFile), tickCount);
+            System.out.println("Saved recording of " + tickCount + " ticks to " + game.recordFile);
+            recording = null;
+        }
     }
 }
@@ -0,0 +1,67 @@
+package com.skloch.game;
+
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+
+/**
+ * Everything GameScreen needs to draw a frame, copied out of the game at the end of a tick.
+ * When the game runs on a LogicThread the render thread only draws from these, so it never reads the player or
+ * state while the logic thread is changing them. A snapshot isn't changed once it has been published.
+ */
+public class GameSnapshot {
+    public int tick;
+    // The player's position after the tick and before it, drawn part way between
+    public float playerX, playerY, previousPlayerX, previousPlayerY;
+    public TextureRegion playerFrame;
+    public boolean moving;
+    public int surface; // What the player is standing on, see Surfaces
+    public float cameraX, cameraY, previousCameraX, previousCameraY;
+    // HUD values
+    public int seconds, day, energy;
+    public boolean sleeping;
+    public int interaction; // The closest object's GameObject.Interaction ordinal, or Hud.HIDDEN
+    public long publishedNanos; // When the tick finished, to work out how far to the next it is
+
+    /**
+     * Copies another snapshot into this one
+     */
+    public void set(GameSnapshot other) {
+        tick = other.tick;
+        playerX = other.playerX;
+        playerY = other.playerY;
+        previousPlayerX = other.previousPlayerX;
+        previousPlayerY = other.previousPlayerY;
+        playerFrame = other.playerFrame;
+        moving = other.moving;
+        surface = other.surface;
+        cameraX = other.cameraX;
+        cameraY = other.cameraY;
+        previousCameraX = other.previousCameraX;
+        previousCameraY = other.previousCameraY;
+        seconds = other.seconds;
+        day = other.day;
+        energy = other.energy;
+        sleeping = other.sleeping;
+        interaction = other.interaction;
+        publishedNanos = other.publishedNanos;
+    }
+
+    /**
+     * @param alpha How far between the last two ticks, from 0 to 1
+     * @return The X coordinate to draw the player at
+     */
+    public float getPlayerX(float alpha) {
+        return previousPlayerX + (playerX - previousPlayerX) * alpha;
+    }
+
+    public float getPlayerY(float alpha) {
+        return previousPlayerY + (playerY - previousPlayerY) * alpha;
+    }
+
+    public float getCameraX(float alpha) {
+        return previousCameraX + (cameraX - previousCameraX) * alpha;
+    }
+
+    public float getCameraY(float alpha) {
+        return previousCameraY + (cameraY - previousCameraY) * alpha;
+    }
+}
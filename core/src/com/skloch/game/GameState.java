@@ -0,0 +1,303 @@
+package com.skloch.game;
+
+import com.badlogic.gdx.math.RandomXS128;
+
+import java.util.HashMap;
+
+/**
+ * The rules and stats of a playthrough, with no graphics involved.
+ * Stores the player's energy, the time and day, and the hours spent on each activity, and applies the effects of
+ * studying, meeting friends, eating and sleeping.
+ * Anything random in the game should use random, so a game started with the same seed and inputs plays out the same.
+ * GameScreen draws this state, and HeadlessSimulation runs it without a window.
+ */
+public class GameState {
+    public static final int SECONDS_PER_DAY = 1440; // A second of real time is a minute in game
+    public static final int WAKE_UP_TIME = 8 * 60; // 8:00am
+    public static final int LAST_DAY = 7;
+
+    // Names of activities in activityEnergies
+    public static final String STUDYING = "studying";
+    public static final String MEET_FRIENDS = "meet_friends";
+    public static final String EATING = "eating";
+
+    private int energy = 100;
+    private int hoursStudied, hoursRecreational, hoursSlept;
+    private int mealsEaten; // Meals eaten while breakfast, lunch or dinner was being served
+    private float daySeconds = WAKE_UP_TIME; // Current seconds elapsed in day
+    private int day = 1; // What day the game is on
+    private boolean sleeping = false;
+    // How much energy an hour of each activity should take
+    public final HashMap<String, Integer> activityEnergies;
+    private final long seed;
+    public final RandomXS128 random;
+
+    /**
+     * Creates the state at the start of a new game, 8:00am on day 1 with full energy, with a random seed
+     */
+    public GameState() {
+        this(new RandomXS128().nextLong());
+    }
+
+    /**
+     * Creates the state at the start of a new game, 8:00am on day 1 with full energy
+     *
+     * @param seed The seed for the game's random numbers
+     */
+    public GameState(long seed) {
+        this.seed = seed;
+        random = new RandomXS128(seed);
+
+        activityEnergies = new HashMap<String, Integer>();
+        activityEnergies.put(STUDYING, 10);
+        activityEnergies.put(MEET_FRIENDS, 10);
+        activityEnergies.put(EATING, 10);
+    }
+
+    /**
+     * Add a number of seconds to the time elapsed in the day, moving on to the next day if needed
+     *
+     * @param delta The time in seconds to add
+     * @return How many days were passed, usually 0
+     */
+    public int passTime(float delta) {
+        int daysPassed = 0;
+        daySeconds += delta;
+        while (daySeconds >= SECONDS_PER_DAY) {
+            daySeconds -= SECONDS_PER_DAY;
+            day += 1;
+            daysPassed += 1;
+        }
+        return daysPassed;
+    }
+
+    /**
+     * @return true once the last day is over
+     */
+    public boolean isGameOver() {
+        return day > LAST_DAY;
+    }
+
+    /**
+     * Sets the player's energy level, capped at 100
+     *
+     * @param energy An int between 0 and 100
+     */
+    public void setEnergy(int energy) {
+        this.energy = Math.min(energy, 100);
+    }
+
+    /**
+     * Decreases the player's energy by a certain amount, stopping at 0
+     *
+     * @param energy The energy to decrement
+     */
+    public void decreaseEnergy(int energy) {
+        this.energy = Math.max(this.energy - energy, 0);
+    }
+
+    /**
+     * @return true if it is too early in the morning to do any activities
+     */
+    public boolean isTooEarly() {
+        return daySeconds <= WAKE_UP_TIME;
+    }
+
+    /**
+     * @param activity The name of an activity, e.g. GameState.STUDYING
+     * @return The energy an hour of the activity takes
+     */
+    public int getEnergyCost(String activity) {
+        return activityEnergies.get(activity);
+    }
+
+    /**
+     * @param activity The name of an activity, e.g. GameState.STUDYING
+     * @param hours How many hours the activity would take
+     * @return true if the player has enough energy to do the activity for that long
+     */
+    public boolean hasEnergyFor(String activity, int hours) {
+        return energy >= getEnergyCost(activity) * hours;
+    }
+
+    /**
+     * Studies for some hours, costing energy and passing time.
+     * Does not check the player has enough energy, see hasEnergyFor()
+     *
+     * @param hours The hours to study for
+     */
+    public void study(int hours) {
+        decreaseEnergy(getEnergyCost(STUDYING) * hours);
+        hoursStudied += hours;
+        passTime(hours * 60);
+    }
+
+    /**
+     * Meets friends for some hours, costing energy and passing time
+     *
+     * @param hours The hours to spend with friends
+     */
+    public void meetFriends(int hours) {
+        decreaseEnergy(getEnergyCost(MEET_FRIENDS) * hours);
+        hoursRecreational += hours;
+        passTime(hours * 60);
+    }
+
+    /**
+     * Eats a meal, costing energy and taking an hour
+     */
+    public void eat() {
+        if (!getMeal().equals("food")) {
+            mealsEaten++;
+        }
+        decreaseEnergy(getEnergyCost(EATING));
+        passTime(60);
+    }
+
+    /**
+     * @return The seconds left until the player's alarm goes off at 8am, today or tomorrow
+     */
+    public float getSecondsUntilWakeUp() {
+        if (daySeconds < WAKE_UP_TIME) {
+            return WAKE_UP_TIME - daySeconds;
+        } else {
+            // Account for the wakeup time being in the next day
+            return (WAKE_UP_TIME + SECONDS_PER_DAY) - daySeconds;
+        }
+    }
+
+    /**
+     * @param secondsSlept Seconds spent asleep
+     * @return The seconds slept rounded to the nearest hour
+     */
+    public static int toHoursSlept(float secondsSlept) {
+        return Math.round(secondsSlept / 60f);
+    }
+
+    /**
+     * Sleeps for a number of seconds, restoring 13 energy for every hour slept and passing time
+     *
+     * @param secondsSlept The seconds to sleep for, usually getSecondsUntilWakeUp()
+     * @return The hours slept, rounded to the nearest hour
+     */
+    public int sleep(float secondsSlept) {
+        int hours = toHoursSlept(secondsSlept);
+        setEnergy(hours * 13);
+        passTime(secondsSlept);
+        hoursSlept += hours;
+        return hours;
+    }
+
+    /**
+     * @return Returns 'breakfast', 'lunch' or 'dinner' depending on the time of day
+     */
+    public String getMeal() {
+        int hours = Math.floorDiv((int) daySeconds, 60);
+        if (hours >= 7 && hours <= 10) {
+            //Breakfast between 7:00-10:59am
+            return "breakfast";
+        } else if (hours > 10 && hours <= 16) {
+            // Lunch between 10:00am and 4:59pm
+            return "lunch";
+        } else if (hours > 16 && hours <= 21) {
+            // Dinner served between 4:00pm and 9:59pm
+            return "dinner";
+        } else {
+            // Nothing is served between 10:00pm and 6:59am
+            return "food";
+        }
+    }
+
+    /**
+     * @return A wake up message based on the time left until the exam
+     */
+    public String getWakeUpMessage() {
+        int daysLeft = LAST_DAY + 1 - day;
+        if (daysLeft != 1) {
+            return String.format("You have %d days left until your exam!\nRemember to eat, study and have fun, but don't overwork yourself!", daysLeft);
+        } else {
+            return "Your exam is tomorrow! I hope you've been studying! Remember not to overwork yourself and get enough sleep!";
+        }
+    }
+
+    /**
+     * @return The seed the game's random numbers were started with
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * @return The player's energy out of 100
+     */
+    public int getEnergy() {
+        return energy;
+    }
+
+    /**
+     * @return The number of seconds elapsed in the day
+     */
+    public float getSeconds() {
+        return daySeconds;
+    }
+
+    /**
+     * @return The current day, starting at 1
+     */
+    public int getDay() {
+        return day;
+    }
+
+    /**
+     * @param sleeping Sets the value of sleeping
+     */
+    public void setSleeping(boolean sleeping) {
+        this.sleeping = sleeping;
+    }
+
+    /**
+     * @return true if the player is sleeping
+     */
+    public boolean isSleeping() {
+        return sleeping;
+    }
+
+    public int getHoursStudied() {
+        return hoursStudied;
+    }
+
+    public int getHoursRecreational() {
+        return hoursRecreational;
+    }
+
+    public int getHoursSlept() {
+        return hoursSlept;
+    }
+
+    public int getMealsEaten() {
+        return mealsEaten;
+    }
+
+    /**
+     * Adds an amount of hours studied to the total hours studied
+     * @param hours The amount of hours to add
+     */
+    public void addStudyHours(int hours) {
+        hoursStudied += hours;
+    }
+
+    /**
+     * Adds an amount of recreational hours to the total
+     * @param hours The amount of hours to add
+     */
+    public void addRecreationalHours(int hours) {
+        hoursRecreational += hours;
+    }
+
+    /**
+     * @param hours Add this amount of hours to the total hours slept
+     */
+    public void addSleptHours(int hours) {
+        hoursSlept += hours;
+    }
+}
@@ -0,0 +1,59 @@
+package com.skloch.game;
+
+import com.badlogic.gdx.maps.MapProperties;
+import com.badlogic.gdx.math.Rectangle;
+
+/**
+ * The game's logic without any graphics, sound or user interface.
+ * Holds a GameState and a player without textures colliding with the map's objects, which can be advanced a tick at
+ * a time the same way GameScreen does. Works under the headless backend, so many playthroughs can be run quickly to
+ * test balance or find bugs.
+ */
+public class HeadlessSimulation {
+    public final GameState state;
+    public final Player player;
+    private final MovementInput noInput = new MovementInput();
+
+    /**
+     * Gives the player a map's objects and places them at its spawn point, ready for a new game
+     *
+     * @param map The map's objects, read once and shared by every simulation
+     * @param mapScale The size a tile is drawn at in world units, e.g. game.mapScale
+     * @param collisionCellsPerTile The resolution of the collision map, e.g. game.collisionCellsPerTile
+     * @param seed The seed for the game's random numbers
+     */
+    public HeadlessSimulation(MapObjectLoader map, float mapScale, int collisionCellsPerTile, long seed) {
+        state = new GameState(seed);
+        player = new Player(null, null);
+
+        float unitScale = mapScale / map.tileWidth;
+
+        // Start in the middle of the map if it has no spawn point
+        player.setPos(map.width * mapScale / 2f, map.height * mapScale / 2f);
+        player.setSpatialGrid(new SpatialGrid(map.width, map.height, mapScale));
+        player.setCollisionMap(new CollisionMap(map.width, map.height, mapScale, collisionCellsPerTile));
+        for (MapProperties properties : map.objects) {
+            if (properties.get("spawn") != null) {
+                player.setPos(((float) properties.get("x")) * unitScale, ((float) properties.get("y")) * unitScale);
+            } else if (!World.isMarker(properties)) {
+                player.addCollidable(new GameObject(properties, unitScale));
+            }
+        }
+        player.setBounds(new Rectangle(0, 0, map.width * mapScale, map.height * mapScale));
+    }
+
+    /**
+     * Advances the game by one fixed step, like GameScreen.tick(): passes time and moves the player.
+     * The player doesn't move while asleep
+     *
+     * @param step The length of the step in seconds
+     * @param input The directions the player is moving in, or null to stand still
+     */
+    public void tick(float step, MovementInput input) {
+        if (!state.isSleeping()) {
+            state.passTime(step);
+        }
+        player.setFrozen(state.isSleeping());
+        player.move(step, input != null ? input : noInput);
+    }
+}
@@ -0,0 +1,123 @@
+package com.skloch.game;
+
+import com.badlogic.gdx.scenes.scene2d.Actor;
+import com.badlogic.gdx.scenes.scene2d.ui.Label;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.StringBuilder;
+
+/**
+ * Keeps the widgets of GameScreen's user interface in step with the game, without making any garbage.
+ * Each widget is bound to a value, read as an int every frame by update(), and the widget is only changed when the
+ * value is different to the one it shows. Label text is written into a StringBuilder kept by each binding, which
+ * Label copies into its own, so no Strings are made while playing.
+ */
+public class Hud {
+    /**
+     * Shown by a label to hide it, e.g. when there is nothing to interact with
+     */
+    public static final int HIDDEN = Integer.MIN_VALUE;
+
+    /**
+     * A value of the game shown on the HUD
+     */
+    public interface Value {
+        int get();
+    }
+
+    /**
+     * Writes a value as text for a label
+     */
+    public interface Format {
+        void write(int value, StringBuilder text);
+    }
+
+    private final Array<Binding> bindings = new Array<Binding>();
+
+    private static abstract class Binding {
+        final Value value;
+        int shown;
+        boolean first = true;
+
+        Binding(Value value) {
+            this.value = value;
+        }
+
+        void update() {
+            int current = value.get();
+            if (first || current != shown) {
+                first = false;
+                shown = current;
+                show(current);
+            }
+        }
+
+        abstract void show(int value);
+    }
+
+    /**
+     * Shows a value as the text of a label, hiding the label when the value is HIDDEN
+     *
+     * @param label The label to write to
+     * @param value The value to show
+     * @param format Writes the value as text
+     */
+    public void bindLabel(final Label label, Value value, final Format format) {
+        final StringBuilder text = new StringBuilder(16);
+        bindings.add(new Binding(value) {
+            @Override
+            void show(int value) {
+                label.setVisible(value != HIDDEN);
+                if (value != HIDDEN) {
+                    text.setLength(0);
+                    format.write(value, text);
+                    label.setText(text);
+                }
+            }
+        });
+    }
+
+    /**
+     * Scales an actor vertically with a value, like a bar filling up
+     *
+     * @param actor The actor to scale
+     * @param value The value to show
+     * @param max The value the actor is full size at
+     */
+    public void bindScaleY(final Actor actor, Value value, final float max) {
+        bindings.add(new Binding(value) {
+            @Override
+            void show(int value) {
+                actor.setScaleY(value / max);
+            }
+        });
+    }
+
+    /**
+     * Brings every widget up to date with its value, call every frame before drawing
+     */
+    public void update() {
+        for (int i = 0; i < bindings.size; i++) {
+            bindings.get(i).update();
+        }
+    }
+
+    /**
+     * Writes a time of day as a 12 hour clock time, e.g. "8:05am"
+     *
+     * @param minutes The minutes since midnight, the game's seconds
+     * @param text The text to add to
+     */
+    public static void writeTime(int minutes, StringBuilder text) {
+        int hour = minutes / 60;
+        int minute = minutes - hour * 60;
+
+        // Make 12 hour
+        int shownHour = hour % 12;
+        text.append(shownHour == 0 ? 12 : shownHour).append(':');
+        if (minute < 10) {
+            text.append('0');
+        }
+        text.append(minute);
+        text.append(hour % 24 >= 12 ? "pm" : "am");
+    }
+}
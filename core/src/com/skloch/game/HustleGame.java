@@ -2,16 +2,17 @@ package com.skloch.game;
 
 import com.badlogic.gdx.Game;
 import com.badlogic.gdx.Gdx;
-import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.Screen;
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.graphics.OrthographicCamera;
 import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 import com.badlogic.gdx.graphics.glutils.ShapeRenderer;
-import com.badlogic.gdx.maps.MapProperties;
-import com.badlogic.gdx.maps.tiled.TiledMap;
-import com.badlogic.gdx.maps.tiled.TmxMapLoader;
 import com.badlogic.gdx.scenes.scene2d.ui.Image;
 import com.badlogic.gdx.scenes.scene2d.ui.Skin;
 import com.badlogic.gdx.scenes.scene2d.Stage;
+import com.badlogic.gdx.utils.Scaling;
+import com.badlogic.gdx.utils.viewport.ScalingViewport;
 
 /**
  * A class that is initially created by DesktopLauncher, loads consistent files at the start of the game and initialises lots of important classes.
@@ -19,20 +20,42 @@ import com.badlogic.gdx.scenes.scene2d.Stage;
  */
 public class HustleGame extends Game {
 	public SpriteBatch batch;
+	public AssetManager assets;
+	public TextureCache textures;
 	public int WIDTH;
 	public int HEIGHT;
 	public Skin skin;
-	public TiledMap map;
+	// Every map the player can visit, see World
+	public World world;
+	// Set the launcher to start somewhere else, e.g. "Test Map"
+	public String startMap = "East Campus";
+	// Set instead of using the world when the map is streamed a chunk at a time, see StreamedMap
+	public StreamedMap streamedMap;
 	public String credits, tutorialText;
+	// Screens are made once and reused, see showMenu() etc. There is a new GameScreen for each game played
 	public GameScreen gameScreen;
 	public MenuScreen menuScreen;
+	public SettingsScreen settingsScreen;
+	public CreditScreen creditScreen;
+	public GameOverScreen gameOverScreen;
 	public ShapeRenderer shapeRenderer;
 	public SoundManager soundManager;
 	public Stage blueBackground;
-	public int[] backgroundLayers, foregroundLayers, objectLayers;
-	public int mapSquareSize;
+	public int[] shaderLayers;
 	public float mapScale;
-	public MapProperties mapProperties;
+	public int collisionCellsPerTile;
+	public int mapChunkSize;
+	public long mapMemoryBudget;
+	public int ticksPerSecond;
+	// Set by the launcher to record a game's inputs to a file, or play back a recording instead of reading the keyboard
+	public String recordFile, replayFile;
+	public boolean replayMaxSpeed;
+	// Print the textures still loaded each time a game is left, to check none are leaking
+	public boolean reportTextures;
+	// Run the game's ticks on their own thread, see LogicThread
+	public boolean useLogicThread;
+	// Stream the baked map around the player instead of loading all of it, see MapStreamer
+	public boolean streamMap;
 
 
 	/**
@@ -50,46 +73,132 @@ public class HustleGame extends Game {
 	}
 
 	/**
-	 * Loads resources used throughout the game.
-	 * Creates a new spritebatch
-	 * Loads the UI skin to use
-	 * Loads the map and configures which layers are background, foreground and object layers
-	 * Loads a shape renderer for debug options
-	 * Loads a sound manager to play sounds
-	 * Loads credit and tutorial texts
-	 * Creates a stage with a blue background for screens to use
+	 * Starts loading resources used throughout the game.
+	 * Creates a new spritebatch and a shape renderer for debug options and the loading bar
+	 * Adds the maps to the world, each map's layers are grouped from its own layers, see WorldMap
+	 * Queues every asset on an AssetManager, which LoadingScreen then loads without blocking the window
 	 */
 	@Override
 	public void create () {
 		batch = new SpriteBatch();
-		skin = new Skin(Gdx.files.internal("Interface/BlockyInterface.json"));
-		// Map
-		map = new TmxMapLoader().load("East Campus/east_campus.tmx");
-		mapProperties = map.getProperties();
-
-		// Define background, foreground and object layers
-		// IMPORTANT: CHANGE THESE WHEN UPDATING THE LAYERS IN YOUR EXPORTED MAP FROM TILED
-		// Bottom most layer on 'layers' tab is 0
-		backgroundLayers = new int[] {0, 1, 2, 3, 4, 5, 6}; // Rendered behind player
-		foregroundLayers = new int[] {7}; // Rendered in front of player
-		objectLayers = new int[] {8}; // Rectangles for the player to collide with
-		mapSquareSize = mapProperties.get("tilewidth", Integer.class);
+		shapeRenderer = new ShapeRenderer();
+
+		assets = new AssetManager();
+		if (streamMap && !Gdx.files.internal(Assets.BAKED_MAP).exists()) {
+			System.out.println("WARNING: Only a baked map can be streamed, run gradle core:bakeMap to make one");
+			streamMap = false;
+		}
+		// Maps, with the names of the tile layers drawn over the player
+		world = new World(assets);
+		world.add("East Campus", Assets.MAP, Assets.BAKED_MAP, "building top");
+		world.add("Test Map", Assets.TEST_MAP, null, "trees");
+		if (world.get(startMap) == null) {
+			System.out.println("WARNING: No map called " + startMap + ", starting on East Campus");
+			startMap = "East Campus";
+		}
+		// Only the start map is loaded up front, the rest are preloaded when the player nears a portal to them
+		Assets.queueAll(assets, streamMap ? null : world.get(startMap).file);
+		textures = new TextureCache(assets);
+		this.setScreen(new LoadingScreen(this));
+	}
+
+	/**
+	 * Sets up the game once LoadingScreen has loaded every asset, then shows the menu
+	 * Gets the UI skin to use
+	 * Makes a sound manager to play sounds
+	 * Gets credit and tutorial texts
+	 * Creates a stage with a blue background for screens to use
+	 */
+	public void finishLoading () {
+		skin = assets.get(Assets.SKIN, Skin.class);
+		// Only a streamed map's header is read here, its chunks are loaded around the player by each game
+		mapChunkSize = 32; // In tiles
+		mapMemoryBudget = 16 * 1024 * 1024; // Roughly how many bytes of chunks a streamed map keeps loaded
+		if (streamMap) {
+			streamedMap = new StreamedMap(Gdx.files.internal(Assets.BAKED_MAP), textures, mapChunkSize);
+		}
+
+		// Dense tile layers drawn in one go with a shader, instead of tile by tile
+		// Sparse layers like the building tops are cheaper to leave out of here
+		shaderLayers = new int[] {0};
 		mapScale = 70f;
+		collisionCellsPerTile = 4; // Resolution of the baked collision map, per tile in each direction
 
-		shapeRenderer = new ShapeRenderer();
-		soundManager = new SoundManager();
+		// How many times a second the game world is updated, independent of the frame rate
+		ticksPerSecond = 60;
+
+		soundManager = new SoundManager(assets);
 
 		// Make a stage with a blue background that any screen can draw
-		Image blueImage = new Image(new Texture(Gdx.files.internal("Sprites/white_square.png")));
+		Image blueImage = new Image(textures.acquire(Assets.WHITE_SQUARE, Texture.class));
 		blueImage.setColor(0.53f, 0.81f, 0.92f, 1);
 		blueImage.setName("blue image");
-		blueBackground = new Stage();
+		// Stretched to fill the window, the same as a Stage made with no viewport
+		blueBackground = new Stage(new ScalingViewport(Scaling.stretch, Gdx.graphics.getWidth(), Gdx.graphics.getHeight(), new OrthographicCamera()), batch);
 		blueBackground.addActor(blueImage);
 
-		credits = readTextFile("Text/credits.txt");
-		tutorialText = readTextFile("Text/tutorial_text.txt");
+		credits = assets.get(Assets.CREDITS, String.class);
+		tutorialText = assets.get(Assets.TUTORIAL_TEXT, String.class);
+
+		showMenu();
+	}
 
-		this.setScreen(new MenuScreen(this));
+	/**
+	 * Shows the main menu, starting the menu music
+	 */
+	public void showMenu () {
+		if (menuScreen == null) {
+			menuScreen = new MenuScreen(this);
+		}
+		menuScreen.reset();
+		setScreen(menuScreen);
+	}
+
+	/**
+	 * Shows the settings screen
+	 *
+	 * @param previousScreen The screen to go back to when settings are closed
+	 */
+	public void showSettings (Screen previousScreen) {
+		if (settingsScreen == null) {
+			settingsScreen = new SettingsScreen(this);
+		}
+		settingsScreen.reset(previousScreen);
+		setScreen(settingsScreen);
+	}
+
+	/**
+	 * Shows the credits
+	 *
+	 * @param previousScreen The screen to go back to when the credits are closed
+	 */
+	public void showCredits (Screen previousScreen) {
+		if (creditScreen == null) {
+			creditScreen = new CreditScreen(this);
+		}
+		creditScreen.reset(previousScreen);
+		setScreen(creditScreen);
+	}
+
+	/**
+	 * Shows the player's stats at the end of a game
+	 */
+	public void showGameOver (int hoursStudied, int hoursRecreational, int hoursSlept) {
+		if (gameOverScreen == null) {
+			gameOverScreen = new GameOverScreen(this);
+		}
+		gameOverScreen.reset(hoursStudied, hoursRecreational, hoursSlept);
+		setScreen(gameOverScreen);
+	}
+
+	/**
+	 * Starts a new game. The GameScreen holds everything about a game in progress so a new one is made each time,
+	 * but the maps and their renderers are kept from the last game, see World
+	 *
+	 * @param avatarChoice The avatar picked, 1 or 2
+	 */
+	public void startGame (int avatarChoice) {
+		setScreen(new GameScreen(this, avatarChoice));
 	}
 
 	/**
@@ -97,6 +206,10 @@ public class HustleGame extends Game {
 	 */
 	@Override
 	public void render () {
+		// Fades the music, whichever screen is showing
+		if (soundManager != null) {
+			soundManager.update(Gdx.graphics.getDeltaTime());
+		}
 		super.render();
 	}
 
@@ -105,28 +218,34 @@ public class HustleGame extends Game {
 	 */
 	@Override
 	public void dispose () {
+		// Make sure a game in progress is saved if the window is closed
+		if (gameScreen != null) {
+			gameScreen.dispose();
+		}
+		// The game can be closed while still loading
+		if (soundManager != null) {
+			disposeScreen(menuScreen);
+			disposeScreen(settingsScreen);
+			disposeScreen(creditScreen);
+			disposeScreen(gameOverScreen);
+			world.dispose();
+			if (streamedMap != null) {
+				streamedMap.dispose();
+			}
+			soundManager.dispose();
+			blueBackground.dispose();
+			textures.release(Assets.WHITE_SQUARE);
+		}
+		// Disposed last, since every stage draws with it
 		batch.dispose();
-		blueBackground.dispose();
-		skin.dispose();
-		map.dispose();
 		shapeRenderer.dispose();
-		soundManager.dispose();
+		// Disposes the skin, map, textures, sounds and music
+		assets.dispose();
 	}
 
-	/**
-	 * Reads and returns text read from the provided text file path
-	 * @param filepath The path to the text file
-	 * @return The contents of the file as a String
-	 */
-	public String readTextFile(String filepath) {
-		FileHandle file = Gdx.files.internal(filepath);
-
-		if (!file.exists()) {
-			System.out.println("WARNING: Couldn't load file " + filepath);
-			return "Couldn't load " + filepath;
-		} else {
-			return file.readString();
+	private void disposeScreen (Screen screen) {
+		if (screen != null) {
+			screen.dispose();
 		}
-
 	}
 }
@@ -0,0 +1,196 @@
+package com.skloch.game;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.IntArray;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * The inputs of a game, recorded tick by tick so the game can be played back exactly.
+ * Together with the seed of the game's random numbers, this is everything needed to reproduce a session.
+ * <p></p>
+ * Only changes are stored: a movement entry when the held directions change, and a key entry for each key press
+ * the game acted on. Each entry stores the ticks since the previous one as a variable length number, so a long
+ * session with little input is only a few bytes.
+ */
+public class InputRecording {
+    private static final int MAGIC = 0x48485250; // "HHRP"
+    private static final int VERSION = 1;
+    // Entry types
+    private static final int MOVE = 0, KEY = 1, END = 2;
+
+    public final long seed;
+    public final int ticksPerSecond;
+    public final int avatar;
+    private final IntArray ticks, types, values;
+    private int lastMovement = 0;
+    private int endTick = -1;
+    private int cursor = 0; // The next entry to play back
+
+    /**
+     * Starts a new, empty recording
+     *
+     * @param seed The seed the game's GameState was made with
+     * @param ticksPerSecond How many ticks the game runs a second
+     * @param avatar Which avatar the player picked
+     */
+    public InputRecording(long seed, int ticksPerSecond, int avatar) {
+        this.seed = seed;
+        this.ticksPerSecond = ticksPerSecond;
+        this.avatar = avatar;
+        ticks = new IntArray();
+        types = new IntArray();
+        values = new IntArray();
+    }
+
+    /**
+     * Records the directions held during a tick, only stored if they changed since the last tick
+     *
+     * @param tick The number of the tick, counting from 0
+     * @param input The directions held
+     */
+    public void recordMovement(int tick, MovementInput input) {
+        int bits = input.toBits();
+        if (bits != lastMovement) {
+            add(tick, MOVE, bits);
+            lastMovement = bits;
+        }
+    }
+
+    /**
+     * Records a key press, which will be pressed again before the tick runs when played back
+     *
+     * @param tick The number of the next tick to run
+     * @param keycode The key pressed, from Input.Keys
+     */
+    public void recordKey(int tick, int keycode) {
+        add(tick, KEY, keycode);
+    }
+
+    private void add(int tick, int type, int value) {
+        ticks.add(tick);
+        types.add(type);
+        values.add(value);
+    }
+
+    /**
+     * Plays back the entries for a tick, must be called once for every tick in order starting from 0
+     *
+     * @param tick The number of the tick about to run
+     * @param input Set to the directions held during the tick
+     * @param keys Filled with any keys pressed before the tick, in the order they were pressed
+     */
+    public void play(int tick, MovementInput input, IntArray keys) {
+        keys.clear();
+        while (cursor < ticks.size && ticks.get(cursor) <= tick) {
+            if (types.get(cursor) == MOVE) {
+                input.setBits(values.get(cursor));
+            } else {
+                keys.add(values.get(cursor));
+            }
+            cursor++;
+        }
+    }
+
+    /**
+     * @param tick The number of the tick about to run
+     * @return true if the recording has no more input at or after this tick
+     */
+    public boolean isFinished(int tick) {
+        return cursor >= ticks.size && tick >= endTick;
+    }
+
+    /**
+     * Writes the recording to a file
+     *
+     * @param file The file to write to, replaced if it exists
+     * @param endTick How many ticks the recording ran for
+     */
+    public void save(FileHandle file, int endTick) {
+        this.endTick = endTick;
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file.write(false)));
+        try {
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            out.writeLong(seed);
+            out.writeShort(ticksPerSecond);
+            out.writeByte(avatar);
+
+            int previousTick = 0;
+            for (int i = 0; i < ticks.size; i++) {
+                writeVarInt(out, ticks.get(i) - previousTick);
+                out.writeByte(types.get(i));
+                writeVarInt(out, values.get(i));
+                previousTick = ticks.get(i);
+            }
+            writeVarInt(out, endTick - previousTick);
+            out.writeByte(END);
+            out.close();
+        } catch (IOException e) {
+            throw new GdxRuntimeException("Couldn't save recording to " + file, e);
+        }
+    }
+
+    /**
+     * Reads a recording made by save()
+     *
+     * @param file The file to read
+     * @return The recording, ready to play back from the start
+     */
+    public static InputRecording load(FileHandle file) {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(file.read()));
+        try {
+            if (in.readInt() != MAGIC) {
+                throw new GdxRuntimeException(file + " is not a recording");
+            }
+            int version = in.readUnsignedByte();
+            if (version != VERSION) {
+                throw new GdxRuntimeException(file + " was recorded with an unsupported version: " + version);
+            }
+            InputRecording recording = new InputRecording(in.readLong(), in.readUnsignedShort(), in.readUnsignedByte());
+
+            int tick = 0;
+            while (true) {
+                tick += readVarInt(in);
+                int type = in.readUnsignedByte();
+                if (type == END) {
+                    recording.endTick = tick;
+                    break;
+                }
+                recording.add(tick, type, readVarInt(in));
+            }
+            in.close();
+            return recording;
+        } catch (IOException e) {
+            throw new GdxRuntimeException("Couldn't load recording " + file, e);
+        }
+    }
+
+    /**
+     * Writes a positive int 7 bits at a time, with the top bit of each byte set if more bytes follow
+     */
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(DataInputStream in) throws IOException {
+        int value = 0;
+        int shift = 0;
+        int b;
+        do {
+            b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+}
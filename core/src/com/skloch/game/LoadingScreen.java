@@ -0,0 +1,89 @@
+package com.skloch.game;
+
+import com.badlogic.gdx.Screen;
+import com.badlogic.gdx.graphics.OrthographicCamera;
+import com.badlogic.gdx.graphics.glutils.ShapeRenderer.ShapeType;
+import com.badlogic.gdx.utils.ScreenUtils;
+import com.badlogic.gdx.utils.viewport.FitViewport;
+import com.badlogic.gdx.utils.viewport.Viewport;
+
+/**
+ * The first screen shown, draws a progress bar while game.assets loads everything queued by Assets.queueAll().
+ * Files are read and decoded on the AssetManager's own thread, and each frame only spends a few milliseconds
+ * uploading finished assets to the GPU, so the window keeps drawing while the game loads.
+ * Calls game.finishLoading() once everything is loaded.
+ */
+public class LoadingScreen implements Screen {
+    // How long each frame can spend on loading, the rest of a 60fps frame is left for drawing
+    private static final int FRAME_BUDGET_MILLIS = 10;
+    private final HustleGame game;
+    private final OrthographicCamera camera;
+    private final Viewport viewport;
+    private float shownProgress = 0;
+
+    /**
+     * @param game An instance of HustleGame with its assets queued
+     */
+    public LoadingScreen(HustleGame game) {
+        this.game = game;
+        camera = new OrthographicCamera();
+        viewport = new FitViewport(game.WIDTH, game.HEIGHT, camera);
+        camera.setToOrtho(false, game.WIDTH, game.HEIGHT);
+    }
+
+    @Override
+    public void show() {
+    }
+
+    /**
+     * Loads for a few milliseconds, then draws the progress bar
+     *
+     * @param delta The time in seconds since the last render.
+     */
+    @Override
+    public void render(float delta) {
+        if (game.assets.update(FRAME_BUDGET_MILLIS)) {
+            game.finishLoading();
+            return;
+        }
+        // Slide the bar towards the real progress so it doesn't jump
+        shownProgress += (game.assets.getProgress() - shownProgress) * Math.min(delta * 10, 1);
+
+        // Same blue as the menu background
+        ScreenUtils.clear(0.53f, 0.81f, 0.92f, 1);
+        viewport.apply();
+        game.shapeRenderer.setProjectionMatrix(camera.combined);
+
+        float width = game.WIDTH / 2f;
+        float height = 24;
+        float x = (game.WIDTH - width) / 2f;
+        float y = (game.HEIGHT - height) / 2f;
+        game.shapeRenderer.begin(ShapeType.Filled);
+        game.shapeRenderer.setColor(1, 1, 1, 1);
+        game.shapeRenderer.rect(x - 4, y - 4, width + 8, height + 8);
+        game.shapeRenderer.setColor(0.2f, 0.75f, 0.3f, 1);
+        game.shapeRenderer.rect(x, y, width * shownProgress, height);
+        game.shapeRenderer.end();
+    }
+
+    @Override
+    public void resize(int width, int height) {
+        viewport.update(width, height);
+    }
+
+    @Override
+    public void pause() {
+    }
+
+    @Override
+    public void resume() {
+    }
+
+    @Override
+    public void hide() {
+    }
+
+    @Override
+    public void dispose() {
+    }
+}
@@ -0,0 +1,132 @@
+package com.skloch.game;
+
+import com.badlogic.gdx.utils.TimeUtils;
+
+/**
+ * Runs the game's simulation on its own thread at a fixed tick rate, so a slow frame on the render thread doesn't
+ * slow down game time, and the simulation can use another core.
+ * <p></p>
+ * After each tick the simulation copies what the render thread needs into a GameSnapshot. There are two snapshots:
+ * the logic thread fills the back one while the render thread reads the front one, then they are swapped.
+ * Each tick runs while holding a lock, which the render thread also holds when it changes the game itself, e.g.
+ * when a key starts an event.
+ */
+public class LogicThread implements Runnable {
+    /**
+     * The game being simulated
+     */
+    public interface Simulation {
+        /**
+         * Advances the game by one fixed step, called on the logic thread while holding the lock
+         */
+        void tick(float step);
+
+        /**
+         * Copies the game as it is after a tick into a snapshot, called straight after tick()
+         */
+        void capture(GameSnapshot snapshot);
+    }
+
+    // How far behind the thread can fall before it gives up catching up
+    private static final long MAX_LAG_NANOS = 250000000; // 250ms
+
+    private final Simulation simulation;
+    private final Object lock;
+    private final float step;
+    private final long stepNanos;
+    private final GameSnapshot[] snapshots = {new GameSnapshot(), new GameSnapshot()};
+    private int front = 0;
+    private Thread thread;
+    private volatile boolean running;
+
+    /**
+     * @param simulation The game to run
+     * @param lock The lock held during each tick
+     * @param ticksPerSecond How many ticks to run each second
+     */
+    public LogicThread(Simulation simulation, Object lock, int ticksPerSecond) {
+        this.simulation = simulation;
+        this.lock = lock;
+        this.step = 1f / ticksPerSecond;
+        this.stepNanos = 1000000000L / ticksPerSecond;
+    }
+
+    /**
+     * Publishes the game's current state, then starts ticking
+     */
+    public void start() {
+        synchronized (lock) {
+            simulation.capture(snapshots[front]);
+        }
+        snapshots[front].publishedNanos = TimeUtils.nanoTime();
+        running = true;
+        thread = new Thread(this, "Game logic");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stops ticking and waits for the current tick to finish
+     */
+    public void stop() {
+        running = false;
+        if (thread != null && thread != Thread.currentThread()) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        thread = null;
+    }
+
+    @Override
+    public void run() {
+        long nextTick = TimeUtils.nanoTime();
+        while (running) {
+            GameSnapshot back;
+            synchronized (snapshots) {
+                back = snapshots[1 - front];
+            }
+            synchronized (lock) {
+                simulation.tick(step);
+                simulation.capture(back);
+            }
+            back.publishedNanos = TimeUtils.nanoTime();
+            synchronized (snapshots) {
+                front = 1 - front;
+            }
+
+            nextTick += stepNanos;
+            long wait = nextTick - TimeUtils.nanoTime();
+            if (wait > 0) {
+                try {
+                    Thread.sleep(wait / 1000000, (int) (wait % 1000000));
+                } catch (InterruptedException e) {
+                    return;
+                }
+            } else if (-wait > MAX_LAG_NANOS) {
+                // Too far behind, e.g. after the computer slept, so skip ahead instead
+                nextTick = TimeUtils.nanoTime();
+            }
+        }
+    }
+
+    /**
+     * Copies the latest published snapshot, for the render thread to draw
+     *
+     * @param into The snapshot to copy into
+     */
+    public void read(GameSnapshot into) {
+        synchronized (snapshots) {
+            into.set(snapshots[front]);
+        }
+    }
+
+    /**
+     * @return The length of a tick in nanoseconds
+     */
+    public long getStepNanos() {
+        return stepNanos;
+    }
+}
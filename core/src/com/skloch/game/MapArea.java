@@ -0,0 +1,68 @@
+package com.skloch.game;
+
+import com.badlogic.gdx.maps.MapObjects;
+import com.badlogic.gdx.maps.MapProperties;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.ObjectMap;
+
+/**
+ * The objects of one map made ready for the player: what they collide with, already added to a grid and collision
+ * map, along with the map's portals, arrival points and spawn point.
+ * GameScreen keeps one for each map visited, so going back to a map just hands these to the player again.
+ */
+public class MapArea {
+    public final Array<GameObject> collidables = new Array<GameObject>();
+    public final Array<GameObject> interactables = new Array<GameObject>();
+    public final SpatialGrid spatialGrid;
+    public final CollisionMap collisionMap;
+    public final Rectangle bounds;
+    public final Array<GameObject> portals = new Array<GameObject>();
+    // Where to put the player when arriving from another map, by the name of that map
+    public final ObjectMap<String, Vector2> arrivals = new ObjectMap<String, Vector2>();
+    public Vector2 spawn; // null if the map has no spawn point
+
+    /**
+     * @param map The loaded map to read the objects of
+     * @param mapScale The size a tile is drawn at in world units, e.g. game.mapScale
+     * @param collisionCellsPerTile The resolution of the collision map, e.g. game.collisionCellsPerTile
+     */
+    public MapArea(WorldMap map, float mapScale, int collisionCellsPerTile) {
+        float unitScale = map.getUnitScale(mapScale);
+        // Objects are bucketed into a grid of map tiles so the player only checks objects near them
+        spatialGrid = new SpatialGrid(map.width, map.height, mapScale);
+        // Objects are also rasterised into a bitmap so movement can be checked without looking at objects at all
+        collisionMap = new CollisionMap(map.width, map.height, mapScale, collisionCellsPerTile);
+        // Assumes the bottom left corner of the map is at 0, 0
+        bounds = new Rectangle(0, 0, map.width * mapScale, map.height * mapScale);
+
+        for (int layer : map.objectLayers) {
+            MapObjects objects = map.map.getLayers().get(layer).getObjects();
+            for (int i = 0; i < objects.getCount(); i++) {
+                MapProperties properties = objects.get(i).getProperties();
+                if (properties.containsKey("spawn")) {
+                    spawn = getPosition(properties, unitScale);
+                } else if (properties.containsKey("arrival")) {
+                    arrivals.put(properties.get("arrival", String.class), getPosition(properties, unitScale));
+                } else if (properties.containsKey("portal")) {
+                    portals.add(new GameObject(properties, unitScale));
+                } else {
+                    // Make a new gameObject with these properties, passing along the scale the map is rendered
+                    // at for accurate coordinates
+                    GameObject object = new GameObject(properties, unitScale);
+                    collidables.add(object);
+                    if (object.isInteractable()) {
+                        interactables.add(object);
+                    }
+                    spatialGrid.add(object);
+                    collisionMap.add(object);
+                }
+            }
+        }
+    }
+
+    private static Vector2 getPosition(MapProperties properties, float unitScale) {
+        return new Vector2(((float) properties.get("x")) * unitScale, ((float) properties.get("y")) * unitScale);
+    }
+}
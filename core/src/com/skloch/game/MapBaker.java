@@ -0,0 +1,259 @@
+package com.skloch.game;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.maps.MapProperties;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.XmlReader;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+
+/**
+ * Converts a Tiled .tmx map into the compact format BakedMapLoader reads, so the game doesn't have to parse XML and
+ * CSV at startup. Run by the core:bakeMap gradle task whenever the map changes, doesn't need a Gdx backend.
+ * <p></p>
+ * Every tile layer is baked except those named as foreground layers into the background group, and every object
+ * layer into the object group, so the map's layers no longer need to be hard coded in HustleGame.
+ * Only CSV encoded tile layers and tilesets with a single image are supported, which is what Tiled saves by default.
+ */
+public class MapBaker {
+    /**
+     * @param args The .tmx file to bake, the file to write, then the names of any foreground layers
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: MapBaker <map.tmx> <map.map> [foreground layer names...]");
+            System.exit(1);
+        }
+        String[] foreground = new String[args.length - 2];
+        System.arraycopy(args, 2, foreground, 0, foreground.length);
+
+        FileHandle tmxFile = new FileHandle(new File(args[0]));
+        FileHandle outFile = new FileHandle(new File(args[1]));
+        bake(tmxFile, outFile, foreground);
+        System.out.println("Baked " + tmxFile.path() + " to " + outFile.path() + " (" + outFile.length() + " bytes)");
+    }
+
+    /**
+     * Bakes a map
+     *
+     * @param tmxFile The .tmx file to read
+     * @param outFile The file to write
+     * @param foregroundLayers The names of the tile layers to draw over the player
+     */
+    public static void bake(FileHandle tmxFile, FileHandle outFile, String[] foregroundLayers) throws IOException {
+        XmlReader xml = new XmlReader();
+        XmlReader.Element map = xml.parse(tmxFile);
+        int width = map.getIntAttribute("width");
+        int height = map.getIntAttribute("height");
+        int tileWidth = map.getIntAttribute("tilewidth");
+        int tileHeight = map.getIntAttribute("tileheight");
+
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(outFile.write(false)));
+        try {
+            out.writeInt(BakedMapLoader.MAGIC);
+            out.writeInt(BakedMapLoader.VERSION);
+            out.writeInt(width);
+            out.writeInt(height);
+            out.writeInt(tileWidth);
+            out.writeInt(tileHeight);
+
+            // Tilesets, with their image paths made relative to the baked file
+            Array<XmlReader.Element> tilesets = map.getChildrenByName("tileset");
+            out.writeInt(tilesets.size);
+            for (XmlReader.Element tileset : tilesets) {
+                FileHandle tilesetFile = tmxFile;
+                String source = tileset.getAttribute("source", null);
+                if (source != null) {
+                    tilesetFile = tmxFile.parent().child(source);
+                    int firstGid = tileset.getIntAttribute("firstgid");
+                    tileset = xml.parse(tilesetFile);
+                    tileset.setAttribute("firstgid", Integer.toString(firstGid));
+                }
+                XmlReader.Element image = tileset.getChildByName("image");
+                if (image == null) {
+                    throw new GdxRuntimeException("Tileset " + tileset.getAttribute("name", "") + " has no single image, which the baked format doesn't support");
+                }
+                out.writeInt(tileset.getIntAttribute("firstgid"));
+                String path = relativePath(tilesetFile.parent().path() + "/" + image.getAttribute("source"), outFile.parent().path());
+                writeString(out, path);
+            }
+
+            // Group the layers the way HustleGame draws them
+            IntArray background = new IntArray();
+            IntArray foreground = new IntArray();
+            IntArray objects = new IntArray();
+            Array<XmlReader.Element> layers = new Array<XmlReader.Element>();
+            for (int i = 0; i < map.getChildCount(); i++) {
+                XmlReader.Element child = map.getChild(i);
+                if (child.getName().equals("layer")) {
+                    if (contains(foregroundLayers, child.getAttribute("name", ""))) {
+                        foreground.add(layers.size);
+                    } else {
+                        background.add(layers.size);
+                    }
+                    layers.add(child);
+                } else if (child.getName().equals("objectgroup")) {
+                    objects.add(layers.size);
+                    layers.add(child);
+                } else if (child.getName().equals("imagelayer") || child.getName().equals("group")) {
+                    throw new GdxRuntimeException("The baked format doesn't support " + child.getName() + " layers");
+                }
+            }
+            writeInts(out, background);
+            writeInts(out, foreground);
+            writeInts(out, objects);
+
+            // The surface of every tile, from the tilesets' "surface" properties
+            byte[] surfaces = Surfaces.load(tmxFile);
+            out.writeInt(surfaces.length);
+            out.write(surfaces);
+
+            out.writeInt(layers.size);
+            for (XmlReader.Element layer : layers) {
+                boolean tileLayer = layer.getName().equals("layer");
+                out.writeByte(tileLayer ? BakedMapLoader.TILE_LAYER : BakedMapLoader.OBJECT_LAYER);
+                writeString(out, layer.getAttribute("name", ""));
+                out.writeByte(layer.getIntAttribute("visible", 1));
+                out.writeFloat(layer.getFloatAttribute("opacity", 1));
+                if (tileLayer) {
+                    writeTiles(out, layer, width, height);
+                } else {
+                    Array<MapProperties> layerObjects = new Array<MapProperties>();
+                    MapObjectLoader.readObjects(layer, height * tileHeight, layerObjects);
+                    out.writeInt(layerObjects.size);
+                    for (MapProperties properties : layerObjects) {
+                        writeProperties(out, properties);
+                    }
+                }
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Writes a tile layer's gids as shorts, bottom row first so they can be read in TiledMapTileLayer order
+     */
+    private static void writeTiles(DataOutputStream out, XmlReader.Element layer, int width, int height) throws IOException {
+        XmlReader.Element data = layer.getChildByName("data");
+        if (data == null || !"csv".equals(data.getAttribute("encoding", null))) {
+            throw new GdxRuntimeException("Layer " + layer.getAttribute("name", "") + " isn't CSV encoded, change it in Tiled's map properties");
+        }
+        String[] values = data.getText().trim().split("\\s*,\\s*");
+        if (values.length != width * height) {
+            throw new GdxRuntimeException("Layer " + layer.getAttribute("name", "") + " has " + values.length + " tiles, expected " + width * height);
+        }
+
+        for (int y = height - 1; y >= 0; y--) {
+            for (int x = 0; x < width; x++) {
+                long value = Long.parseLong(values[y * width + x]);
+                int gid = (int) (value & 0x1FFFFFFFL);
+                if (gid > BakedMapLoader.GID_MASK) {
+                    throw new GdxRuntimeException("Tile id " + gid + " is too large for the baked format");
+                }
+                int tile = gid;
+                if ((value & 0x80000000L) != 0) tile |= BakedMapLoader.FLIP_HORIZONTALLY;
+                if ((value & 0x40000000L) != 0) tile |= BakedMapLoader.FLIP_VERTICALLY;
+                if ((value & 0x20000000L) != 0) tile |= BakedMapLoader.FLIP_DIAGONALLY;
+                out.writeShort(tile);
+            }
+        }
+    }
+
+    private static void writeProperties(DataOutputStream out, MapProperties properties) throws IOException {
+        int count = 0;
+        Iterator<String> keys = properties.getKeys();
+        while (keys.hasNext()) {
+            keys.next();
+            count++;
+        }
+        out.writeInt(count);
+
+        keys = properties.getKeys();
+        while (keys.hasNext()) {
+            String key = keys.next();
+            Object value = properties.get(key);
+            writeString(out, key);
+            if (value instanceof Integer) {
+                out.writeByte(BakedMapLoader.INT);
+                out.writeInt((Integer) value);
+            } else if (value instanceof Float) {
+                out.writeByte(BakedMapLoader.FLOAT);
+                out.writeFloat((Float) value);
+            } else if (value instanceof Boolean) {
+                out.writeByte(BakedMapLoader.BOOL);
+                out.writeBoolean((Boolean) value);
+            } else {
+                out.writeByte(BakedMapLoader.STRING);
+                writeString(out, String.valueOf(value));
+            }
+        }
+    }
+
+    private static void writeInts(DataOutputStream out, IntArray ints) throws IOException {
+        out.writeInt(ints.size);
+        for (int i = 0; i < ints.size; i++) {
+            out.writeInt(ints.get(i));
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String string) throws IOException {
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Resolves any ".." in a path and makes it relative to a directory, e.g. "Textures/RCH.png"
+     */
+    static String relativePath(String path, String directory) {
+        String[] from = normalise(directory);
+        String[] to = normalise(path);
+        int common = 0;
+        while (common < from.length && common < to.length - 1 && from[common].equals(to[common])) {
+            common++;
+        }
+        StringBuilder builder = new StringBuilder();
+        for (int i = common; i < from.length; i++) {
+            builder.append("../");
+        }
+        for (int i = common; i < to.length; i++) {
+            builder.append(to[i]);
+            if (i < to.length - 1) {
+                builder.append('/');
+            }
+        }
+        return builder.toString();
+    }
+
+    private static String[] normalise(String path) {
+        Array<String> parts = new Array<String>(String.class);
+        for (String part : path.replace('\\', '/').split("/")) {
+            if (part.isEmpty() || part.equals(".")) {
+                continue;
+            }
+            if (part.equals("..") && parts.size > 0 && !parts.peek().equals("..")) {
+                parts.pop();
+            } else {
+                parts.add(part);
+            }
+        }
+        return parts.toArray();
+    }
+
+    private static boolean contains(String[] array, String value) {
+        for (String s : array) {
+            if (s.equals(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
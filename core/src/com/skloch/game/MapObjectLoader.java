@@ -0,0 +1,85 @@
+package com.skloch.game;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.maps.MapProperties;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.XmlReader;
+
+/**
+ * Reads the size of a Tiled .tmx map and the objects on its object layers, without loading any textures.
+ * The objects get the same properties TmxMapLoader would give them, including x, y, width and height with y
+ * flipped so 0 is the bottom of the map, so they can be turned into GameObjects in the same way.
+ * Used to run the game without graphics, see HeadlessSimulation
+ */
+public class MapObjectLoader {
+    public int width, height; // In tiles
+    public int tileWidth, tileHeight; // In pixels
+    public final Array<MapProperties> objects;
+
+    /**
+     * Reads the objects on every object layer of a map, the same layers WorldMap treats as object layers
+     *
+     * @param tmxFile The .tmx file to read
+     */
+    public MapObjectLoader(FileHandle tmxFile) {
+        XmlReader.Element map = new XmlReader().parse(tmxFile);
+        width = map.getIntAttribute("width");
+        height = map.getIntAttribute("height");
+        tileWidth = map.getIntAttribute("tilewidth");
+        tileHeight = map.getIntAttribute("tileheight");
+        objects = new Array<MapProperties>();
+
+        for (XmlReader.Element group : map.getChildrenByName("objectgroup")) {
+            readObjects(group, height * tileHeight, objects);
+        }
+    }
+
+    /**
+     * Reads every object in an objectgroup element, also used by MapBaker
+     *
+     * @param group The objectgroup element
+     * @param mapHeightPixels The height of the map in pixels, to flip y with
+     * @param objects The array to add each object's properties to
+     */
+    static void readObjects(XmlReader.Element group, float mapHeightPixels, Array<MapProperties> objects) {
+        for (XmlReader.Element object : group.getChildrenByName("object")) {
+            MapProperties properties = new MapProperties();
+            float width = object.getFloatAttribute("width", 0);
+            float height = object.getFloatAttribute("height", 0);
+            properties.put("id", object.getIntAttribute("id", 0));
+            properties.put("x", object.getFloatAttribute("x", 0));
+            // Tiled measures y down from the top, the game measures up from the bottom
+            properties.put("y", mapHeightPixels - object.getFloatAttribute("y", 0) - height);
+            properties.put("width", width);
+            properties.put("height", height);
+
+            XmlReader.Element custom = object.getChildByName("properties");
+            if (custom != null) {
+                for (XmlReader.Element property : custom.getChildrenByName("property")) {
+                    properties.put(property.getAttribute("name"), readValue(property));
+                }
+            }
+            objects.add(properties);
+        }
+    }
+
+    /**
+     * Reads a custom property's value as the type it was given in Tiled
+     */
+    private static Object readValue(XmlReader.Element property) {
+        String value = property.getAttribute("value", null);
+        if (value == null) {
+            // Multiline strings are stored as the element's text
+            value = property.getText();
+        }
+        String type = property.getAttribute("type", "string");
+        if (type.equals("int")) {
+            return Integer.parseInt(value);
+        } else if (type.equals("float")) {
+            return Float.parseFloat(value);
+        } else if (type.equals("bool")) {
+            return Boolean.parseBoolean(value);
+        }
+        return value;
+    }
+}
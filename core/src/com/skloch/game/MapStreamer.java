@@ -0,0 +1,333 @@
+package com.skloch.game;
+
+import com.badlogic.gdx.graphics.OrthographicCamera;
+import com.badlogic.gdx.graphics.g2d.Batch;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
+import com.badlogic.gdx.maps.tiled.renderers.OrthogonalTiledMapRenderer;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.IntIntMap;
+import com.badlogic.gdx.utils.IntMap;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Keeps the chunks of a StreamedMap around the player loaded, so only part of a big map is in memory at once.
+ * Call update() with the player's position each tick, then draw with setView(), renderBackground() and
+ * renderForeground() in place of a MapView.
+ * <p></p>
+ * The player's chunk and its neighbours are always loaded before update() returns, so the player collides with the
+ * same objects whatever the timing, and recordings still replay the same. The ring of chunks around those is loaded
+ * ahead of the player on a background thread. Chunks further away stay cached until the loaded chunks go over the
+ * memory budget, then the furthest are evicted first.
+ * <p></p>
+ * An object is added to the listener when the first chunk it overlaps is loaded, and removed when the last is evicted.
+ */
+public class MapStreamer implements Disposable {
+    /**
+     * Told when objects come into and out of range, e.g. to give them to the player
+     */
+    public interface Listener {
+        void objectAdded(GameObject object);
+
+        void objectRemoved(GameObject object);
+    }
+
+    // Chunks this close to the player's chunk are loaded before the tick carries on
+    private static final int REQUIRED_RADIUS = 1;
+    // Chunks this close are loaded in the background ahead of the player, and are never evicted
+    private static final int PRELOAD_RADIUS = 2;
+
+    private final StreamedMap map;
+    private final float unitScale;
+    private final long memoryBudget;
+    private final Listener listener;
+    private final int[] backgroundLayers, foregroundLayers;
+    private final OrthogonalTiledMapRenderer renderer;
+    private final ExecutorService loader;
+    // Also locked by the render thread while drawing, since the ticks may be on a LogicThread
+    private final IntMap<StreamedMap.Chunk> loaded = new IntMap<StreamedMap.Chunk>();
+    private final IntMap<Future<StreamedMap.Chunk>> pending = new IntMap<Future<StreamedMap.Chunk>>();
+    private final IntArray finished = new IntArray();
+    // How many loaded chunks each live object overlaps
+    private final IntIntMap objectRefs = new IntIntMap();
+    private final IntMap<GameObject> liveObjects = new IntMap<GameObject>();
+    private long loadedBytes;
+    private int centreX = -1, centreY = -1;
+
+    /**
+     * @param map The map to stream, e.g. game.streamedMap
+     * @param unitScale The scale the map is drawn at
+     * @param memoryBudget Roughly how many bytes of chunks to keep loaded
+     * @param batch The batch to draw with, shared with the rest of the game
+     * @param listener Told about objects as they are loaded and evicted
+     */
+    public MapStreamer(StreamedMap map, float unitScale, long memoryBudget, Batch batch, Listener listener) {
+        this.map = map;
+        this.unitScale = unitScale;
+        this.memoryBudget = memoryBudget;
+        this.listener = listener;
+        backgroundLayers = map.properties.get("backgroundLayers", int[].class);
+        foregroundLayers = map.properties.get("foregroundLayers", int[].class);
+        // Only used to draw the chunks' layers, so it is given an empty map
+        renderer = new OrthogonalTiledMapRenderer(new TiledMap(), unitScale, batch);
+        loader = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "Map streamer");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Loads the chunks around a point and evicts far away ones if over budget, call each tick with the player's
+     * centre. Objects are added and removed from the listener on the calling thread
+     *
+     * @param worldX The x coordinate in the world, e.g. player.getCentreX()
+     * @param worldY The y coordinate in the world
+     */
+    public void update(float worldX, float worldY) {
+        boolean added = addFinishedChunks();
+
+        int chunkX = map.getChunkX(worldX / unitScale);
+        int chunkY = map.getChunkY(worldY / unitScale);
+        if (chunkX == centreX && chunkY == centreY) {
+            // The chunks finished in the background may have gone over the budget
+            if (added) {
+                evict();
+            }
+            return;
+        }
+        centreX = chunkX;
+        centreY = chunkY;
+
+        // Nearest first, so the background thread loads the chunks the player will reach soonest first
+        for (int radius = 0; radius <= PRELOAD_RADIUS; radius++) {
+            for (int y = chunkY - radius; y <= chunkY + radius; y++) {
+                for (int x = chunkX - radius; x <= chunkX + radius; x++) {
+                    boolean ring = Math.abs(x - chunkX) == radius || Math.abs(y - chunkY) == radius;
+                    if (ring && x >= 0 && y >= 0 && x < map.chunksX && y < map.chunksY) {
+                        request(x, y, radius <= REQUIRED_RADIUS);
+                    }
+                }
+            }
+        }
+
+        // Chunks the player has moved away from aren't worth loading any more
+        for (IntMap.Entry<Future<StreamedMap.Chunk>> entry : pending.entries()) {
+            if (getDistance(entry.key) > PRELOAD_RADIUS) {
+                entry.value.cancel(false);
+                finished.add(entry.key);
+            }
+        }
+        for (int i = 0; i < finished.size; i++) {
+            pending.remove(finished.get(i));
+        }
+        finished.clear();
+
+        evict();
+    }
+
+    /**
+     * Makes sure a chunk is loaded or loading
+     *
+     * @param now true to load it before returning, otherwise it is loaded in the background
+     */
+    private void request(final int chunkX, final int chunkY, boolean now) {
+        int key = map.getKey(chunkX, chunkY);
+        if (loaded.containsKey(key)) {
+            return;
+        }
+        Future<StreamedMap.Chunk> future = pending.get(key);
+        if (now) {
+            // Waits for it if the background thread has already started it
+            pending.remove(key);
+            add(future != null ? await(future) : map.loadChunk(chunkX, chunkY));
+        } else if (future == null) {
+            pending.put(key, loader.submit(new Callable<StreamedMap.Chunk>() {
+                @Override
+                public StreamedMap.Chunk call() {
+                    return map.loadChunk(chunkX, chunkY);
+                }
+            }));
+        }
+    }
+
+    /**
+     * Adds any chunks the background thread has finished
+     *
+     * @return true if any chunks were added
+     */
+    private boolean addFinishedChunks() {
+        for (IntMap.Entry<Future<StreamedMap.Chunk>> entry : pending.entries()) {
+            if (entry.value.isDone()) {
+                finished.add(entry.key);
+            }
+        }
+        for (int i = 0; i < finished.size; i++) {
+            add(await(pending.remove(finished.get(i))));
+        }
+        boolean added = finished.size > 0;
+        finished.clear();
+        return added;
+    }
+
+    private void add(StreamedMap.Chunk chunk) {
+        synchronized (loaded) {
+            loaded.put(map.getKey(chunk.x, chunk.y), chunk);
+        }
+        loadedBytes += chunk.bytes;
+        if (chunk.objects == null) {
+            return;
+        }
+        for (int i = 0; i < chunk.objects.size; i++) {
+            int index = chunk.objects.get(i);
+            if (objectRefs.getAndIncrement(index, 0, 1) == 0) {
+                GameObject object = new GameObject(map.getObject(index), unitScale);
+                liveObjects.put(index, object);
+                listener.objectAdded(object);
+            }
+        }
+    }
+
+    /**
+     * Evicts the furthest chunks outside the preload radius until the loaded chunks fit in the memory budget
+     */
+    private void evict() {
+        while (loadedBytes > memoryBudget) {
+            StreamedMap.Chunk furthest = null;
+            int furthestDistance = PRELOAD_RADIUS;
+            for (StreamedMap.Chunk chunk : loaded.values()) {
+                int distance = getDistance(map.getKey(chunk.x, chunk.y));
+                if (distance > furthestDistance) {
+                    furthest = chunk;
+                    furthestDistance = distance;
+                }
+            }
+            if (furthest == null) {
+                // Everything loaded is near the player, the budget is too small for the preload radius
+                return;
+            }
+            remove(furthest);
+        }
+    }
+
+    private void remove(StreamedMap.Chunk chunk) {
+        synchronized (loaded) {
+            loaded.remove(map.getKey(chunk.x, chunk.y));
+        }
+        loadedBytes -= chunk.bytes;
+        if (chunk.objects == null) {
+            return;
+        }
+        for (int i = 0; i < chunk.objects.size; i++) {
+            int index = chunk.objects.get(i);
+            if (objectRefs.getAndIncrement(index, 0, -1) == 1) {
+                objectRefs.remove(index, 0);
+                listener.objectRemoved(liveObjects.remove(index));
+            }
+        }
+    }
+
+    /**
+     * @return How many chunks away from the centre a chunk is, counting diagonals as one
+     */
+    private int getDistance(int key) {
+        int x = key % map.chunksX;
+        int y = key / map.chunksX;
+        return Math.max(Math.abs(x - centreX), Math.abs(y - centreY));
+    }
+
+    private static StreamedMap.Chunk await(Future<StreamedMap.Chunk> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GdxRuntimeException("Interrupted while loading a map chunk", e);
+        } catch (ExecutionException e) {
+            throw new GdxRuntimeException("Couldn't load a map chunk", e.getCause());
+        }
+    }
+
+    /**
+     * Sets the area of the map to draw
+     */
+    public void setView(OrthographicCamera camera) {
+        renderer.setView(camera);
+    }
+
+    /**
+     * Draws the layers behind the player, setView needs to be called first
+     */
+    public void renderBackground() {
+        render(backgroundLayers);
+    }
+
+    /**
+     * Draws the layers in front of the player, setView needs to be called first
+     */
+    public void renderForeground() {
+        render(foregroundLayers);
+    }
+
+    /**
+     * Draws some layers of every loaded chunk in view, a layer at a time so the layers still overlap in order
+     */
+    private void render(int[] layers) {
+        Rectangle view = renderer.getViewBounds();
+        int firstX = map.getChunkX(view.x / unitScale);
+        int firstY = map.getChunkY(view.y / unitScale);
+        int lastX = map.getChunkX((view.x + view.width) / unitScale);
+        int lastY = map.getChunkY((view.y + view.height) / unitScale);
+
+        Batch batch = renderer.getBatch();
+        batch.begin();
+        synchronized (loaded) {
+            for (int layer : layers) {
+                for (int y = firstY; y <= lastY; y++) {
+                    for (int x = firstX; x <= lastX; x++) {
+                        StreamedMap.Chunk chunk = loaded.get(map.getKey(x, y));
+                        if (chunk == null) {
+                            continue;
+                        }
+                        TiledMapTileLayer tiles = chunk.layers[layer];
+                        if (tiles != null && tiles.isVisible()) {
+                            renderer.renderTileLayer(tiles);
+                        }
+                    }
+                }
+            }
+        }
+        batch.end();
+    }
+
+    /**
+     * @return Roughly how much memory the loaded chunks take up, in bytes
+     */
+    public long getLoadedBytes() {
+        return loadedBytes;
+    }
+
+    /**
+     * Stops the background thread and drops every chunk, the batch belongs to the game
+     */
+    @Override
+    public void dispose() {
+        loader.shutdownNow();
+        pending.clear();
+        synchronized (loaded) {
+            loaded.clear();
+        }
+        renderer.dispose();
+    }
+}
@@ -0,0 +1,158 @@
+package com.skloch.game;
+
+import com.badlogic.gdx.graphics.OrthographicCamera;
+import com.badlogic.gdx.graphics.g2d.Batch;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.maps.tiled.renderers.OrthogonalTiledMapRenderer;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.IntArray;
+
+/**
+ * Draws a map's background and foreground layers, choosing the cheapest renderer for each.
+ * Dense layers are drawn by a ShaderMapRenderer, background layers that never change are baked into chunks with a
+ * ChunkedMapRenderer, and anything else is left to the standard OrthogonalTiledMapRenderer.
+ * <p></p>
+ * Baking the map takes a while and makes a lot of GL objects, so one MapView is kept by HustleGame and reused by
+ * every game played, see WorldMap.getView()
+ */
+public class MapView implements Disposable {
+    public final OrthogonalTiledMapRenderer mapRenderer;
+    public final ShaderMapRenderer shaderRenderer;
+    private final Array<MapPass> backgroundPasses, foregroundPasses;
+    private final TiledMap map;
+
+    /**
+     * A run of neighbouring map layers that are drawn with the same renderer.
+     * Either drawn by the shader renderer, a baked chunk cache, or the standard OrthogonalTiledMapRenderer
+     */
+    private static class MapPass {
+        int[] layers;
+        boolean shader;
+        ChunkedMapRenderer cache;
+    }
+
+    /**
+     * @param map The map to draw
+     * @param backgroundLayers The layers drawn behind the player, e.g. game.backgroundLayers
+     * @param foregroundLayers The layers drawn in front of the player
+     * @param shaderLayers The layers to draw with the shader renderer if they can be
+     * @param unitScale The scale the map is drawn at
+     * @param batch The batch the OrthogonalTiledMapRenderer draws with, shared with the rest of the game
+     */
+    public MapView(TiledMap map, int[] backgroundLayers, int[] foregroundLayers, int[] shaderLayers, float unitScale, Batch batch) {
+        this.map = map;
+        mapRenderer = new OrthogonalTiledMapRenderer(map, unitScale, batch);
+        shaderRenderer = new ShaderMapRenderer(map, shaderLayers, unitScale);
+        // The background never changes, so any of it not drawn by the shader is baked once into chunks
+        backgroundPasses = makeMapPasses(backgroundLayers, unitScale, true);
+        foregroundPasses = makeMapPasses(foregroundLayers, unitScale, false);
+    }
+
+    /**
+     * Sets the area of the map to draw
+     */
+    public void setView(OrthographicCamera camera) {
+        mapRenderer.setView(camera);
+        shaderRenderer.setView(camera);
+        setView(backgroundPasses, camera);
+        setView(foregroundPasses, camera);
+    }
+
+    /**
+     * Draws the layers behind the player, setView needs to be called first
+     */
+    public void renderBackground() {
+        renderMapPasses(backgroundPasses);
+    }
+
+    /**
+     * Draws the layers in front of the player, setView needs to be called first
+     */
+    public void renderForeground() {
+        renderMapPasses(foregroundPasses);
+    }
+
+    /**
+     * Splits a group of layers into runs of neighbouring layers that share a renderer, so the layers are still
+     * drawn in order. Layers uploaded to the shader renderer get their own pass, the rest are either baked into
+     * chunks or left to the OrthogonalTiledMapRenderer.
+     *
+     * @param layers The layers to split, e.g. game.backgroundLayers
+     * @param unitScale The scale the map is drawn at
+     * @param bake true to bake runs of non-shader layers with a ChunkedMapRenderer, for layers that never change
+     * @return The passes to draw in order
+     */
+    private Array<MapPass> makeMapPasses(int[] layers, float unitScale, boolean bake) {
+        Array<MapPass> passes = new Array<MapPass>();
+        IntArray run = new IntArray();
+
+        for (int i = 0; i <= layers.length; i++) {
+            boolean shaderLayer = i < layers.length && shaderRenderer.hasLayer(layers[i]);
+            // End the current run of batch layers when reaching a shader layer or the last layer
+            if ((shaderLayer || i == layers.length) && run.size > 0) {
+                MapPass pass = new MapPass();
+                pass.layers = run.toArray();
+                if (bake) {
+                    pass.cache = new ChunkedMapRenderer(map, pass.layers, unitScale, 16);
+                }
+                passes.add(pass);
+                run.clear();
+            }
+            if (shaderLayer) {
+                MapPass pass = new MapPass();
+                pass.layers = new int[] {layers[i]};
+                pass.shader = true;
+                passes.add(pass);
+            } else if (i < layers.length) {
+                run.add(layers[i]);
+            }
+        }
+        return passes;
+    }
+
+    private void setView(Array<MapPass> passes, OrthographicCamera camera) {
+        for (int i = 0; i < passes.size; i++) {
+            if (passes.get(i).cache != null) {
+                passes.get(i).cache.setView(camera);
+            }
+        }
+    }
+
+    /**
+     * Draws map passes made with makeMapPasses in order
+     *
+     * @param passes The passes to draw
+     */
+    private void renderMapPasses(Array<MapPass> passes) {
+        for (int i = 0; i < passes.size; i++) {
+            MapPass pass = passes.get(i);
+            if (pass.shader) {
+                shaderRenderer.render(pass.layers);
+            } else if (pass.cache != null) {
+                pass.cache.render();
+            } else {
+                mapRenderer.render(pass.layers);
+            }
+        }
+    }
+
+    /**
+     * Disposes of the shader and any baked chunk caches, the batch belongs to the game
+     */
+    @Override
+    public void dispose() {
+        mapRenderer.dispose();
+        shaderRenderer.dispose();
+        disposeMapPasses(backgroundPasses);
+        disposeMapPasses(foregroundPasses);
+    }
+
+    private void disposeMapPasses(Array<MapPass> passes) {
+        for (MapPass pass : passes) {
+            if (pass.cache != null) {
+                pass.cache.dispose();
+            }
+        }
+    }
+}
@@ -23,6 +23,8 @@ public class MenuScreen implements Screen {
     OrthographicCamera camera;
     private Viewport viewport;
     private Image titleImage;
+    private Table buttonTable, avatarSelectTable;
+    private Window tutorialWindow;
 
     /**
      * A class to display a menu screen, initially gives the player 4 options, Start, Settings, Credits, Quit
@@ -31,6 +33,7 @@ public class MenuScreen implements Screen {
      * Settings switches to SettingsScreen
      * Credits switches to CreditsScreen
      * Quit exits the game
+     * Made once by HustleGame.showMenu(), which calls reset() each time the menu is shown
      *
      * @param game An instance of HustleGame with loaded variables
      */
@@ -38,8 +41,7 @@ public class MenuScreen implements Screen {
         this.game = game;
         this.game.menuScreen = this;
         // Create stage to draw UI on
-        menuStage = new Stage(new FitViewport(game.WIDTH, game.HEIGHT));
-        Gdx.input.setInputProcessor(menuStage);
+        menuStage = new Stage(new FitViewport(game.WIDTH, game.HEIGHT), game.batch);
 
         camera = new OrthographicCamera();
         viewport = new FitViewport(game.WIDTH, game.HEIGHT, camera);
@@ -50,28 +52,24 @@ public class MenuScreen implements Screen {
         game.blueBackground.getRoot().findActor("blue image").setSize(viewport.getWorldWidth(), viewport.getWorldHeight());
 
         // Title image
-        titleImage = new Image(new Texture(Gdx.files.internal("title.png")));
+        titleImage = new Image(game.textures.acquire(Assets.TITLE, Texture.class));
         titleImage.setPosition((viewport.getWorldWidth() / 2f) - (titleImage.getWidth() / 2f), 500);
         menuStage.addActor(titleImage);
 
-        // Play menu music
-        game.soundManager.playMenuMusic();
-
-
         // Make avatar select table
-        Table avatarSelectTable = makeAvatarSelectTable();
+        avatarSelectTable = makeAvatarSelectTable();
         menuStage.addActor(avatarSelectTable);
         avatarSelectTable.setVisible(false);
 
 
         // Make tutorial window
-        Window tutorialWindow = makeTutorialWindow(avatarSelectTable);
+        tutorialWindow = makeTutorialWindow(avatarSelectTable);
         menuStage.addActor(tutorialWindow);
         tutorialWindow.setVisible(false);
 
 
         // Make table to draw buttons and title
-        Table buttonTable = new Table();
+        buttonTable = new Table();
         buttonTable.setFillParent(true);
         menuStage.addActor(buttonTable);
 
@@ -117,7 +115,7 @@ public class MenuScreen implements Screen {
             @Override
             public void changed(ChangeEvent event, Actor actor) {
                 game.soundManager.playButton();
-                game.setScreen(new SettingsScreen(game, thisScreen));
+                game.showSettings(thisScreen);
             }
         });
 
@@ -126,7 +124,7 @@ public class MenuScreen implements Screen {
             @Override
             public void changed(ChangeEvent event, Actor actor) {
                 game.soundManager.playButton();
-                game.setScreen(new CreditScreen(game, thisScreen));
+                game.showCredits(thisScreen);
             }
         });
 
@@ -135,8 +133,7 @@ public class MenuScreen implements Screen {
                @Override
                public void changed(ChangeEvent event, Actor actor) {
                    game.soundManager.playButton();
-                   game.dispose();
-                   dispose();
+                   // HustleGame disposes of every screen when the app closes
                    Gdx.app.exit();
                }
            }
@@ -146,6 +143,18 @@ public class MenuScreen implements Screen {
 
     }
 
+    /**
+     * Puts the menu back to its first page and starts the menu music, called whenever the menu is shown from
+     * another screen
+     */
+    public void reset() {
+        buttonTable.setVisible(true);
+        titleImage.setVisible(true);
+        tutorialWindow.setVisible(false);
+        avatarSelectTable.setVisible(false);
+        game.soundManager.playMenuMusic();
+    }
+
     /**
      * Renders the main menu, and any windows that are displaying information
      * @param delta The time in seconds since the last render.
@@ -177,11 +186,16 @@ public class MenuScreen implements Screen {
         menuStage.getViewport().update(width, height);
     }
 
-    // Other required methods
+    /**
+     * Takes the input whenever the menu is switched to
+     */
     @Override
     public void show() {
+        Gdx.input.setInputProcessor(menuStage);
     }
 
+    // Other required methods
+
     @Override
     public void hide() {
     }
@@ -203,11 +217,12 @@ public class MenuScreen implements Screen {
     }
 
     /**
-     * Dispose of all menu assets
+     * Dispose of all menu assets, called by HustleGame when the game is closed
      */
     @Override
     public void dispose() {
         menuStage.dispose();
+        game.textures.release(Assets.TITLE);
     }
 
     /**
@@ -285,21 +300,20 @@ public class MenuScreen implements Screen {
         table.row();
 
         // Image buttons
-        Table buttonTable = new Table();
-        table.add(buttonTable).width(600);
+        Table avatarButtons = new Table();
+        table.add(avatarButtons).width(600);
 
         ImageButton choice1 = new ImageButton(game.skin, "avatar1");
-        buttonTable.add(choice1).left().expandX();
+        avatarButtons.add(choice1).left().expandX();
         ImageButton choice2 = new ImageButton(game.skin, "avatar2");
-        buttonTable.add(choice2).right().expandX();
+        avatarButtons.add(choice2).right().expandX();
 
         choice1.addListener(new ChangeListener() {
             @Override
             public void changed(ChangeEvent event, Actor actor) {
                 game.soundManager.playButton();
-                game.setScreen(new GameScreen(game, 1));
                 game.soundManager.stopMenuMusic();
-                dispose();
+                game.startGame(1);
             }
         });
 
@@ -307,9 +321,8 @@ public class MenuScreen implements Screen {
             @Override
             public void changed(ChangeEvent event, Actor actor) {
                 game.soundManager.playButton();
-                game.setScreen(new GameScreen(game, 2));
                 game.soundManager.stopMenuMusic();
-                dispose();
+                game.startGame(2);
             }
         });
 
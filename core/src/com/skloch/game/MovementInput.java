@@ -0,0 +1,55 @@
+package com.skloch.game;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.Input;
+
+/**
+ * The directions the player is being told to move in for one tick.
+ * Filled from the keyboard by pollKeyboard(), or set directly when there is no keyboard, e.g. in HeadlessSimulation
+ */
+public class MovementInput {
+    public boolean up, down, left, right;
+
+    /**
+     * Reads the arrow keys and WASD into this input
+     */
+    public void pollKeyboard() {
+        left = Gdx.input.isKeyPressed(Input.Keys.LEFT) || Gdx.input.isKeyPressed(Input.Keys.A);
+        right = Gdx.input.isKeyPressed(Input.Keys.RIGHT) || Gdx.input.isKeyPressed(Input.Keys.D);
+        up = Gdx.input.isKeyPressed(Input.Keys.UP) || Gdx.input.isKeyPressed(Input.Keys.W);
+        down = Gdx.input.isKeyPressed(Input.Keys.DOWN) || Gdx.input.isKeyPressed(Input.Keys.S);
+    }
+
+    /**
+     * Sets every direction to not pressed
+     */
+    public void clear() {
+        up = down = left = right = false;
+    }
+
+    /**
+     * @return The directions packed into the lowest 4 bits of an int, up, down, left and right from the lowest bit
+     */
+    public int toBits() {
+        return (up ? 1 : 0) | (down ? 2 : 0) | (left ? 4 : 0) | (right ? 8 : 0);
+    }
+
+    /**
+     * Sets the directions from bits made by toBits()
+     *
+     * @param bits The packed directions
+     */
+    public void setBits(int bits) {
+        up = (bits & 1) != 0;
+        down = (bits & 2) != 0;
+        left = (bits & 4) != 0;
+        right = (bits & 8) != 0;
+    }
+
+    /**
+     * @return true if any direction is pressed
+     */
+    public boolean any() {
+        return up || down || left || right;
+    }
+}
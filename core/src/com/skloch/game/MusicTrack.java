@@ -0,0 +1,77 @@
+package com.skloch.game;
+
+import com.badlogic.gdx.audio.Music;
+
+/**
+ * A looping piece of music on SoundManager's music bus that can be faded in and out.
+ * A track that fades out is paused rather than stopped, so its stream stays open and it can fade back in without
+ * the file being opened and decoded again on the render thread. It carries on from where it was paused.
+ */
+public class MusicTrack {
+    public final Music music;
+    private float gain; // How far faded in the track is, from 0 to 1
+    private float target;
+    private float fadeSpeed; // Gain per second
+    private float appliedVolume = -1; // The volume last given to the music, so it is only set when it changes
+
+    /**
+     * @param music The music to play, loaded by the AssetManager
+     */
+    public MusicTrack(Music music) {
+        this.music = music;
+        music.setLooping(true);
+    }
+
+    /**
+     * Opens the music's stream and fills its buffers now, while loading, so fading it in later doesn't have to
+     */
+    void prime() {
+        music.setVolume(0);
+        appliedVolume = 0;
+        music.play();
+        music.pause();
+    }
+
+    /**
+     * Fades the track towards a gain, fading in starts it playing and fading out to 0 pauses it
+     *
+     * @param target The gain to fade to, from 0 to 1
+     * @param seconds How long the fade takes from silence to full volume, 0 to change at once
+     */
+    void fadeTo(float target, float seconds) {
+        this.target = target;
+        fadeSpeed = seconds > 0 ? 1 / seconds : Float.MAX_VALUE;
+    }
+
+    /**
+     * Moves the fade along and applies the volume if it has changed, called each frame by SoundManager
+     *
+     * @param delta The time since the last frame
+     * @param busVolume The volume of the music bus
+     */
+    void update(float delta, float busVolume) {
+        if (gain < target) {
+            gain = Math.min(target, gain + fadeSpeed * delta);
+        } else if (gain > target) {
+            gain = Math.max(target, gain - fadeSpeed * delta);
+        }
+
+        float volume = gain * busVolume;
+        if (volume != appliedVolume) {
+            music.setVolume(volume);
+            appliedVolume = volume;
+        }
+        if (gain > 0 && !music.isPlaying()) {
+            music.play();
+        } else if (gain == 0 && target == 0 && music.isPlaying()) {
+            music.pause();
+        }
+    }
+
+    /**
+     * @return true if the track is playing or fading in
+     */
+    public boolean isPlaying() {
+        return target > 0;
+    }
+}
@@ -0,0 +1,230 @@
+package com.skloch.game;
+
+import com.badlogic.gdx.assets.AssetDescriptor;
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.assets.loaders.FileHandleResolver;
+import com.badlogic.gdx.assets.loaders.TextureLoader;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.glutils.PixmapTextureData;
+import com.badlogic.gdx.maps.MapLayers;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.maps.tiled.TiledMapTile;
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
+import com.badlogic.gdx.maps.tiled.TiledMapTileSets;
+import com.badlogic.gdx.maps.tiled.TmxMapLoader;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.ObjectMap;
+import com.badlogic.gdx.utils.XmlReader;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * A TmxMapLoader that spreads the slow parts of loading a map over every core, for use with an AssetManager.
+ * <p></p>
+ * The tileset images are decoded on a pool before the AssetManager gets to them, which would otherwise decode them
+ * one after another on its single loading thread, and only has to upload them.
+ * Each tile layer's CSV is decoded on the pool as soon as loading starts, and once the tilesets are made every tile
+ * layer is built on the pool too. The layers are still added to the map in order on the loading thread.
+ */
+public class ParallelTmxMapLoader extends TmxMapLoader {
+    private static ExecutorService pool;
+
+    private final AssetManager manager;
+    private final ObjectMap<XmlReader.Element, Future<int[]>> decoded = new ObjectMap<XmlReader.Element, Future<int[]>>();
+    private final ObjectMap<XmlReader.Element, Future<TiledMapTileLayer>> built = new ObjectMap<XmlReader.Element, Future<TiledMapTileLayer>>();
+
+    /**
+     * @param resolver The resolver to find files with
+     * @param manager The AssetManager this loader is set on, to check which images it already has
+     */
+    public ParallelTmxMapLoader(FileHandleResolver resolver, AssetManager manager) {
+        super(resolver);
+        this.manager = manager;
+    }
+
+    /**
+     * Starts decoding the tileset images, the AssetManager loads these before loadAsync is called
+     */
+    @Override
+    protected Array<AssetDescriptor> getDependencyAssetDescriptors(FileHandle tmxFile, TextureLoader.TextureParameter textureParameter) {
+        return decodeTextures(manager, super.getDependencyAssetDescriptors(tmxFile, textureParameter));
+    }
+
+    @Override
+    public void loadAsync(AssetManager manager, String fileName, FileHandle tmxFile, Parameters parameter) {
+        // The map's XML was read by getDependencies, start decoding every tile layer while the tilesets are made
+        for (final XmlReader.Element layer : root.getChildrenByNameRecursively("layer")) {
+            decoded.put(layer, getPool().submit(new Callable<int[]>() {
+                @Override
+                public int[] call() {
+                    return getTileIds(layer, layer.getIntAttribute("width", 0), layer.getIntAttribute("height", 0));
+                }
+            }));
+        }
+        try {
+            super.loadAsync(manager, fileName, tmxFile, parameter);
+            // The tilesets' properties have been read already, so the surfaces don't need the .tsx files again
+            map.getProperties().put("surfaces", Surfaces.fromTileSets(map.getTileSets()));
+        } finally {
+            for (Future<int[]> future : decoded.values()) {
+                future.cancel(true);
+            }
+            for (Future<TiledMapTileLayer> future : built.values()) {
+                future.cancel(true);
+            }
+            decoded.clear();
+            built.clear();
+        }
+    }
+
+    /**
+     * Adds a tile layer built on the pool to the map. The first call builds every layer at once, since Tiled saves
+     * all the tilesets before the layers
+     */
+    @Override
+    protected void loadTileLayer(TiledMap map, MapLayers parentLayers, XmlReader.Element element) {
+        if (!element.getName().equals("layer") || !decoded.containsKey(element)) {
+            super.loadTileLayer(map, parentLayers, element);
+            return;
+        }
+        if (built.size == 0) {
+            buildLayers(map);
+        }
+
+        TiledMapTileLayer layer = await(built.get(element));
+        loadBasicLayerInfo(layer, element);
+        XmlReader.Element properties = element.getChildByName("properties");
+        if (properties != null) {
+            loadProperties(layer.getProperties(), properties);
+        }
+        parentLayers.add(layer);
+    }
+
+    /**
+     * Starts building every decoded tile layer on the pool
+     */
+    private void buildLayers(TiledMap map) {
+        final TiledMapTileSets tilesets = map.getTileSets();
+        final int tileWidth = map.getProperties().get("tilewidth", Integer.class);
+        final int tileHeight = map.getProperties().get("tileheight", Integer.class);
+        for (ObjectMap.Entry<XmlReader.Element, Future<int[]>> entry : decoded.entries()) {
+            final XmlReader.Element element = entry.key;
+            final Future<int[]> ids = entry.value;
+            built.put(element, getPool().submit(new Callable<TiledMapTileLayer>() {
+                @Override
+                public TiledMapTileLayer call() {
+                    return buildLayer(element, await(ids), tilesets, tileWidth, tileHeight);
+                }
+            }));
+        }
+    }
+
+    /**
+     * Makes a tile layer's cells, the same way TmxMapLoader does
+     */
+    private TiledMapTileLayer buildLayer(XmlReader.Element element, int[] ids, TiledMapTileSets tilesets, int tileWidth, int tileHeight) {
+        int width = element.getIntAttribute("width", 0);
+        int height = element.getIntAttribute("height", 0);
+        TiledMapTileLayer layer = new TiledMapTileLayer(width, height, tileWidth, tileHeight);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int id = ids[y * width + x];
+                TiledMapTile tile = tilesets.getTile(id & ~MASK_CLEAR);
+                if (tile != null) {
+                    TiledMapTileLayer.Cell cell = createTileLayerCell(
+                            (id & FLAG_FLIP_HORIZONTALLY) != 0,
+                            (id & FLAG_FLIP_VERTICALLY) != 0,
+                            (id & FLAG_FLIP_DIAGONALLY) != 0);
+                    cell.setTile(tile);
+                    layer.setCell(x, flipY ? height - 1 - y : y, cell);
+                }
+            }
+        }
+        return layer;
+    }
+
+    /**
+     * Decodes the images of texture dependencies on the pool and passes them to the AssetManager's TextureLoader,
+     * so it only has to upload them. Images the manager already has or is loading are left alone, since it would
+     * ignore the decoded copy. Also used by BakedMapLoader
+     *
+     * @param manager The AssetManager the textures will be loaded by
+     * @param dependencies Texture descriptors, each with its own TextureParameter or none
+     * @return Descriptors for the same textures, with the decoded images in their parameters
+     */
+    static Array<AssetDescriptor> decodeTextures(AssetManager manager, Array<AssetDescriptor> dependencies) {
+        Array<Future<Pixmap>> pixmaps = new Array<Future<Pixmap>>();
+        for (AssetDescriptor descriptor : dependencies) {
+            final FileHandle file = descriptor.file;
+            if (descriptor.type != Texture.class || manager.contains(descriptor.fileName)) {
+                pixmaps.add(null);
+                continue;
+            }
+            pixmaps.add(getPool().submit(new Callable<Pixmap>() {
+                @Override
+                public Pixmap call() {
+                    return new Pixmap(file);
+                }
+            }));
+        }
+
+        Array<AssetDescriptor> result = new Array<AssetDescriptor>();
+        for (int i = 0; i < dependencies.size; i++) {
+            AssetDescriptor descriptor = dependencies.get(i);
+            if (pixmaps.get(i) == null) {
+                result.add(descriptor);
+                continue;
+            }
+            TextureLoader.TextureParameter original = (TextureLoader.TextureParameter) descriptor.params;
+            TextureLoader.TextureParameter parameter = new TextureLoader.TextureParameter();
+            if (original != null) {
+                parameter.genMipMaps = original.genMipMaps;
+                parameter.minFilter = original.minFilter;
+                parameter.magFilter = original.magFilter;
+                parameter.wrapU = original.wrapU;
+                parameter.wrapV = original.wrapV;
+            }
+            // Not managed, so the map's textures can't be reloaded if the GL context is lost, which only
+            // happens on Android
+            parameter.textureData = new PixmapTextureData(await(pixmaps.get(i)), null, parameter.genMipMaps, true);
+            result.add(new AssetDescriptor<Texture>(descriptor.file, Texture.class, parameter));
+        }
+        return result;
+    }
+
+    private static <T> T await(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GdxRuntimeException("Interrupted while loading the map", e);
+        } catch (ExecutionException e) {
+            throw new GdxRuntimeException("Couldn't load the map", e.getCause());
+        }
+    }
+
+    /**
+     * @return A pool with a thread for each core, shared by every map load
+     */
+    private static synchronized ExecutorService getPool() {
+        if (pool == null) {
+            pool = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "Map loader");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return pool;
+    }
+}
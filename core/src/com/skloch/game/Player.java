@@ -1,7 +1,5 @@
 package com.skloch.game;
 
-import com.badlogic.gdx.Gdx;
-import com.badlogic.gdx.Input;
 import com.badlogic.gdx.graphics.g2d.Animation;
 import com.badlogic.gdx.graphics.g2d.TextureAtlas;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
@@ -16,13 +14,20 @@ public class Player {
     // Hitboxes
     public Rectangle sprite, feet, eventHitbox;
     public float centreX, centreY;
+    // Where the player was before the last call to move(), used to draw the player between ticks
+    private float previousX, previousY;
     public int direction = 2; // 0 = up, 1 = right, 2 = down, 3 = left (like a clock)
     private TextureRegion currentFrame;
     private float stateTime = 0;
     private final Array<Animation<TextureRegion>> walkingAnimation, idleAnimation;
     // Stats
     public float speed = 300f;
-    public Array<GameObject> collidables;
+    public Array<GameObject> collidables, interactables;
+    private SpatialGrid spatialGrid;
+    private CollisionMap collisionMap;
+    private final Array<GameObject> nearbyObjects = new Array<GameObject>();
+    private final Rectangle queryArea = new Rectangle();
+    private final MovementInput keyboardInput = new MovementInput();
     public int scale = 4;
     private Rectangle bounds;
     private GameObject closestObject;
@@ -35,30 +40,19 @@ public class Player {
      * Call move() then draw the result of getCurrentAnimation() to use
      *
      * @param avatar "avatar1" for the more masculine character, "avatar2" for the more feminine character,
-     *               player animations are packed in the player_sprites atlas
+     *               null to make a player without any textures, for running without graphics
+     * @param playerAtlas The player_sprites atlas the animations are packed in, from game.assets
      */
-    public Player (String avatar) {
-        // Load the player's textures from the atlas
-        TextureAtlas playerAtlas = new TextureAtlas(Gdx.files.internal("Sprites/Player/player_sprites.atlas"));
-
+    public Player (String avatar, TextureAtlas playerAtlas) {
         walkingAnimation = new Array<Animation<TextureRegion>>(4);
         idleAnimation = new Array<Animation<TextureRegion>>(4);
 
-        // Load walking animation from Sprite atlas
-        walkingAnimation.add(
-                new Animation<TextureRegion>(0.25f, playerAtlas.findRegions(avatar + "_walk_back"), Animation.PlayMode.LOOP),
-                new Animation<TextureRegion>(0.25f, playerAtlas.findRegions(avatar + "_walk_right"), Animation.PlayMode.LOOP),
-                new Animation<TextureRegion>(0.25f, playerAtlas.findRegions(avatar + "_walk_front"), Animation.PlayMode.LOOP),
-                new Animation<TextureRegion>(0.25f, playerAtlas.findRegions(avatar + "_walk_left"), Animation.PlayMode.LOOP));
-        // Load idle animation
-        idleAnimation.add(
-                new Animation<TextureRegion>(0.40f, playerAtlas.findRegions(avatar + "_idle_back"), Animation.PlayMode.LOOP),
-                new Animation<TextureRegion>(0.40f, playerAtlas.findRegions(avatar + "_idle_right"), Animation.PlayMode.LOOP),
-                new Animation<TextureRegion>(0.40f, playerAtlas.findRegions(avatar + "_idle_front"), Animation.PlayMode.LOOP),
-                new Animation<TextureRegion>(0.40f, playerAtlas.findRegions(avatar + "_idle_left"), Animation.PlayMode.LOOP)
-        );
+        if (avatar != null) {
+            loadAnimations(avatar, playerAtlas);
+        }
 
         collidables = new Array<GameObject>();
+        interactables = new Array<GameObject>();
 
         // Sprite is a rectangle covering the whole player
         sprite = new Rectangle(0, 0, 17*scale, 28*scale);
@@ -78,6 +72,28 @@ public class Player {
 
     }
 
+    /**
+     * Loads the player's walking and idle animations from the player_sprites atlas
+     *
+     * @param avatar The name of the avatar in the atlas, e.g. "avatar1"
+     * @param playerAtlas The atlas to find the animations in
+     */
+    private void loadAnimations (String avatar, TextureAtlas playerAtlas) {
+        // Load walking animation from Sprite atlas
+        walkingAnimation.add(
+                new Animation<TextureRegion>(0.25f, playerAtlas.findRegions(avatar + "_walk_back"), Animation.PlayMode.LOOP),
+                new Animation<TextureRegion>(0.25f, playerAtlas.findRegions(avatar + "_walk_right"), Animation.PlayMode.LOOP),
+                new Animation<TextureRegion>(0.25f, playerAtlas.findRegions(avatar + "_walk_front"), Animation.PlayMode.LOOP),
+                new Animation<TextureRegion>(0.25f, playerAtlas.findRegions(avatar + "_walk_left"), Animation.PlayMode.LOOP));
+        // Load idle animation
+        idleAnimation.add(
+                new Animation<TextureRegion>(0.40f, playerAtlas.findRegions(avatar + "_idle_back"), Animation.PlayMode.LOOP),
+                new Animation<TextureRegion>(0.40f, playerAtlas.findRegions(avatar + "_idle_right"), Animation.PlayMode.LOOP),
+                new Animation<TextureRegion>(0.40f, playerAtlas.findRegions(avatar + "_idle_front"), Animation.PlayMode.LOOP),
+                new Animation<TextureRegion>(0.40f, playerAtlas.findRegions(avatar + "_idle_left"), Animation.PlayMode.LOOP)
+        );
+    }
+
     /**
      * Handles all the logic involved in moving the player given keyboard inputs
      * If the player encounters an object, they will not be alowed to move into the space, but will attempt to
@@ -91,55 +107,90 @@ public class Player {
      * @param delta The time passed since the previous render
      */
     public void move (float delta) {
-        // Updates the player's position based on keys being pressed
+        keyboardInput.pollKeyboard();
+        move(delta, keyboardInput);
+    }
+
+    /**
+     * Moves the player in the directions given, the same as move(delta) but without reading the keyboard.
+     * Lets the player be moved when there is no keyboard, e.g. in HeadlessSimulation
+     *
+     * @param delta The time passed since the previous move
+     * @param input The directions to move in
+     */
+    public void move (float delta, MovementInput input) {
+        // Updates the player's position based on the directions being pressed
         // Also updates the direction they are facing, and whether they are currently moving
         // And also does collision
 
         moving = false;
+        previousX = sprite.x;
+        previousY = sprite.y;
         // To check collision, store the player's current position
         float oldX = sprite.x;
         float oldY = sprite.y;
         float oldFeetX = feet.x;
 
-        // If not frozen, react to keyboard input presses
+        // If not frozen, react to input presses
         if (!frozen) {
             // Move the player and their 2 other hitboxes
             moving = false;
-            if (Gdx.input.isKeyPressed(Input.Keys.LEFT) || Gdx.input.isKeyPressed(Input.Keys.A)) {
+            if (input.left) {
                 this.setX(sprite.getX() - speed * delta); // Note: Setting all the values with a constant delta removes hitbox desyncing issues
                 direction = 3;
                 moving = true;
             }
-            if (Gdx.input.isKeyPressed(Input.Keys.RIGHT) || Gdx.input.isKeyPressed(Input.Keys.D)) {
+            if (input.right) {
                 this.setX(sprite.getX() + speed * delta);
                 direction = 1;
                 moving = true;
             }
-            if (Gdx.input.isKeyPressed(Input.Keys.UP) || Gdx.input.isKeyPressed(Input.Keys.W)) {
+            if (input.up) {
                 this.setY(sprite.getY() + speed * delta);
                 direction = 0;
                 moving = true;
             }
-            if (Gdx.input.isKeyPressed(Input.Keys.DOWN) || Gdx.input.isKeyPressed(Input.Keys.S)) {
+            if (input.down) {
                 this.setY(sprite.getY() - speed * delta);
                 direction = 2;
                 moving = true;
             }
 
             // Check if the player's feet are inside an object, if they are, move them back in that axis
-            for (GameObject object : this.collidables) {
-                if (feet.overlaps(object)) {
-                    // Find the direction that the player needs to be moved back to
-                    // Reset x
-                    if (!(oldFeetX < object.x + object.width && oldFeetX + feet.width > object.x)) {
-                        this.setX(oldX);
+            if (collisionMap != null) {
+                // Test each axis on its own against the baked collision map so the player can still slide along walls
+                if (collisionMap.overlaps(feet)) {
+                    float newX = sprite.x;
+                    float newY = sprite.y;
+                    this.setPos(newX, oldY);
+                    boolean blockedX = collisionMap.overlaps(feet);
+                    this.setPos(oldX, newY);
+                    boolean blockedY = collisionMap.overlaps(feet);
+                    // If neither axis is blocked on its own the player hit a corner, so stop in both
+                    if (!blockedX && !blockedY) {
+                        blockedX = blockedY = true;
                     }
-                    // If overlapping in y direction
-                    if (!(oldY < object.y + object.height && oldY + feet.height > object.y)) {
-                        this.setY(oldY);
+                    this.setPos(blockedX ? oldX : newX, blockedY ? oldY : newY);
+                }
+            } else {
+                // Only objects near where the feet were and where they are now can be hit
+                queryArea.set(oldFeetX, oldY, feet.width, feet.height).merge(feet);
+                Array<GameObject> nearby = getNearbyObjects(queryArea);
+                for (int i = 0; i < nearby.size; i++) {
+                    GameObject object = nearby.get(i);
+                    if (feet.overlaps(object)) {
+                        // Find the direction that the player needs to be moved back to
+                        // Reset x
+                        if (!(oldFeetX < object.x + object.width && oldFeetX + feet.width > object.x)) {
+                            this.setX(oldX);
+                        }
+                        // If overlapping in y direction
+                        if (!(oldY < object.y + object.height && oldY + feet.height > object.y)) {
+                            this.setY(oldY);
+                        }
+                        // The above two are essentially the same code as Rectangle.overlaps()
+                        // Just separated into the x and y dimensions
                     }
-                    // The above two are essentially the same code as Rectangle.overlaps()
-                    // Just separated into the x and y dimensions
                 }
             }
 
@@ -172,30 +223,41 @@ public class Player {
         recalcCentre(); // Just recalculates the centre of the player now we have moved them
         float distance = -1;
         closestObject = null;
-        for (GameObject object : this.collidables) {
+        // Without a grid, only the interactable objects need to be searched
+        Array<GameObject> nearby = spatialGrid != null ? spatialGrid.query(eventHitbox, nearbyObjects) : interactables;
+        for (int i = 0; i < nearby.size; i++) {
+            GameObject object = nearby.get(i);
             // Check if this object is even interactable
-            if (object.get("event") != null || object.get("text") != null) {
+            if (object.isInteractable()) {
                 if (eventHitbox.overlaps(object)) {
                     // Check if this is the closest object to the player
-                    if (distance == -1 || distanceFrom(object) < distance) {
+                    // Squared distances compare the same as real distances
+                    float objectDistance = distanceSquaredFrom(object);
+                    if (distance == -1 || objectDistance < distance) {
                         closestObject = object;
-                        distance = distanceFrom(object);
+                        distance = objectDistance;
                     }
                 }
             }
         }
 
         // Increment the animation
-        updateAnimation();
+        updateAnimation(delta);
 
     }
 
     /**
-     * Advances the current animation based on the time since the last render
+     * Advances the current animation based on the time since the last move
      * The animation frame of the player can be grabbed with getCurrentFrame
+     *
+     * @param delta The time passed since the last update
      */
-    public void updateAnimation() {
-        stateTime += Gdx.graphics.getDeltaTime();
+    public void updateAnimation(float delta) {
+        stateTime += delta;
+        // A player made without textures has no animations
+        if (walkingAnimation.size == 0) {
+            return;
+        }
         // Set the current frame of the animation
         // Show a different animation if the player is moving vs idling
         if (moving) {
@@ -260,6 +322,24 @@ public class Player {
      */
     public void setCollidables (Array<GameObject> collidables) {
         this.collidables = collidables;
+        interactables.clear();
+        for (GameObject object : collidables) {
+            if (object.isInteractable()) {
+                interactables.add(object);
+            }
+        }
+        if (spatialGrid != null) {
+            spatialGrid.clear();
+            for (GameObject object : collidables) {
+                spatialGrid.add(object);
+            }
+        }
+        if (collisionMap != null) {
+            collisionMap.clear();
+            for (GameObject object : collidables) {
+                collisionMap.add(object);
+            }
+        }
     }
 
     /**
@@ -269,6 +349,90 @@ public class Player {
      */
     public void addCollidable (GameObject object) {
         this.collidables.add(object);
+        if (object.isInteractable()) {
+            interactables.add(object);
+        }
+        if (spatialGrid != null) {
+            spatialGrid.add(object);
+        }
+        if (collisionMap != null) {
+            collisionMap.add(object);
+        }
+    }
+
+    /**
+     * Removes a GameObject from the player's collidable objects, e.g. when the part of the map it is in is unloaded
+     *
+     * @param object a GameObject added with addCollidable
+     */
+    public void removeCollidable (GameObject object) {
+        collidables.removeValue(object, true);
+        interactables.removeValue(object, true);
+        if (closestObject == object) {
+            closestObject = null;
+        }
+        if (spatialGrid != null) {
+            spatialGrid.remove(object);
+        }
+        if (collisionMap != null) {
+            // Objects sharing its cells are put back in them
+            queryArea.set(object);
+            collisionMap.remove(object, getNearbyObjects(queryArea));
+        }
+    }
+
+    /**
+     * Hands the player a set of objects already added to their own grid and collision map, replacing the ones they
+     * have, so moving to a map visited before doesn't rebuild anything. See MapArea
+     *
+     * @param collidables The objects to collide with
+     * @param interactables The interactable objects among them
+     * @param spatialGrid A grid holding every collidable
+     * @param collisionMap A collision map holding every collidable
+     */
+    public void setObjects (Array<GameObject> collidables, Array<GameObject> interactables, SpatialGrid spatialGrid, CollisionMap collisionMap) {
+        this.collidables = collidables;
+        this.interactables = interactables;
+        this.spatialGrid = spatialGrid;
+        this.collisionMap = collisionMap;
+        closestObject = null;
+    }
+
+    /**
+     * Sets a grid to look up nearby collidables in, so the player doesn't have to check every object each frame.
+     * Any collidables the player already has are added to it.
+     * Set to null to go back to checking every object
+     *
+     * @param spatialGrid An empty SpatialGrid covering the map
+     */
+    public void setSpatialGrid (SpatialGrid spatialGrid) {
+        this.spatialGrid = spatialGrid;
+        setCollidables(collidables);
+    }
+
+    /**
+     * Sets a baked collision map to test movement against instead of checking collidables one by one.
+     * Any collidables the player already has are rasterised into it.
+     * Set to null to go back to checking objects directly
+     *
+     * @param collisionMap An empty CollisionMap covering the map
+     */
+    public void setCollisionMap (CollisionMap collisionMap) {
+        this.collisionMap = collisionMap;
+        setCollidables(collidables);
+    }
+
+    /**
+     * Returns the collidables that might overlap an area, using the spatial grid if there is one
+     *
+     * @param area The area to search
+     * @return An array of objects to check, which should not be modified
+     */
+    private Array<GameObject> getNearbyObjects (Rectangle area) {
+        if (spatialGrid == null) {
+            return collidables;
+        }
+        return spatialGrid.query(area, nearbyObjects);
     }
 
     /**
@@ -284,6 +448,39 @@ public class Player {
         return sprite.getY();
     }
 
+    /**
+     * @return The X coordinate the player was at before the last move()
+     */
+    public float getPreviousX () {
+        return previousX;
+    }
+
+    /**
+     * @return The Y coordinate the player was at before the last move()
+     */
+    public float getPreviousY () {
+        return previousY;
+    }
+
+    /**
+     * Returns the X coordinate to draw the player at, between where they were before and after the last move()
+     *
+     * @param alpha How far between the two positions, from 0 to 1
+     * @return The X coordinate of the player to draw at
+     */
+    public float getRenderX (float alpha) {
+        return previousX + (sprite.x - previousX) * alpha;
+    }
+    /**
+     * Returns the Y coordinate to draw the player at, between where they were before and after the last move()
+     *
+     * @param alpha How far between the two positions, from 0 to 1
+     * @return The Y coordinate of the player to draw at
+     */
+    public float getRenderY (float alpha) {
+        return previousY + (sprite.y - previousY) * alpha;
+    }
+
     /**
      * @return The X coordinate of the centre point of the player's sprite rectangle
      */
@@ -337,6 +534,18 @@ public class Player {
         this.setY(y);
     }
 
+    /**
+     * Moves the player somewhere new without drawing them sliding there from where they were, e.g. to another map
+     *
+     * @param x The X coordinate to move the player to
+     * @param y The Y coordinate to move the player to
+     */
+    public void teleport (float x, float y) {
+        this.setPos(x, y);
+        previousX = x;
+        previousY = y;
+    }
+
     /**
      * Set a large rectangle that the player should be kept inside, set to null to set no bounds
      *
@@ -348,13 +557,16 @@ public class Player {
     }
 
     /**
-     * Returns the euclidian distance from a GameObject to the centre of the player
+     * Returns the squared euclidian distance from a GameObject to the centre of the player
+     * Cheaper than the real distance, and fine for comparing which object is closer
      *
      * @param object The object to get the distance from
-     * @return The distance from the object
+     * @return The distance from the object squared
      */
-    private float distanceFrom (GameObject object) {
-        return (float) Math.sqrt((Math.pow((centreX - object.centreX), 2) + Math.pow((centreY - object.centreY), 2)));
+    private float distanceSquaredFrom (GameObject object) {
+        float dx = centreX - object.centreX;
+        float dy = centreY - object.centreY;
+        return dx * dx + dy * dy;
     }
 
     /**
@@ -372,7 +584,7 @@ public class Player {
      */
     public void setFrozen (boolean freeze) {
         this.frozen = freeze;
-        if (freeze) {
+        if (freeze && idleAnimation.size > 0) {
             // Set to non-moving frame
             currentFrame = idleAnimation.get(direction).getKeyFrame(stateTime);
         }
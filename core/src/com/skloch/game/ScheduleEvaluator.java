@@ -0,0 +1,319 @@
+package com.skloch.game;
+
+import com.badlogic.gdx.math.RandomXS128;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Plays many randomly generated weekly schedules through the GameState rules to see how they score, for checking
+ * balancing changes. Each schedule is played several times, since meeting friends takes a random 1-3 hours.
+ * <p></p>
+ * Schedules are split between the threads of a ForkJoinPool. Every week is played on its own GameState seeded from
+ * the schedule and trial number, and each task returns its own Results which are merged afterwards, so nothing is
+ * shared between threads and the results are the same however many threads are used.
+ * <p></p>
+ * The game doesn't calculate a final score yet, so schedules are ranked by hours studied, with the hours of
+ * recreation and sleep, and meals eaten at mealtimes, reported alongside.
+ */
+public class ScheduleEvaluator {
+    // Actions a schedule can take, in the same way as the events on the map
+    public static final int STUDY_2 = 0, STUDY_3 = 1, STUDY_4 = 2; // comp_sci-2, -3 and -4
+    public static final int EAT = 3; // rch
+    public static final int MEET_FRIENDS = 4; // piazza
+    public static final int WAIT = 5; // Wander around for an hour
+    private static final String[] ACTION_NAMES = {"study 2h", "study 3h", "study 4h", "eat", "meet friends", "wait"};
+    private static final int ACTION_COUNT = ACTION_NAMES.length;
+    public static final int MAX_ACTIONS_PER_DAY = 6;
+    // The most hours that can be counted, a week has 168
+    private static final int MAX_HOURS = 24 * GameState.LAST_DAY;
+    // How many schedules a task plays before it is split no further
+    private static final int SCHEDULES_PER_TASK = 64;
+
+    private final long seed;
+    private final int trials;
+    private final float travelMinutes;
+    private final HashMap<String, Integer> activityEnergies;
+
+    /**
+     * @param seed The seed schedules and trials are generated from
+     * @param trials How many times to play each schedule
+     * @param travelMinutes How long it takes to walk to each activity, in game minutes
+     * @param activityEnergies Energy costs to test, copied into each game, null to use the game's defaults
+     */
+    public ScheduleEvaluator(long seed, int trials, float travelMinutes, HashMap<String, Integer> activityEnergies) {
+        this.seed = seed;
+        this.trials = trials;
+        this.travelMinutes = travelMinutes;
+        this.activityEnergies = activityEnergies != null ? new HashMap<String, Integer>(activityEnergies) : null;
+    }
+
+    /**
+     * Generates and plays a number of schedules on a pool
+     *
+     * @param pool The pool to run on, e.g. ForkJoinPool.commonPool()
+     * @param schedules How many schedules to generate
+     * @param keepBest How many of the best schedules to keep in the results
+     * @return The results of every week played
+     */
+    public Results evaluate(ForkJoinPool pool, int schedules, int keepBest) {
+        return pool.invoke(new EvaluateTask(this, 0, schedules, keepBest));
+    }
+
+    /**
+     * Generates a schedule, the same index and seed always give the same schedule
+     *
+     * @param index The number of the schedule
+     * @return An array of actions for each of the 7 days
+     */
+    public int[][] makeSchedule(int index) {
+        RandomXS128 random = new RandomXS128(mix(seed, index, -1));
+        int[][] schedule = new int[GameState.LAST_DAY][];
+        for (int day = 0; day < schedule.length; day++) {
+            schedule[day] = new int[1 + random.nextInt(MAX_ACTIONS_PER_DAY)];
+            for (int i = 0; i < schedule[day].length; i++) {
+                schedule[day][i] = random.nextInt(ACTION_COUNT);
+            }
+        }
+        return schedule;
+    }
+
+    /**
+     * Plays a week following a schedule, using the same checks as the events in EventManager.
+     * Each day the actions are done in order with a walk before each, then the player goes to bed
+     *
+     * @param schedule The actions for each day, from makeSchedule()
+     * @param gameSeed The seed for the week's random numbers
+     * @return The state at the end of the week
+     */
+    public GameState play(int[][] schedule, long gameSeed) {
+        GameState state = new GameState(gameSeed);
+        if (activityEnergies != null) {
+            state.activityEnergies.putAll(activityEnergies);
+        }
+
+        while (!state.isGameOver()) {
+            int[] actions = schedule[Math.min(state.getDay(), schedule.length) - 1];
+            for (int i = 0; i < actions.length && !state.isGameOver(); i++) {
+                state.passTime(travelMinutes);
+                doAction(state, actions[i]);
+            }
+            if (!state.isGameOver()) {
+                state.sleep(state.getSecondsUntilWakeUp());
+            }
+        }
+        return state;
+    }
+
+    /**
+     * Does an action if the player is allowed to, the same way the events do
+     */
+    private static void doAction(GameState state, int action) {
+        if (action == WAIT) {
+            state.passTime(60);
+            return;
+        }
+        if (state.isTooEarly()) {
+            return;
+        }
+        if (action == EAT) {
+            if (state.hasEnergyFor(GameState.EATING, 1)) {
+                state.eat();
+            }
+        } else if (action == MEET_FRIENDS) {
+            if (state.hasEnergyFor(GameState.MEET_FRIENDS, 1)) {
+                // The same roll as piazzaEvent
+                state.meetFriends(1 + state.random.nextInt(3));
+            }
+        } else {
+            int hours = action - STUDY_2 + 2;
+            if (state.hasEnergyFor(GameState.STUDYING, hours)) {
+                state.study(hours);
+            }
+        }
+    }
+
+    /**
+     * @return A schedule written out day by day
+     */
+    public static String describe(int[][] schedule) {
+        StringBuilder builder = new StringBuilder();
+        for (int day = 0; day < schedule.length; day++) {
+            builder.append("Day ").append(day + 1).append(':');
+            for (int action : schedule[day]) {
+                builder.append(' ').append(ACTION_NAMES[action]).append(',');
+            }
+            builder.append(" sleep\n");
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Mixes a seed with two numbers into a new seed, so neighbouring schedules and trials get unrelated numbers
+     */
+    private static long mix(long seed, int a, int b) {
+        long z = seed + 0x9E3779B97F4A7C15L * (((long) a << 32) ^ (b & 0xFFFFFFFFL));
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Plays a range of schedules, splitting the range in half until it is small enough to play on one thread
+     */
+    private static class EvaluateTask extends RecursiveTask<Results> {
+        private final ScheduleEvaluator evaluator;
+        private final int start, end, keepBest;
+
+        EvaluateTask(ScheduleEvaluator evaluator, int start, int end, int keepBest) {
+            this.evaluator = evaluator;
+            this.start = start;
+            this.end = end;
+            this.keepBest = keepBest;
+        }
+
+        @Override
+        protected Results compute() {
+            if (end - start > SCHEDULES_PER_TASK) {
+                int middle = (start + end) >>> 1;
+                EvaluateTask left = new EvaluateTask(evaluator, start, middle, keepBest);
+                EvaluateTask right = new EvaluateTask(evaluator, middle, end, keepBest);
+                left.fork();
+                Results results = right.compute();
+                results.merge(left.join());
+                return results;
+            }
+
+            Results results = new Results(keepBest);
+            for (int index = start; index < end; index++) {
+                int[][] schedule = evaluator.makeSchedule(index);
+                long studied = 0;
+                for (int trial = 0; trial < evaluator.trials; trial++) {
+                    GameState state = evaluator.play(schedule, mix(evaluator.seed, index, trial));
+                    results.addWeek(state);
+                    studied += state.getHoursStudied();
+                }
+                results.addSchedule(index, schedule, (float) studied / evaluator.trials);
+            }
+            return results;
+        }
+    }
+
+    /**
+     * The distribution of hours over every week played, and the best schedules found.
+     * Only used by one thread at a time, results from different threads are combined with merge()
+     */
+    public static class Results {
+        public final long[] studied, recreational, slept, meals; // Number of weeks with each total
+        public long weeks;
+        public final int[] bestIndex;
+        public final float[] bestScore;
+        public final int[][][] bestSchedule;
+        private int bestCount = 0;
+
+        Results(int keepBest) {
+            studied = new long[MAX_HOURS + 1];
+            recreational = new long[MAX_HOURS + 1];
+            slept = new long[MAX_HOURS + 1];
+            meals = new long[MAX_HOURS + 1];
+            bestIndex = new int[keepBest];
+            bestScore = new float[keepBest];
+            bestSchedule = new int[keepBest][][];
+        }
+
+        void addWeek(GameState state) {
+            studied[Math.min(state.getHoursStudied(), MAX_HOURS)]++;
+            recreational[Math.min(state.getHoursRecreational(), MAX_HOURS)]++;
+            slept[Math.min(state.getHoursSlept(), MAX_HOURS)]++;
+            meals[Math.min(state.getMealsEaten(), MAX_HOURS)]++;
+            weeks++;
+        }
+
+        /**
+         * Keeps a schedule if it is one of the best so far, ties go to the lower index so merging is deterministic
+         */
+        void addSchedule(int index, int[][] schedule, float score) {
+            int position = bestCount;
+            while (position > 0 && (bestScore[position - 1] < score
+                    || (bestScore[position - 1] == score && bestIndex[position - 1] > index))) {
+                position--;
+            }
+            if (position >= bestIndex.length) {
+                return;
+            }
+            int last = Math.min(bestCount, bestIndex.length - 1);
+            for (int i = last; i > position; i--) {
+                bestIndex[i] = bestIndex[i - 1];
+                bestScore[i] = bestScore[i - 1];
+                bestSchedule[i] = bestSchedule[i - 1];
+            }
+            bestIndex[position] = index;
+            bestScore[position] = score;
+            bestSchedule[position] = schedule;
+            bestCount = Math.min(bestCount + 1, bestIndex.length);
+        }
+
+        void merge(Results other) {
+            for (int i = 0; i <= MAX_HOURS; i++) {
+                studied[i] += other.studied[i];
+                recreational[i] += other.recreational[i];
+                slept[i] += other.slept[i];
+                meals[i] += other.meals[i];
+            }
+            weeks += other.weeks;
+            for (int i = 0; i < other.bestCount; i++) {
+                addSchedule(other.bestIndex[i], other.bestSchedule[i], other.bestScore[i]);
+            }
+        }
+
+        /**
+         * @return How many of the best schedules were kept
+         */
+        public int getBestCount() {
+            return bestCount;
+        }
+
+        /**
+         * @param histogram One of studied, recreational, slept or meals
+         * @return The mean total
+         */
+        public float mean(long[] histogram) {
+            double total = 0;
+            for (int i = 0; i < histogram.length; i++) {
+                total += (double) i * histogram[i];
+            }
+            return weeks == 0 ? 0 : (float) (total / weeks);
+        }
+
+        /**
+         * @param histogram One of studied, recreational, slept or meals
+         * @param fraction The percentile as a fraction, e.g. 0.5 for the median
+         * @return The lowest total that at least this fraction of weeks were at or below
+         */
+        public int percentile(long[] histogram, float fraction) {
+            long target = (long) Math.ceil(fraction * weeks);
+            long seen = 0;
+            for (int i = 0; i < histogram.length; i++) {
+                seen += histogram[i];
+                if (seen >= target && seen > 0) {
+                    return i;
+                }
+            }
+            return histogram.length - 1;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d weeks\nstudied %s\nrecreational %s\nslept %s\nmeals %s", weeks,
+                    summary(studied), summary(recreational), summary(slept), summary(meals));
+        }
+
+        private String summary(long[] histogram) {
+            return String.format("mean %.1f %s", mean(histogram), Arrays.toString(new int[] {
+                    percentile(histogram, 0.05f), percentile(histogram, 0.25f), percentile(histogram, 0.5f),
+                    percentile(histogram, 0.75f), percentile(histogram, 0.95f)}));
+        }
+    }
+}
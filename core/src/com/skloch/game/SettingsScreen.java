@@ -15,7 +15,7 @@ import com.badlogic.gdx.utils.viewport.Viewport;
 import com.badlogic.gdx.scenes.scene2d.ui.Table;
 
 /**
- * A screen to display settings to the player, lets the player adjust sound and music volume
+ * A screen to display settings to the player, lets the player adjust sound, music and interface volume
  */
 public class SettingsScreen implements Screen {
     private HustleGame game;
@@ -25,20 +25,19 @@ public class SettingsScreen implements Screen {
     private Window optionMenu;
     public Slider musicSlider;
     public Slider sfxSlider;
+    public Slider uiSlider;
     public Screen previousScreen;
 
 
     /**
-     * Handles the configuration of Music and Sound effect volume using two sliders
+     * Handles the configuration of Music, Sound effect and interface volume using three sliders
+     * Made once by HustleGame.showSettings(), which calls reset() each time the settings are shown
      * @param game An instance of HustleGame
-     * @param previousScreen The previous screen to return to when the exit button is rpessed
      */
-    public SettingsScreen(final HustleGame game, Screen previousScreen) {
+    public SettingsScreen(final HustleGame game) {
         // An option screen to let the player adjust the volume of music and sound effects
         this.game = game;
-        this.previousScreen = previousScreen;
-        optionStage = new Stage(new FitViewport(game.WIDTH, game.HEIGHT));
-        Gdx.input.setInputProcessor(optionStage);
+        optionStage = new Stage(new FitViewport(game.WIDTH, game.HEIGHT), game.batch);
 
         camera = new OrthographicCamera();
         viewport = new FitViewport(game.WIDTH, game.HEIGHT, camera);
@@ -54,27 +53,28 @@ public class SettingsScreen implements Screen {
         optionMenu.add(optionTable).prefHeight(600);
 
         // Create all the UI elements
-        // musicSlider and sfxSlider need to be accessible in render so they are already declared
+        // The sliders need to be accessible in reset so they are already declared
         TextButton exitButton = new TextButton("Exit", game.skin);
         Label title = new Label("Settings", game.skin, "button");
         Label musicTitle = new Label("Music Volume", game.skin, "interaction");
         musicSlider = new Slider(0, 100, 1, false, game.skin, "default-horizontal");
         Label sfxTitle = new Label("SFX Volume", game.skin, "interaction");
         sfxSlider = new Slider(0, 100, 1, false, game.skin, "default-horizontal");
+        Label uiTitle = new Label("UI Volume", game.skin, "interaction");
+        uiSlider = new Slider(0, 100, 1, false, game.skin, "default-horizontal");
         Table sliderTable = new Table();
         // optionTable.setDebug(true);
         // sliderTable.setDebug(true);
 
-        // Set to correct values
-        musicSlider.setValue(game.soundManager.getMusicVolume()*100);
-        sfxSlider.setValue(game.soundManager.getSfxVolume()*100);
-
         // Add to a smaller table to centre the labels and slider bars
         sliderTable.add(musicTitle).padRight(20);
         sliderTable.add(musicSlider).prefWidth(250);
         sliderTable.row().padTop(20);
         sliderTable.add(sfxTitle).padRight(20).right();
         sliderTable.add(sfxSlider).prefWidth(250);
+        sliderTable.row().padTop(20);
+        sliderTable.add(uiTitle).padRight(20).right();
+        sliderTable.add(uiSlider).prefWidth(250);
 
         // Add all the UI elements to the table in the window
         optionTable.add(title).top().padTop(40).padBottom(50);
@@ -91,12 +91,31 @@ public class SettingsScreen implements Screen {
         optionMenu.setX((viewport.getWorldWidth() / 2f) - (optionMenu.getWidth() / 2f));
         optionMenu.setY((viewport.getWorldHeight() / 2f) - (optionMenu.getHeight() / 2f));
 
+        // Volumes should be between 0 and 1, they are only set when a slider is moved
+        musicSlider.addListener(new ChangeListener() {
+            @Override
+            public void changed(ChangeEvent event, Actor actor) {
+                game.soundManager.setMusicVolume(musicSlider.getValue() / 100);
+            }
+        });
+        sfxSlider.addListener(new ChangeListener() {
+            @Override
+            public void changed(ChangeEvent event, Actor actor) {
+                game.soundManager.setSfxVolume(sfxSlider.getValue() / 100);
+            }
+        });
+        uiSlider.addListener(new ChangeListener() {
+            @Override
+            public void changed(ChangeEvent event, Actor actor) {
+                game.soundManager.setUiVolume(uiSlider.getValue() / 100);
+            }
+        });
+
         // Create exit button listener
         exitButton.addListener(new ChangeListener() {
             @Override
             public void changed(ChangeEvent event, Actor actor) {
                 game.soundManager.playButton();
-                dispose();
                 game.setScreen(previousScreen);
                 previousScreen.resume();
             }
@@ -104,6 +123,17 @@ public class SettingsScreen implements Screen {
     }
 
 
+    /**
+     * Sets the sliders to the current volumes and which screen to go back to
+     * @param previousScreen The previous screen to return to when the exit button is pressed
+     */
+    public void reset(Screen previousScreen) {
+        this.previousScreen = previousScreen;
+        musicSlider.setValue(game.soundManager.getMusicVolume()*100);
+        sfxSlider.setValue(game.soundManager.getSfxVolume()*100);
+        uiSlider.setValue(game.soundManager.getUiVolume()*100);
+    }
+
     /**
      * Renders a settings screen to let the player configure music and sound volume
      * @param delta The time in seconds since the last render.
@@ -119,10 +149,6 @@ public class SettingsScreen implements Screen {
         optionStage.act(delta);
         optionStage.draw();
 
-        // Volumes should be between 0 and 1
-        game.soundManager.setMusicVolume(musicSlider.getValue() / 100);
-        game.soundManager.setSfxVolume(sfxSlider.getValue() / 100);
-
         camera.update();
 
     }
@@ -139,11 +165,16 @@ public class SettingsScreen implements Screen {
         viewport.update(width, height);
     }
 
-    // Other required methods
+    /**
+     * Takes the input whenever the settings are switched to
+     */
     @Override
     public void show() {
+        Gdx.input.setInputProcessor(optionStage);
     }
 
+    // Other required methods
+
     @Override
     public void hide() {
     }
@@ -157,7 +188,7 @@ public class SettingsScreen implements Screen {
     }
 
     /**
-     * Disposes of the option settings stage
+     * Disposes of the option settings stage, called by HustleGame when the game is closed
      */
     @Override
     public void dispose() {
@@ -0,0 +1,279 @@
+package com.skloch.game;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.Mesh;
+import com.badlogic.gdx.graphics.OrthographicCamera;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.VertexAttribute;
+import com.badlogic.gdx.graphics.VertexAttributes;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.graphics.glutils.ShaderProgram;
+import com.badlogic.gdx.maps.MapLayer;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.maps.tiled.TiledMapTile;
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.IntMap;
+import com.badlogic.gdx.utils.ObjectMap;
+
+/**
+ * Draws whole tile layers with a single quad each, using a shader to look up which tile to draw.
+ * Every layer is uploaded once as an 'index texture', one pixel per cell, storing where the cell's tile sits in its
+ * tileset image. The cost of drawing a layer is then the same no matter how many tiles are on screen.
+ * <p></p>
+ * If a layer uses tiles from more than one tileset image, one quad is drawn per tileset image it uses.
+ * Layers this renderer can't represent (rotated tiles, offsets, tiles of different sizes) are rejected in
+ * supportsLayer() and should be drawn with the OrthogonalTiledMapRenderer instead.
+ */
+public class ShaderMapRenderer implements Disposable {
+    private static final String VERTEX_SHADER =
+            "attribute vec4 " + ShaderProgram.POSITION_ATTRIBUTE + ";\n" +
+            "uniform mat4 u_projTrans;\n" +
+            "uniform vec2 u_tileWorldSize;\n" +
+            "varying vec2 v_mapCoord;\n" +
+            "void main() {\n" +
+            "    v_mapCoord = " + ShaderProgram.POSITION_ATTRIBUTE + ".xy / u_tileWorldSize;\n" +
+            "    gl_Position = u_projTrans * " + ShaderProgram.POSITION_ATTRIBUTE + ";\n" +
+            "}\n";
+
+    private static final String FRAGMENT_SHADER =
+            "#ifdef GL_ES\n" +
+            "precision highp float;\n" +
+            "#endif\n" +
+            "uniform sampler2D u_atlas;\n" +
+            "uniform sampler2D u_index;\n" +
+            "uniform vec2 u_mapSize;\n" +
+            "uniform vec2 u_tileSize;\n" +
+            "uniform vec2 u_atlasSize;\n" +
+            "uniform float u_opacity;\n" +
+            "varying vec2 v_mapCoord;\n" +
+            "void main() {\n" +
+            "    vec2 cell = floor(v_mapCoord);\n" +
+            "    vec4 index = texture2D(u_index, (cell + 0.5) / u_mapSize);\n" +
+            "    if (index.a < 0.5) discard;\n" +
+            "    vec2 tile = floor(index.rg * 255.0 + 0.5);\n" +
+            "    float flags = floor(index.b * 255.0 + 0.5);\n" +
+            "    vec2 inTile = fract(v_mapCoord);\n" +
+            "    if (mod(flags, 2.0) >= 1.0) inTile.x = 1.0 - inTile.x;\n" +
+            "    if (mod(floor(flags / 2.0), 2.0) >= 1.0) inTile.y = 1.0 - inTile.y;\n" +
+            // Rows in the tileset image go downwards while rows in the map go upwards
+            // Clamp half a texel inside the tile so neighbouring tiles never bleed in
+            "    vec2 local = clamp(vec2(inTile.x, 1.0 - inTile.y) * u_tileSize, vec2(0.5), u_tileSize - 0.5);\n" +
+            "    vec4 colour = texture2D(u_atlas, (tile * u_tileSize + local) / u_atlasSize);\n" +
+            "    gl_FragColor = vec4(colour.rgb, colour.a * u_opacity);\n" +
+            "}\n";
+
+    private static final int FLIP_X = 1;
+    private static final int FLIP_Y = 2;
+
+    private final ShaderProgram shader;
+    private final Mesh quad;
+    private final TiledMap map;
+    private final float tileWorldWidth, tileWorldHeight;
+    private final int mapWidth, mapHeight;
+    private final float tilePixelWidth, tilePixelHeight;
+    // Index textures for each uploaded layer, one per tileset image used in that layer
+    private final IntMap<Array<LayerPart>> layerParts;
+    private OrthographicCamera camera;
+
+    /**
+     * A part of a layer that uses a single tileset image
+     */
+    private static class LayerPart {
+        Texture atlas;
+        Texture index;
+        float opacity;
+    }
+
+    /**
+     * Creates a renderer and uploads an index texture for each of the given layers.
+     * Call supportsLayer() first to check a layer can be drawn with a shader.
+     *
+     * @param map The map to draw
+     * @param layers The indexes of the tile layers that should be drawn with this renderer
+     * @param unitScale The scale the map is drawn at, the same as passed to OrthogonalTiledMapRenderer
+     */
+    public ShaderMapRenderer(TiledMap map, int[] layers, float unitScale) {
+        this.map = map;
+
+        shader = new ShaderProgram(VERTEX_SHADER, FRAGMENT_SHADER);
+        if (!shader.isCompiled()) {
+            throw new IllegalStateException("Couldn't compile tile layer shader: " + shader.getLog());
+        }
+
+        TiledMapTileLayer firstLayer = (TiledMapTileLayer) map.getLayers().get(layers.length > 0 ? layers[0] : 0);
+        mapWidth = firstLayer.getWidth();
+        mapHeight = firstLayer.getHeight();
+        tilePixelWidth = firstLayer.getTileWidth();
+        tilePixelHeight = firstLayer.getTileHeight();
+        tileWorldWidth = tilePixelWidth * unitScale;
+        tileWorldHeight = tilePixelHeight * unitScale;
+
+        // A single quad covering the whole map, anything off screen is clipped before the fragment shader runs
+        float width = mapWidth * tileWorldWidth;
+        float height = mapHeight * tileWorldHeight;
+        quad = new Mesh(true, 4, 6, new VertexAttribute(VertexAttributes.Usage.Position, 2, ShaderProgram.POSITION_ATTRIBUTE));
+        quad.setVertices(new float[] {0, 0, 0, height, width, height, width, 0});
+        quad.setIndices(new short[] {0, 1, 2, 2, 3, 0});
+
+        layerParts = new IntMap<Array<LayerPart>>();
+        for (int layer : layers) {
+            if (supportsLayer(map, layer)) {
+                layerParts.put(layer, uploadLayer((TiledMapTileLayer) map.getLayers().get(layer)));
+            } else {
+                System.out.println("WARNING: Layer " + layer + " can't be drawn with a shader");
+            }
+        }
+    }
+
+    /**
+     * Checks whether a layer can be represented as an index texture.
+     * The layer needs to be a tile layer with no offsets, with every tile the same size as the map's grid,
+     * no rotated tiles, and no tileset wider or taller than 255 tiles.
+     *
+     * @param map The map the layer is in
+     * @param layerIndex The index of the layer
+     * @return true if the layer can be drawn by this renderer
+     */
+    public static boolean supportsLayer(TiledMap map, int layerIndex) {
+        MapLayer mapLayer = map.getLayers().get(layerIndex);
+        if (!(mapLayer instanceof TiledMapTileLayer)) {
+            return false;
+        }
+        TiledMapTileLayer layer = (TiledMapTileLayer) mapLayer;
+        if (layer.getOffsetX() != 0 || layer.getOffsetY() != 0) {
+            return false;
+        }
+        for (int y = 0; y < layer.getHeight(); y++) {
+            for (int x = 0; x < layer.getWidth(); x++) {
+                TiledMapTileLayer.Cell cell = layer.getCell(x, y);
+                if (cell == null || cell.getTile() == null) {
+                    continue;
+                }
+                TiledMapTile tile = cell.getTile();
+                TextureRegion region = tile.getTextureRegion();
+                if (cell.getRotation() != 0 || tile.getOffsetX() != 0 || tile.getOffsetY() != 0
+                        || region.getRegionWidth() != layer.getTileWidth()
+                        || region.getRegionHeight() != layer.getTileHeight()
+                        || region.getRegionX() % layer.getTileWidth() != 0
+                        || region.getRegionY() % layer.getTileHeight() != 0
+                        || region.getRegionX() / layer.getTileWidth() > 255
+                        || region.getRegionY() / layer.getTileHeight() > 255) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Builds an index texture for each tileset image used in a layer.
+     * Each pixel stores the column and row of the tile in red and green, flip flags in blue and
+     * whether there is a tile in alpha.
+     */
+    private Array<LayerPart> uploadLayer(TiledMapTileLayer layer) {
+        ObjectMap<Texture, Pixmap> pixmaps = new ObjectMap<Texture, Pixmap>();
+
+        for (int y = 0; y < layer.getHeight(); y++) {
+            for (int x = 0; x < layer.getWidth(); x++) {
+                TiledMapTileLayer.Cell cell = layer.getCell(x, y);
+                if (cell == null || cell.getTile() == null) {
+                    continue;
+                }
+                TextureRegion region = cell.getTile().getTextureRegion();
+                Pixmap pixmap = pixmaps.get(region.getTexture());
+                if (pixmap == null) {
+                    pixmap = new Pixmap(layer.getWidth(), layer.getHeight(), Pixmap.Format.RGBA8888);
+                    pixmap.setBlending(Pixmap.Blending.None);
+                    pixmaps.put(region.getTexture(), pixmap);
+                }
+
+                int column = region.getRegionX() / layer.getTileWidth();
+                int row = region.getRegionY() / layer.getTileHeight();
+                int flags = (cell.getFlipHorizontally() ? FLIP_X : 0) | (cell.getFlipVertically() ? FLIP_Y : 0);
+                // Row y of the pixmap is sampled at v = y / height, so map cells can be written as is
+                pixmap.drawPixel(x, y, (column << 24) | (row << 16) | (flags << 8) | 0xff);
+            }
+        }
+
+        Array<LayerPart> parts = new Array<LayerPart>();
+        for (ObjectMap.Entry<Texture, Pixmap> entry : pixmaps.entries()) {
+            LayerPart part = new LayerPart();
+            part.atlas = entry.key;
+            part.index = new Texture(entry.value);
+            part.index.setFilter(Texture.TextureFilter.Nearest, Texture.TextureFilter.Nearest);
+            part.index.setWrap(Texture.TextureWrap.ClampToEdge, Texture.TextureWrap.ClampToEdge);
+            part.opacity = layer.getOpacity();
+            parts.add(part);
+            entry.value.dispose();
+        }
+        return parts;
+    }
+
+    /**
+     * @param layer The index of a layer in the map
+     * @return true if the layer was uploaded and will be drawn by render()
+     */
+    public boolean hasLayer(int layer) {
+        return layerParts.containsKey(layer);
+    }
+
+    /**
+     * Sets the camera to draw the map from, call once a frame before render()
+     *
+     * @param camera The camera the map is being viewed through
+     */
+    public void setView(OrthographicCamera camera) {
+        this.camera = camera;
+    }
+
+    /**
+     * Draws the given layers in order, any layers that weren't uploaded are skipped
+     *
+     * @param layers The indexes of the layers to draw
+     */
+    public void render(int[] layers) {
+        Gdx.gl.glEnable(GL20.GL_BLEND);
+        Gdx.gl.glBlendFunc(GL20.GL_SRC_ALPHA, GL20.GL_ONE_MINUS_SRC_ALPHA);
+
+        shader.bind();
+        shader.setUniformMatrix("u_projTrans", camera.combined);
+        shader.setUniformf("u_tileWorldSize", tileWorldWidth, tileWorldHeight);
+        shader.setUniformf("u_mapSize", mapWidth, mapHeight);
+        shader.setUniformf("u_tileSize", tilePixelWidth, tilePixelHeight);
+        shader.setUniformi("u_atlas", 0);
+        shader.setUniformi("u_index", 1);
+
+        for (int layer : layers) {
+            Array<LayerPart> parts = layerParts.get(layer);
+            if (parts == null || !map.getLayers().get(layer).isVisible()) {
+                continue;
+            }
+            for (int i = 0; i < parts.size; i++) {
+                LayerPart part = parts.get(i);
+                part.index.bind(1);
+                part.atlas.bind(0);
+                shader.setUniformf("u_atlasSize", part.atlas.getWidth(), part.atlas.getHeight());
+                shader.setUniformf("u_opacity", part.opacity);
+                quad.render(shader, GL20.GL_TRIANGLES);
+            }
+        }
+    }
+
+    /**
+     * Disposes of the shader, quad and index textures. Tileset images belong to the map so are left alone.
+     */
+    @Override
+    public void dispose() {
+        for (Array<LayerPart> parts : layerParts.values()) {
+            for (LayerPart part : parts) {
+                part.index.dispose();
+            }
+        }
+        shader.dispose();
+        quad.dispose();
+    }
+}
@@ -1,105 +1,224 @@
 package com.skloch.game;
 
-import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.assets.AssetManager;
 import com.badlogic.gdx.audio.Music;
 import com.badlogic.gdx.audio.Sound;
+import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.Disposable;
 
 /**
  * A class handling loading, playing and disposing of sounds.
+ * Sound effects are played through a SoundPool, so only a limited number play at once.
+ * <p></p>
+ * Everything is mixed on one of three buses, each with its own volume: music, sound effects from the game, and the
+ * user interface. Music is played as MusicTracks that crossfade into each other over a few frames, see update().
  */
 public class SoundManager implements Disposable {
     public Music overworldMusic, menuMusic;
-    private Sound footstep1, footstep2;
-    public boolean footstepBool;
+    public final MusicTrack overworldTrack, menuTrack;
+    // Every track, so update() can fade them
+    private final Array<MusicTrack> tracks = new Array<MusicTrack>();
+    // How long music takes to fade in or out, in seconds
+    public static final float MUSIC_FADE = 1f;
+    // The footstep sounds for each surface, see Surfaces, played in turn
+    private final SoundPool.Effect[][] footsteps = new SoundPool.Effect[Surfaces.COUNT][];
+    private int footstepVariant;
+    public boolean footstepBool; // Set while walking, cleared when the player stops so the next step starts afresh
     private float footstepTimer;
-    private float sfxVolume = 0.8f, musicVolume = 0.8f;
-    private Sound pauseSound, dialogueOpenSound, dialogueOptionSound, buttonSound;
+    // The volumes of the buses
+    private float sfxVolume = 0.8f, musicVolume = 0.8f, uiVolume = 0.8f;
+    private SoundPool.Effect pauseSound, dialogueOpenSound, dialogueOptionSound, buttonSound;
+    // The desktop backend has 16 sources by default, this leaves room for both pieces of music to play at once
+    public static final int MAX_VOICES = 12;
+    // How far away a sound in the world can be heard, in world units, about 10 tiles
+    public static final float HEARING_RANGE = 700;
+    private final SoundPool pool = new SoundPool(MAX_VOICES, HEARING_RANGE);
 
     /**
      * A class to handle playing sounds in the game, handles loading and playing of music and sounds
      * so a GameScreen can just call "play overworld music" without needing to know the track title.
-     * Also handles disposing sounds and music
-     */
-    public SoundManager () {
-        // Load music
-        overworldMusic = Gdx.audio.newMusic(Gdx.files.internal("Music/OverworldMusic.mp3"));
-        overworldMusic.setLooping(true);
-        menuMusic = Gdx.audio.newMusic(Gdx.files.internal("Music/Streetlights.ogg"));
-        menuMusic.setLooping(true);
-
-        // Load SFX
-        footstep1 = Gdx.audio.newSound(Gdx.files.internal("Sounds/footstep1 grass.ogg"));
-        footstep2 = Gdx.audio.newSound(Gdx.files.internal("Sounds/footstep2 grass.ogg"));
-
-        pauseSound = Gdx.audio.newSound(Gdx.files.internal("Sounds/Pause01.wav"));
-        dialogueOpenSound = Gdx.audio.newSound(Gdx.files.internal("Sounds/DialogueOpen.wav"));
-        dialogueOptionSound = Gdx.audio.newSound(Gdx.files.internal("Sounds/DialogueOption.wav"));
-        buttonSound = Gdx.audio.newSound(Gdx.files.internal("Sounds/Button.wav"));
+     * The sounds and music are loaded by, and belong to, the AssetManager
+     *
+     * @param assets The AssetManager the sounds have been loaded with, see Assets
+     */
+    public SoundManager (AssetManager assets) {
+        // Get music
+        overworldMusic = assets.get(Assets.OVERWORLD_MUSIC, Music.class);
+        menuMusic = assets.get(Assets.MENU_MUSIC, Music.class);
+        overworldTrack = addTrack(overworldMusic);
+        menuTrack = addTrack(menuMusic);
+
+        // Get SFX, with how important each is and roughly how long it lasts in seconds
+        // Footsteps are the first to go when too many sounds play at once, the interface is kept
+        SoundPool.Effect[] grass = {
+                new SoundPool.Effect(assets.get(Assets.FOOTSTEP_1, Sound.class), SoundPool.LOW, 0.25f),
+                new SoundPool.Effect(assets.get(Assets.FOOTSTEP_2, Sound.class), SoundPool.LOW, 0.2f)
+        };
+        SoundPool.Effect[] path = {
+                new SoundPool.Effect(assets.get(Assets.FOOTSTEP_PATH_1, Sound.class), SoundPool.LOW, 0.27f),
+                new SoundPool.Effect(assets.get(Assets.FOOTSTEP_PATH_2, Sound.class), SoundPool.LOW, 0.61f)
+        };
+        // Tiles without a surface sound like grass, as every footstep did before surfaces
+        footsteps[Surfaces.NONE] = grass;
+        footsteps[Surfaces.GRASS] = grass;
+        footsteps[Surfaces.PATH] = path;
+
+        pauseSound = new SoundPool.Effect(assets.get(Assets.PAUSE_SOUND, Sound.class), SoundPool.HIGH, 1.8f);
+        dialogueOpenSound = new SoundPool.Effect(assets.get(Assets.DIALOGUE_OPEN_SOUND, Sound.class), SoundPool.NORMAL, 1.05f);
+        dialogueOptionSound = new SoundPool.Effect(assets.get(Assets.DIALOGUE_OPTION_SOUND, Sound.class), SoundPool.HIGH, 0.16f);
+        buttonSound = new SoundPool.Effect(assets.get(Assets.BUTTON_SOUND, Sound.class), SoundPool.HIGH, 0.07f);
+    }
+
+    /**
+     * Adds a piece of music that can be crossfaded to, e.g. for a time of day, opening its stream now so it can start
+     * without a pause later. Call while loading
+     *
+     * @param music The music, loaded by the AssetManager
+     * @return The track to pass to crossfadeTo()
+     */
+    public MusicTrack addTrack (Music music) {
+        MusicTrack track = new MusicTrack(music);
+        track.prime();
+        tracks.add(track);
+        return track;
+    }
+
+    /**
+     * Fades the music and applies any volume changes, called once a frame by HustleGame
+     *
+     * @param delta The time since the last frame
+     */
+    public void update (float delta) {
+        for (MusicTrack track : tracks) {
+            track.update(delta, musicVolume);
+        }
+    }
+
+    /**
+     * Fades a track in while fading out any others playing
+     *
+     * @param track The track to play, e.g. overworldTrack
+     * @param seconds How long the crossfade takes
+     */
+    public void crossfadeTo (MusicTrack track, float seconds) {
+        for (MusicTrack other : tracks) {
+            if (other != track && other.isPlaying()) {
+                other.fadeTo(0, seconds);
+            }
+        }
+        track.fadeTo(1, seconds);
+    }
+
+    /**
+     * Fades a track out if it is playing
+     *
+     * @param track The track to fade out
+     * @param seconds How long the fade takes
+     */
+    public void fadeOut (MusicTrack track, float seconds) {
+        if (track.isPlaying()) {
+            track.fadeTo(0, seconds);
+        }
     }
 
     /**
-     * Sets the volume of the music
+     * Sets the volume of the music bus, it is applied to the music on the next update()
      * @param volume
      */
     public void setMusicVolume (float volume) {
         this.musicVolume = volume;
-        overworldMusic.setVolume(musicVolume);
-        menuMusic.setVolume(musicVolume);
     }
 
     /**
-     * Sets the sound effect volume
+     * Sets the volume of the sound effects bus
      * @param volume
      */
     public void setSfxVolume (float volume) {
         this.sfxVolume = volume;
     }
 
+    /**
+     * Sets the volume of the user interface bus
+     * @param volume
+     */
+    public void setUiVolume (float volume) {
+        this.uiVolume = volume;
+    }
+
     /**
      * A sound for when the pause menu appears
      */
-    public void playPauseSound() {pauseSound.play(sfxVolume);}
+    public void playPauseSound() {pool.play(pauseSound, uiVolume);}
 
     /**
      * A sound for when the dialogue box appears
      */
-    public void playDialogueOpen() {dialogueOpenSound.play(sfxVolume);}
+    public void playDialogueOpen() {pool.play(dialogueOpenSound, uiVolume);}
+
+    /**
+     * A sound for when the dialogue box appears after interacting with an object, coming from the object
+     *
+     * @param object The object interacted with
+     */
+    public void playDialogueOpen(GameObject object) {playAt(dialogueOpenSound, object);}
 
     /**
      * A sound for when the arrow in the selectBox is moved
      */
-    public void playDialogueOption() {dialogueOptionSound.play(sfxVolume);}
+    public void playDialogueOption() {pool.play(dialogueOptionSound, uiVolume);}
 
     /**
      * A sound for when a button is pressed
      */
-    public void playButton() {buttonSound.play(sfxVolume);}
+    public void playButton() {pool.play(buttonSound, uiVolume);}
+
+    /**
+     * Plays a sound from an object in the world, panned and quietened by how far it is from the player
+     *
+     * @param effect The sound to play
+     * @param object The object making the sound
+     */
+    public void playAt(SoundPool.Effect effect, GameObject object) {
+        pool.playAt(effect, sfxVolume, object.x + object.width / 2f, object.y + object.height / 2f);
+    }
 
     /**
-     * Plays the music for the overworld (main game)
+     * Moves where sounds in the world are heard from, call each frame with the centre of the player
+     *
+     * @param x The X coordinate of the listener
+     * @param y The Y coordinate of the listener
      */
-    public void playOverworldMusic() {overworldMusic.play();}
+    public void setListener(float x, float y) {pool.setListener(x, y);}
 
     /**
-     * Stops the music for the overworld
+     * @return How many sound effects are playing
      */
-    public void stopOverworldMusic() {overworldMusic.stop();}
+    public int getActiveVoices() {return pool.getActiveVoices();}
 
     /**
-     * Plays the music for the menu
+     * Fades in the music for the overworld (main game), fading out any other music
      */
-    public void playMenuMusic() {menuMusic.play();}
+    public void playOverworldMusic() {crossfadeTo(overworldTrack, MUSIC_FADE);}
 
     /**
-     * Stops the music for the menu
+     * Fades out the music for the overworld
      */
-    public void stopMenuMusic() {menuMusic.stop();}
+    public void stopOverworldMusic() {fadeOut(overworldTrack, MUSIC_FADE);}
 
     /**
-     * Pauses the overworld music, so it can be resumed from this point later
+     * Fades in the music for the menu, fading out any other music
      */
-    public void pauseOverworldMusic() {overworldMusic.pause();}
+    public void playMenuMusic() {crossfadeTo(menuTrack, MUSIC_FADE);}
+
+    /**
+     * Fades out the music for the menu
+     */
+    public void stopMenuMusic() {fadeOut(menuTrack, MUSIC_FADE);}
+
+    /**
+     * Pauses the overworld music at once, so it can be resumed from this point later
+     */
+    public void pauseOverworldMusic() {fadeOut(overworldTrack, 0);}
 
     /**
      * @return The current music volume
@@ -111,6 +230,11 @@ public class SoundManager implements Disposable {
      */
     public float getSfxVolume() {return sfxVolume;}
 
+    /**
+     * @return The current user interface volume
+     */
+    public float getUiVolume() {return uiVolume;}
+
     /**
      * Updates the timers for sounds that repeat regularly, needs to be called every render cycle.
      * Specifically handles triggering footsteps when the player is moving
@@ -126,35 +250,35 @@ public class SoundManager implements Disposable {
     }
 
     /**
-     * Plays an alternating footstep sound when the player is moving and the footstepTimer variable has hit zero.
-     * Uses two different SFX to sound more realistic and to allow the timing to be configured
+     * Plays a footstep sound for the ground the player is on when the player is moving and the footstepTimer
+     * variable has hit zero.
+     * Goes through different SFX for each surface in turn to sound more realistic and to allow the timing to be
+     * configured
+     *
+     * @param surface The surface under the player, see Surfaces
      */
-    public void playFootstep() {
+    public void playFootstep(int surface) {
         // If it is time to play a footstep, play one
         if (footstepTimer <= 0) {
             footstepTimer = 0.5f; // Delay between each footstep sound, increase to have slower steps
-            if (footstepBool == false) {
-                footstep1.play(sfxVolume);
-                footstepBool = true;
-            } else {
-                footstep2.play(sfxVolume);
-                footstepBool = false;
-            }
+            SoundPool.Effect[] variants = footsteps[surface];
+            // Start from the first variant after standing still
+            footstepVariant = footstepBool ? (footstepVariant + 1) % variants.length : 0;
+            footstepBool = true;
+            pool.play(variants[footstepVariant], sfxVolume);
         }
     }
 
 
     /**
-     * Disposes of all music and sound effects
+     * Stops any music and sounds playing. The sounds and music themselves, buttonSound included, are disposed of by
+     * the AssetManager that loaded them
      */
     @Override
     public void dispose () {
-        overworldMusic.dispose();
-        menuMusic.dispose();
-        footstep1.dispose();
-        footstep2.dispose();
-        pauseSound.dispose();
-        dialogueOpenSound.dispose();
-        dialogueOptionSound.dispose();
+        pool.stopAll();
+        for (MusicTrack track : tracks) {
+            track.music.stop();
+        }
     }
 }
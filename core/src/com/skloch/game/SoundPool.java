@@ -0,0 +1,221 @@
+package com.skloch.game;
+
+import com.badlogic.gdx.audio.Sound;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.TimeUtils;
+
+/**
+ * Plays sound effects on a fixed number of voices, so a burst of sounds can't run the audio backend out of sources.
+ * When every voice is busy, the oldest voice playing the least important sound is stopped to make room, unless
+ * every voice is playing something more important, in which case the new sound is dropped.
+ * <p></p>
+ * Sounds can also be played at a position in the world, then they are panned and quietened by how far they are
+ * from the listener, usually the player. Nothing is allocated while playing, so sounds can be played every tick.
+ */
+public class SoundPool {
+    /**
+     * A sound effect and how the pool should treat it
+     */
+    public static class Effect {
+        public final Sound sound;
+        public final int priority; // Higher priority sounds steal voices from lower ones
+        public final float length; // In seconds, libGDX can't tell when a sound has finished so it has to be given
+        private long lastPlayedNanos;
+
+        /**
+         * @param sound The sound to play, loaded by the AssetManager
+         * @param priority How important the sound is, see the constants in SoundPool
+         * @param length Roughly how long the sound is in seconds
+         */
+        public Effect(Sound sound, int priority, float length) {
+            this.sound = sound;
+            this.priority = priority;
+            this.length = length;
+        }
+    }
+
+    // Priorities for Effects
+    public static final int LOW = 0, NORMAL = 1, HIGH = 2;
+    // The same effect started again this soon after itself is dropped, it would only sound louder
+    private static final long RETRIGGER_NANOS = 30000000; // 30ms
+
+    private static class Voice {
+        Effect effect; // null if the voice is free
+        long id;
+        long startNanos, endNanos;
+        boolean positional;
+        float x, y, volume;
+    }
+
+    private final Voice[] voices;
+    private final float range;
+    private float listenerX, listenerY;
+
+    /**
+     * @param maxVoices How many sounds can play at once, fewer than the audio backend's sources so music has room
+     * @param range How far away a positional sound can be heard from, in world units
+     */
+    public SoundPool(int maxVoices, float range) {
+        this.range = range;
+        voices = new Voice[maxVoices];
+        for (int i = 0; i < maxVoices; i++) {
+            voices[i] = new Voice();
+        }
+    }
+
+    /**
+     * Plays an effect
+     *
+     * @param effect The effect to play
+     * @param volume The volume from 0 to 1
+     * @return The id of the sound played, or -1 if it was dropped
+     */
+    public long play(Effect effect, float volume) {
+        Voice voice = getVoice(effect);
+        if (voice == null) {
+            return -1;
+        }
+        voice.positional = false;
+        return start(voice, effect, volume, 0);
+    }
+
+    /**
+     * Plays an effect at a position in the world, panned and quietened by how far it is from the listener.
+     * Effects out of range aren't played at all, so they don't take a voice
+     *
+     * @param effect The effect to play
+     * @param volume The volume from 0 to 1 at the listener's position
+     * @param x The X coordinate of the sound
+     * @param y The Y coordinate of the sound
+     * @return The id of the sound played, or -1 if it was out of range or dropped
+     */
+    public long playAt(Effect effect, float volume, float x, float y) {
+        float attenuation = getAttenuation(x, y);
+        if (attenuation <= 0) {
+            return -1;
+        }
+        Voice voice = getVoice(effect);
+        if (voice == null) {
+            return -1;
+        }
+        voice.positional = true;
+        voice.x = x;
+        voice.y = y;
+        voice.volume = volume;
+        return start(voice, effect, volume * attenuation, getPan(x));
+    }
+
+    /**
+     * Finds a voice for an effect: a free one if there is one, otherwise steals the oldest voice of the lowest
+     * priority, as long as that isn't more important than the effect
+     *
+     * @return The voice, or null if the effect should be dropped
+     */
+    private Voice getVoice(Effect effect) {
+        long now = TimeUtils.nanoTime();
+        if (effect.lastPlayedNanos != 0 && now - effect.lastPlayedNanos < RETRIGGER_NANOS) {
+            return null;
+        }
+
+        Voice steal = null;
+        for (Voice voice : voices) {
+            if (voice.effect == null || now >= voice.endNanos) {
+                voice.effect = null;
+                return voice;
+            }
+            if (voice.effect.priority > effect.priority) {
+                continue;
+            }
+            if (steal == null || voice.effect.priority < steal.effect.priority
+                    || (voice.effect.priority == steal.effect.priority && voice.startNanos < steal.startNanos)) {
+                steal = voice;
+            }
+        }
+        if (steal != null) {
+            steal.effect.sound.stop(steal.id);
+            steal.effect = null;
+        }
+        return steal;
+    }
+
+    private long start(Voice voice, Effect effect, float volume, float pan) {
+        long id = effect.sound.play(volume, 1, pan);
+        if (id == -1) {
+            // The backend had no source free after all
+            return -1;
+        }
+        long now = TimeUtils.nanoTime();
+        effect.lastPlayedNanos = now;
+        voice.effect = effect;
+        voice.id = id;
+        voice.startNanos = now;
+        voice.endNanos = now + (long) (effect.length * 1e9f);
+        return id;
+    }
+
+    /**
+     * Moves the listener, re-panning any positional sounds still playing, call once a frame
+     *
+     * @param x The X coordinate of the listener, e.g. the centre of the player
+     * @param y The Y coordinate of the listener
+     */
+    public void setListener(float x, float y) {
+        if (x == listenerX && y == listenerY) {
+            return;
+        }
+        listenerX = x;
+        listenerY = y;
+        long now = TimeUtils.nanoTime();
+        for (Voice voice : voices) {
+            if (voice.effect == null || !voice.positional) {
+                continue;
+            }
+            if (now >= voice.endNanos) {
+                voice.effect = null;
+                continue;
+            }
+            voice.effect.sound.setPan(voice.id, getPan(voice.x), voice.volume * Math.max(getAttenuation(voice.x, voice.y), 0));
+        }
+    }
+
+    /**
+     * @return How much quieter a sound at this position is, from 1 at the listener to 0 at the edge of the range
+     */
+    private float getAttenuation(float x, float y) {
+        return 1 - Vector2.dst(listenerX, listenerY, x, y) / range;
+    }
+
+    /**
+     * @return -1 for a sound fully to the left of the listener, 1 for fully to the right
+     */
+    private float getPan(float x) {
+        return MathUtils.clamp((x - listenerX) / range, -1, 1);
+    }
+
+    /**
+     * @return How many voices are playing
+     */
+    public int getActiveVoices() {
+        long now = TimeUtils.nanoTime();
+        int count = 0;
+        for (Voice voice : voices) {
+            if (voice.effect != null && now < voice.endNanos) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Stops every sound playing
+     */
+    public void stopAll() {
+        for (Voice voice : voices) {
+            if (voice.effect != null) {
+                voice.effect.sound.stop(voice.id);
+                voice.effect = null;
+            }
+        }
+    }
+}
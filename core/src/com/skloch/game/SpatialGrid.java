@@ -0,0 +1,120 @@
+package com.skloch.game;
+
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * A uniform grid that buckets GameObjects by the map tiles they cover, so only objects near an area need to be checked.
+ * Objects covering several cells are stored in each of them. Anything outside the grid is stored in the nearest
+ * edge cell, so it can still be found.
+ */
+public class SpatialGrid {
+    private final int cellsX, cellsY;
+    private final float cellSize;
+    private final Array<GameObject>[] cells;
+    private int queryStamp = 0;
+
+    /**
+     * Creates an empty grid covering a map
+     *
+     * @param cellsX The width of the grid in cells, usually the width of the map in tiles
+     * @param cellsY The height of the grid in cells
+     * @param cellSize The width and height of a cell in world units, usually the size a tile is drawn at
+     */
+    @SuppressWarnings("unchecked")
+    public SpatialGrid(int cellsX, int cellsY, float cellSize) {
+        this.cellsX = Math.max(cellsX, 1);
+        this.cellsY = Math.max(cellsY, 1);
+        this.cellSize = cellSize;
+        cells = new Array[this.cellsX * this.cellsY];
+    }
+
+    /**
+     * Adds an object to every cell its rectangle overlaps
+     *
+     * @param object The object to add
+     */
+    public void add(GameObject object) {
+        int firstX = cellX(object.x), lastX = cellX(object.x + object.width);
+        int firstY = cellY(object.y), lastY = cellY(object.y + object.height);
+        for (int y = firstY; y <= lastY; y++) {
+            for (int x = firstX; x <= lastX; x++) {
+                int index = y * cellsX + x;
+                if (cells[index] == null) {
+                    cells[index] = new Array<GameObject>(false, 4);
+                }
+                cells[index].add(object);
+            }
+        }
+    }
+
+    /**
+     * Removes an object from every cell it was added to, it must not have moved since
+     *
+     * @param object The object to remove
+     */
+    public void remove(GameObject object) {
+        int firstX = cellX(object.x), lastX = cellX(object.x + object.width);
+        int firstY = cellY(object.y), lastY = cellY(object.y + object.height);
+        for (int y = firstY; y <= lastY; y++) {
+            for (int x = firstX; x <= lastX; x++) {
+                Array<GameObject> cell = cells[y * cellsX + x];
+                if (cell != null) {
+                    cell.removeValue(object, true);
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes every object from the grid
+     */
+    public void clear() {
+        for (Array<GameObject> cell : cells) {
+            if (cell != null) {
+                cell.clear();
+            }
+        }
+    }
+
+    /**
+     * Finds every object stored in a cell that an area touches. The objects are only candidates, they still need to
+     * be checked for overlap. Each object is only returned once.
+     *
+     * @param area The area to search
+     * @param results An array to put the objects in, it is cleared first
+     * @return results, for convenience
+     */
+    public Array<GameObject> query(Rectangle area, Array<GameObject> results) {
+        results.clear();
+        // Stamp objects as they are found so objects spanning several cells aren't returned twice
+        queryStamp++;
+        int firstX = cellX(area.x), lastX = cellX(area.x + area.width);
+        int firstY = cellY(area.y), lastY = cellY(area.y + area.height);
+        for (int y = firstY; y <= lastY; y++) {
+            for (int x = firstX; x <= lastX; x++) {
+                Array<GameObject> cell = cells[y * cellsX + x];
+                if (cell == null) {
+                    continue;
+                }
+                for (int i = 0; i < cell.size; i++) {
+                    GameObject object = cell.get(i);
+                    if (object.queryStamp != queryStamp) {
+                        object.queryStamp = queryStamp;
+                        results.add(object);
+                    }
+                }
+            }
+        }
+        return results;
+    }
+
+    private int cellX(float worldX) {
+        return MathUtils.clamp((int) Math.floor(worldX / cellSize), 0, cellsX - 1);
+    }
+
+    private int cellY(float worldY) {
+        return MathUtils.clamp((int) Math.floor(worldY / cellSize), 0, cellsY - 1);
+    }
+}
@@ -0,0 +1,258 @@
+package com.skloch.game;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.maps.MapProperties;
+import com.badlogic.gdx.maps.tiled.TiledMapTile;
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.IntArray;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A map baked by MapBaker, split into square chunks of tiles that can be loaded one at a time, for maps too big to
+ * load as a whole TiledMap. Only the header is read when opened: the tile ids stay in the memory mapped file until
+ * a chunk is loaded, so the OS pages them in and out instead of them taking up memory.
+ * <p></p>
+ * The objects are indexed by every chunk they overlap, so a chunk knows which objects to add when it is loaded.
+ * Nothing here changes once it is opened, so chunks can be loaded from any thread. See MapStreamer, which loads and
+ * evicts the chunks around the player.
+ */
+public class StreamedMap implements Disposable {
+    // Rough sizes on the heap, to keep loaded chunks under a memory budget
+    private static final int CELL_BYTES = 32; // A Cell and the reference to it
+    private static final int SLOT_BYTES = 4; // An empty slot in a layer
+
+    public final int width, height; // In tiles
+    public final int tileWidth, tileHeight; // In pixels
+    public final int chunkSize, chunksX, chunksY;
+    // The size and layer groups, the same properties a TiledMap from BakedMapLoader would have
+    public final MapProperties properties;
+    public final MapProperties spawn; // The spawn object, or null if the map has none
+    private final ByteBuffer buffer;
+    private final int[] layerPositions; // Where each tile layer's tiles start in the file, -1 for object layers
+    private final String[] layerNames;
+    private final boolean[] layerVisible;
+    private final float[] layerOpacity;
+    private final String[] images;
+    private final TextureCache textures;
+    private final Array<TiledMapTile> tiles;
+    private final Array<MapProperties> objects;
+    private final IntArray[] chunkObjects; // The objects overlapping each chunk, null for none
+
+    /**
+     * The tiles and objects of one chunk of the map
+     */
+    public static class Chunk {
+        public final int x, y;
+        // Indexed the same as the map's layers, null for object layers
+        public TiledMapTileLayer[] layers;
+        // The objects overlapping this chunk, see getObject(), or null for none
+        public IntArray objects;
+        public long bytes; // Roughly how much memory the chunk takes up
+
+        Chunk(int x, int y) {
+            this.x = x;
+            this.y = y;
+        }
+    }
+
+    /**
+     * Opens a baked map and reads its header and objects, acquiring its tileset images
+     *
+     * @param file The baked map, e.g. Assets.BAKED_MAP
+     * @param textures Where to get the tileset images, they are released in dispose()
+     * @param chunkSize The width and height of a chunk in tiles
+     */
+    public StreamedMap(FileHandle file, TextureCache textures, int chunkSize) {
+        this.textures = textures;
+        this.chunkSize = chunkSize;
+        buffer = BakedMapLoader.map(file);
+        if (buffer.getInt() != BakedMapLoader.MAGIC) {
+            throw new GdxRuntimeException(file.path() + " is not a baked map");
+        }
+        int version = buffer.getInt();
+        if (version != BakedMapLoader.VERSION) {
+            throw new GdxRuntimeException(file.path() + " was baked with an unsupported version: " + version + ", run gradle core:bakeMap again");
+        }
+        width = buffer.getInt();
+        height = buffer.getInt();
+        tileWidth = buffer.getInt();
+        tileHeight = buffer.getInt();
+        chunksX = (width + chunkSize - 1) / chunkSize;
+        chunksY = (height + chunkSize - 1) / chunkSize;
+
+        // Every tile is made once up front and shared by the chunks, there are only as many as the tilesets hold
+        int tilesetCount = buffer.getInt();
+        images = new String[tilesetCount];
+        tiles = new Array<TiledMapTile>();
+        tiles.add(null); // gid 0 is an empty cell
+        for (int i = 0; i < tilesetCount; i++) {
+            int firstGid = buffer.getInt();
+            images[i] = file.parent().child(BakedMapLoader.readString(buffer)).path();
+            Texture texture = textures.acquire(images[i], Texture.class);
+            texture.setFilter(Texture.TextureFilter.Nearest, Texture.TextureFilter.Nearest);
+            BakedMapLoader.cutTileset(images[i], texture, firstGid, tileWidth, tileHeight, tiles);
+        }
+
+        properties = new MapProperties();
+        properties.put("width", width);
+        properties.put("height", height);
+        properties.put("tilewidth", tileWidth);
+        properties.put("tileheight", tileHeight);
+        properties.put("backgroundLayers", BakedMapLoader.readInts(buffer));
+        properties.put("foregroundLayers", BakedMapLoader.readInts(buffer));
+        properties.put("objectLayers", BakedMapLoader.readInts(buffer));
+        properties.put("surfaces", BakedMapLoader.readBytes(buffer));
+
+        // Note where each tile layer is and skip over it, only the objects are read now
+        int layerCount = buffer.getInt();
+        layerPositions = new int[layerCount];
+        layerNames = new String[layerCount];
+        layerVisible = new boolean[layerCount];
+        layerOpacity = new float[layerCount];
+        objects = new Array<MapProperties>();
+        MapProperties spawnObject = null;
+        for (int i = 0; i < layerCount; i++) {
+            byte type = buffer.get();
+            layerNames[i] = BakedMapLoader.readString(buffer);
+            layerVisible[i] = buffer.get() != 0;
+            layerOpacity[i] = buffer.getFloat();
+            if (type == BakedMapLoader.TILE_LAYER) {
+                layerPositions[i] = buffer.position();
+                buffer.position(buffer.position() + width * height * 2);
+            } else {
+                layerPositions[i] = -1;
+                int objectCount = buffer.getInt();
+                for (int j = 0; j < objectCount; j++) {
+                    MapProperties object = BakedMapLoader.readProperties(buffer);
+                    // The spawn point isn't collided with, so it doesn't belong to a chunk, and portals are
+                    // ignored while streaming
+                    if (object.get("spawn") != null) {
+                        spawnObject = object;
+                    } else if (!World.isMarker(object)) {
+                        objects.add(object);
+                    }
+                }
+            }
+        }
+        spawn = spawnObject;
+
+        chunkObjects = new IntArray[chunksX * chunksY];
+        for (int i = 0; i < objects.size; i++) {
+            indexObject(i);
+        }
+    }
+
+    /**
+     * Adds an object to every chunk it overlaps
+     */
+    private void indexObject(int index) {
+        MapProperties object = objects.get(index);
+        float x = object.get("x", 0f, Float.class), y = object.get("y", 0f, Float.class);
+        float right = x + object.get("width", 0f, Float.class), top = y + object.get("height", 0f, Float.class);
+        int lastX = getChunkX(right), lastY = getChunkY(top);
+        for (int chunkY = getChunkY(y); chunkY <= lastY; chunkY++) {
+            for (int chunkX = getChunkX(x); chunkX <= lastX; chunkX++) {
+                int key = getKey(chunkX, chunkY);
+                if (chunkObjects[key] == null) {
+                    chunkObjects[key] = new IntArray(4);
+                }
+                chunkObjects[key].add(index);
+            }
+        }
+    }
+
+    /**
+     * Reads a chunk's tiles out of the file. Can be called from any thread
+     *
+     * @param chunkX The chunk's column, from 0 to chunksX - 1
+     * @param chunkY The chunk's row from the bottom, from 0 to chunksY - 1
+     * @return The chunk, with a layer for each of the map's tile layers
+     */
+    public Chunk loadChunk(int chunkX, int chunkY) {
+        Chunk chunk = new Chunk(chunkX, chunkY);
+        int startX = chunkX * chunkSize;
+        int startY = chunkY * chunkSize;
+        int chunkWidth = Math.min(chunkSize, width - startX);
+        int chunkHeight = Math.min(chunkSize, height - startY);
+        int cells = 0;
+
+        chunk.layers = new TiledMapTileLayer[layerPositions.length];
+        for (int i = 0; i < layerPositions.length; i++) {
+            if (layerPositions[i] == -1) {
+                continue;
+            }
+            TiledMapTileLayer layer = new TiledMapTileLayer(chunkWidth, chunkHeight, tileWidth, tileHeight);
+            layer.setName(layerNames[i]);
+            layer.setVisible(layerVisible[i]);
+            layer.setOpacity(layerOpacity[i]);
+            // Move the layer to where the chunk is in the map, Tiled's y offsets go downwards
+            layer.setOffsetX(startX * tileWidth);
+            layer.setOffsetY(-startY * tileHeight);
+            for (int y = 0; y < chunkHeight; y++) {
+                // Rows are stored from the bottom up, read with absolute gets so threads don't share a position
+                int row = layerPositions[i] + ((startY + y) * width + startX) * 2;
+                for (int x = 0; x < chunkWidth; x++) {
+                    int value = buffer.getShort(row + x * 2) & 0xFFFF;
+                    int gid = value & BakedMapLoader.GID_MASK;
+                    if (gid == 0 || gid >= tiles.size) {
+                        continue;
+                    }
+                    layer.setCell(x, y, BakedMapLoader.makeCell(tiles.get(gid), value));
+                    cells++;
+                }
+            }
+            chunk.layers[i] = layer;
+            chunk.bytes += (long) chunkWidth * chunkHeight * SLOT_BYTES;
+        }
+        chunk.bytes += (long) cells * CELL_BYTES;
+        chunk.objects = chunkObjects[getKey(chunkX, chunkY)];
+        return chunk;
+    }
+
+    /**
+     * @param index An index from a chunk's objects
+     * @return The object's properties, with x, y, width and height in pixels like a TiledMap's objects
+     */
+    public MapProperties getObject(int index) {
+        return objects.get(index);
+    }
+
+    /**
+     * @param pixelX An x coordinate on the map in pixels, not scaled to the world
+     * @return The column of the chunk it is in, clamped to the map
+     */
+    public int getChunkX(float pixelX) {
+        return MathUtils.clamp((int) Math.floor(pixelX / (chunkSize * tileWidth)), 0, chunksX - 1);
+    }
+
+    /**
+     * @param pixelY A y coordinate on the map in pixels, from the bottom
+     * @return The row of the chunk it is in, clamped to the map
+     */
+    public int getChunkY(float pixelY) {
+        return MathUtils.clamp((int) Math.floor(pixelY / (chunkSize * tileHeight)), 0, chunksY - 1);
+    }
+
+    /**
+     * @return A number identifying a chunk, unique within this map
+     */
+    public int getKey(int chunkX, int chunkY) {
+        return chunkY * chunksX + chunkX;
+    }
+
+    /**
+     * Gives back the tileset images
+     */
+    @Override
+    public void dispose() {
+        for (String image : images) {
+            textures.release(image);
+        }
+    }
+}
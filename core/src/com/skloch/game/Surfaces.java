@@ -0,0 +1,140 @@
+package com.skloch.game;
+
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.maps.MapProperties;
+import com.badlogic.gdx.maps.tiled.TiledMapTile;
+import com.badlogic.gdx.maps.tiled.TiledMapTileSet;
+import com.badlogic.gdx.maps.tiled.TiledMapTileSets;
+import com.badlogic.gdx.utils.XmlReader;
+
+/**
+ * The kinds of ground the player can walk on, so footsteps can sound different on each.
+ * A tile's surface is set in Tiled with a "surface" property, either on the tile or on its whole tileset, e.g.
+ * surface = grass. The properties are read once when a map is loaded into a table with an entry for every tile id,
+ * so finding the surface of a tile while playing is just an array read.
+ */
+public class Surfaces {
+    public static final int NONE = 0, GRASS = 1, PATH = 2;
+    public static final int COUNT = 3;
+    // The "surface" property values, by surface
+    private static final String[] NAMES = {"none", "grass", "path"};
+
+    /**
+     * Reads the surface of every tile in a map's tilesets, used by MapBaker to bake the table into the map
+     *
+     * @param tmxFile The .tmx map, its tilesets are read from the .tsx files it uses
+     * @return A table of surfaces indexed by tile id (the map's gid), NONE for tiles without one
+     */
+    public static byte[] load(FileHandle tmxFile) {
+        XmlReader reader = new XmlReader();
+        XmlReader.Element map = reader.parse(tmxFile);
+
+        // Read the tilesets first to find the highest tile id
+        XmlReader.Element[] tilesets = new XmlReader.Element[map.getChildCount()];
+        int[] firstGids = new int[tilesets.length];
+        int tilesetCount = 0;
+        int size = 1;
+        for (XmlReader.Element tileset : map.getChildrenByName("tileset")) {
+            firstGids[tilesetCount] = tileset.getIntAttribute("firstgid", 1);
+            String source = tileset.getAttribute("source", null);
+            if (source != null) {
+                tileset = reader.parse(tmxFile.parent().child(source));
+            }
+            tilesets[tilesetCount] = tileset;
+            size = Math.max(size, firstGids[tilesetCount] + tileset.getIntAttribute("tilecount", 0));
+            tilesetCount++;
+        }
+
+        byte[] surfaces = new byte[size];
+        for (int i = 0; i < tilesetCount; i++) {
+            XmlReader.Element tileset = tilesets[i];
+            int firstGid = firstGids[i];
+            // The tileset's surface is the default for its tiles
+            int surface = getSurface(tileset);
+            if (surface != NONE) {
+                int last = firstGid + tileset.getIntAttribute("tilecount", 0);
+                for (int gid = firstGid; gid < last; gid++) {
+                    surfaces[gid] = (byte) surface;
+                }
+            }
+            for (XmlReader.Element tile : tileset.getChildrenByName("tile")) {
+                surface = getSurface(tile);
+                int gid = firstGid + tile.getIntAttribute("id", 0);
+                if (surface != NONE && gid < size) {
+                    surfaces[gid] = (byte) surface;
+                }
+            }
+        }
+        return surfaces;
+    }
+
+    /**
+     * Builds the surface table from the tilesets of a loaded map, whose properties have already been read
+     *
+     * @param tilesets The map's tilesets
+     * @return A table of surfaces indexed by tile id, NONE for tiles without one
+     */
+    public static byte[] fromTileSets(TiledMapTileSets tilesets) {
+        int size = 1;
+        for (TiledMapTileSet tileset : tilesets) {
+            for (TiledMapTile tile : tileset) {
+                size = Math.max(size, tile.getId() + 1);
+            }
+        }
+
+        byte[] surfaces = new byte[size];
+        for (TiledMapTileSet tileset : tilesets) {
+            // The tileset's surface is the default for its tiles
+            int tilesetSurface = getSurface(tileset.getProperties());
+            for (TiledMapTile tile : tileset) {
+                int surface = getSurface(tile.getProperties());
+                if (surface == NONE) {
+                    surface = tilesetSurface;
+                }
+                surfaces[tile.getId()] = (byte) surface;
+            }
+        }
+        return surfaces;
+    }
+
+    /**
+     * @param properties A tileset's or tile's properties
+     * @return The surface in its "surface" property, or NONE if it doesn't have one
+     */
+    private static int getSurface(MapProperties properties) {
+        String value = properties.get("surface", String.class);
+        return value == null ? NONE : getSurface(value);
+    }
+
+    /**
+     * @param element A tileset or tile element
+     * @return The surface in its "surface" property, or NONE if it doesn't have one
+     */
+    private static int getSurface(XmlReader.Element element) {
+        XmlReader.Element properties = element.getChildByName("properties");
+        if (properties == null) {
+            return NONE;
+        }
+        for (XmlReader.Element property : properties.getChildrenByName("property")) {
+            if (!property.getAttribute("name", "").equals("surface")) {
+                continue;
+            }
+            return getSurface(property.getAttribute("value", ""));
+        }
+        return NONE;
+    }
+
+    /**
+     * @param value The value of a "surface" property
+     * @return The surface it names, or NONE if it isn't one
+     */
+    private static int getSurface(String value) {
+        for (int surface = 0; surface < COUNT; surface++) {
+            if (NAMES[surface].equals(value)) {
+                return surface;
+            }
+        }
+        System.out.println("WARNING: Unknown surface " + value + ", treating it as none");
+        return NONE;
+    }
+}
@@ -0,0 +1,149 @@
+package com.skloch.game;
+
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Wraps text to fit a width using the real widths of a font's glyphs, and splits it into pages of a few lines.
+ * Wrapping is done in a single pass over the text, and finished layouts are kept in a small cache so text that is
+ * shown again doesn't need to be laid out again.
+ */
+public class TextLayoutEngine {
+    private final BitmapFont.BitmapFontData fontData;
+    private final float maxWidth;
+    private final int linesPerPage;
+    private final LinkedHashMap<String, String[]> cache;
+    private final StringBuilder builder = new StringBuilder();
+
+    /**
+     * @param font The font the text will be drawn with
+     * @param maxWidth The widest a line can be, in the same units as the font
+     * @param linesPerPage How many lines fit on one page
+     * @param cacheSize How many laid out texts to remember, the least recently used is forgotten first
+     */
+    public TextLayoutEngine(BitmapFont font, float maxWidth, int linesPerPage, final int cacheSize) {
+        this.fontData = font.getData();
+        this.maxWidth = maxWidth;
+        this.linesPerPage = linesPerPage;
+
+        // Access ordered, so the eldest entry is always the least recently used
+        cache = new LinkedHashMap<String, String[]>(cacheSize + 1, 1f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String[]> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    /**
+     * Lays out a piece of text, or returns the cached layout if it has been laid out before.
+     * The returned array is shared, so should not be modified.
+     *
+     * @param text The text to lay out
+     * @return The wrapped text split into pages, always contains at least one page
+     */
+    public String[] layout(String text) {
+        String[] pages = cache.get(text);
+        if (pages == null) {
+            pages = splitPages(wrap(text));
+            cache.put(text, pages);
+        }
+        return pages;
+    }
+
+    /**
+     * Adds line breaks to text so no line is wider than maxWidth.
+     * Breaks at the last space on a line where possible, otherwise breaks in the middle of a word.
+     */
+    private String wrap(String text) {
+        builder.setLength(0);
+        float lineWidth = 0;
+        float widthAfterSpace = 0; // Width of the line after the last space on it
+        int lastSpace = -1; // Index in builder of the last space on the current line
+        BitmapFont.Glyph previous = null;
+
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\n') {
+                builder.append(c);
+                lineWidth = 0;
+                lastSpace = -1;
+                previous = null;
+                continue;
+            }
+
+            BitmapFont.Glyph glyph = fontData.getGlyph(c);
+            float advance = glyph != null ? glyph.xadvance * fontData.scaleX : fontData.spaceXadvance;
+            if (previous != null && glyph != null) {
+                advance += previous.getKerning(c) * fontData.scaleX;
+            }
+
+            if (lineWidth + advance > maxWidth && lineWidth > 0) {
+                if (c == ' ') {
+                    // Break here instead of putting a space at the end of the line
+                    builder.append('\n');
+                    lineWidth = 0;
+                    lastSpace = -1;
+                    previous = null;
+                    continue;
+                } else if (lastSpace != -1) {
+                    // Turn the last space into a line break, moving the current word onto the new line
+                    builder.setCharAt(lastSpace, '\n');
+                    lineWidth = widthAfterSpace;
+                    lastSpace = -1;
+                } else {
+                    // The word is longer than a whole line, so it has to be split
+                    builder.append('\n');
+                    lineWidth = 0;
+                }
+            }
+
+            builder.append(c);
+            lineWidth += advance;
+            if (c == ' ') {
+                lastSpace = builder.length() - 1;
+                widthAfterSpace = 0;
+            } else {
+                widthAfterSpace += advance;
+            }
+            previous = glyph;
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Splits wrapped text into pages of linesPerPage lines
+     */
+    private String[] splitPages(String wrapped) {
+        int pageCount = 1;
+        int lines = 1;
+        for (int i = 0; i < wrapped.length(); i++) {
+            if (wrapped.charAt(i) == '\n') {
+                lines++;
+                if (lines > linesPerPage) {
+                    pageCount++;
+                    lines = 1;
+                }
+            }
+        }
+
+        String[] pages = new String[pageCount];
+        int page = 0;
+        int pageStart = 0;
+        lines = 1;
+        for (int i = 0; i < wrapped.length(); i++) {
+            if (wrapped.charAt(i) == '\n') {
+                lines++;
+                if (lines > linesPerPage) {
+                    pages[page++] = wrapped.substring(pageStart, i);
+                    pageStart = i + 1;
+                    lines = 1;
+                }
+            }
+        }
+        pages[page] = wrapped.substring(pageStart);
+        return pages;
+    }
+}
@@ -0,0 +1,128 @@
+package com.skloch.game;
+
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * Hands out textures and texture atlases from the game's AssetManager, counting how many screens are using each.
+ * A screen acquires what it needs when it is made and releases it all again in dispose(), and a texture is only
+ * disposed of once nothing holds it, so playing game after game doesn't leak any memory on the GPU.
+ * <p></p>
+ * Assets.queueAll() holds one reference to everything it loads so the assets stay loaded between screens. A screen
+ * that acquires a file nothing is holding loads it there and then, and it is unloaded when released.
+ * report() lists every texture still alive and how much memory it takes up, to check nothing is left behind.
+ */
+public class TextureCache {
+    private final AssetManager assets;
+
+    public TextureCache(AssetManager assets) {
+        this.assets = assets;
+    }
+
+    /**
+     * Gets a texture or atlas, loading it if it isn't loaded already. Must be released once finished with
+     *
+     * @param fileName The path of the file, e.g. Assets.PLAYER_ATLAS
+     * @param type Texture.class or TextureAtlas.class
+     * @return The loaded asset
+     */
+    public <T> T acquire(String fileName, Class<T> type) {
+        if (assets.isLoaded(fileName, type)) {
+            addReference(fileName);
+            return assets.get(fileName, type);
+        }
+        assets.load(fileName, type);
+        return assets.finishLoadingAsset(fileName);
+    }
+
+    /**
+     * Gives back an asset from acquire(), disposing of it and its textures if nothing else is using them
+     *
+     * @param fileName The path it was acquired with
+     */
+    public void release(String fileName) {
+        if (!assets.isLoaded(fileName)) {
+            System.out.println("WARNING: Released " + fileName + " more times than it was acquired");
+            return;
+        }
+        assets.unload(fileName);
+    }
+
+    /**
+     * Adds a reference to an asset and everything it depends on, like an atlas's textures, the same way the
+     * AssetManager does when an asset is loaded twice, since unload() removes one from each of them
+     */
+    private void addReference(String fileName) {
+        assets.setReferenceCount(fileName, assets.getReferenceCount(fileName) + 1);
+        Array<String> dependencies = assets.getDependencies(fileName);
+        if (dependencies != null) {
+            for (String dependency : dependencies) {
+                addReference(dependency);
+            }
+        }
+    }
+
+    /**
+     * @return The total memory taken by the AssetManager's textures, in bytes, not counting mipmaps
+     */
+    public long getTextureBytes() {
+        long bytes = 0;
+        for (String fileName : assets.getAssetNames()) {
+            if (assets.getAssetType(fileName) == Texture.class) {
+                bytes += getBytes(assets.get(fileName, Texture.class));
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * @return A list of every loaded texture with how many references it has and its size on the GPU, followed by
+     * the totals. Textures made outside of the AssetManager, like the map renderers', are counted at the end
+     */
+    public String report() {
+        StringBuilder builder = new StringBuilder("Live textures:\n");
+        int count = 0;
+        // Map tilesets are loaded unmanaged, see ParallelTmxMapLoader, so only managed ones are taken off
+        // Texture.getNumManagedTextures() to find the textures made outside of the AssetManager
+        int managed = 0;
+        for (String fileName : assets.getAssetNames()) {
+            if (assets.getAssetType(fileName) != Texture.class) {
+                continue;
+            }
+            Texture texture = assets.get(fileName, Texture.class);
+            long textureBytes = getBytes(texture);
+            builder.append(String.format("  %-50s %5dx%-5d refs %d  %7.1f KB\n", fileName, texture.getWidth(),
+                    texture.getHeight(), assets.getReferenceCount(fileName), textureBytes / 1024f));
+            count++;
+            if (texture.isManaged()) {
+                managed++;
+            }
+        }
+        builder.append(String.format("%d textures from assets, %.2f MB\n", count, getTextureBytes() / (1024f * 1024f)));
+        builder.append(count - managed).append(" of them unmanaged\n");
+        builder.append(Texture.getNumManagedTextures() - managed).append(" other managed textures");
+        return builder.toString();
+    }
+
+    private static long getBytes(Texture texture) {
+        return (long) texture.getWidth() * texture.getHeight() * getBytesPerPixel(texture.getTextureData().getFormat());
+    }
+
+    private static int getBytesPerPixel(Pixmap.Format format) {
+        switch (format) {
+            case Alpha:
+            case Intensity:
+                return 1;
+            case LuminanceAlpha:
+            case RGB565:
+            case RGBA4444:
+                return 2;
+            case RGB888:
+                return 3;
+            default:
+                return 4;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.skloch.game;
+
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.g2d.Batch;
+import com.badlogic.gdx.graphics.g2d.BitmapFontCache;
+import com.badlogic.gdx.scenes.scene2d.ui.Label;
+import com.badlogic.gdx.scenes.scene2d.ui.Skin;
+
+/**
+ * A label that reveals its text a few characters at a time, like a typewriter.
+ * The text is laid out once when it is set, and revealing it just draws fewer of the already laid out glyphs,
+ * so no new strings or layouts are made while it scrolls. Speed is in characters per second, so it scrolls at the
+ * same rate no matter the frame rate.
+ * <p></p>
+ * When the reveal finishes depends only on the time acted and the number of characters, not on when the label is
+ * drawn, so a replay that runs many ticks between draws sees the same result as the recording.
+ */
+public class TypewriterLabel extends Label {
+    // Each glyph in a BitmapFontCache is a quad of 4 vertices with 5 floats each
+    private static final int FLOATS_PER_GLYPH = 20;
+
+    private float charactersPerSecond;
+    private float elapsed = 0;
+    private boolean revealing = false;
+    private int glyphCount = 0;
+    private int characterCount = 0; // The characters to reveal, counted when the reveal starts
+    private final Color drawColor = new Color();
+
+    /**
+     * @param text The initial text, shown in full
+     * @param skin The skin containing the label style
+     * @param styleName The name of the label style
+     * @param charactersPerSecond How many characters to reveal each second
+     */
+    public TypewriterLabel(CharSequence text, Skin skin, String styleName, float charactersPerSecond) {
+        super(text, skin, styleName);
+        this.charactersPerSecond = charactersPerSecond;
+    }
+
+    /**
+     * Starts revealing the label's current text from the beginning, call after setting the text
+     */
+    public void restart() {
+        elapsed = 0;
+        revealing = true;
+        // Line breaks don't make glyphs, so they aren't waited for
+        CharSequence text = getText();
+        characterCount = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) != '\n') {
+                characterCount++;
+            }
+        }
+    }
+
+    /**
+     * Shows all the text immediately
+     */
+    public void finish() {
+        revealing = false;
+    }
+
+    /**
+     * @return true if all the text is visible
+     */
+    public boolean isFinished() {
+        return !revealing;
+    }
+
+    /**
+     * @param charactersPerSecond How many characters to reveal each second
+     */
+    public void setCharactersPerSecond(float charactersPerSecond) {
+        this.charactersPerSecond = charactersPerSecond;
+    }
+
+    /**
+     * Advances the reveal by the time passed, called by the stage every frame
+     *
+     * @param delta Time in seconds since the last frame
+     */
+    @Override
+    public void act(float delta) {
+        super.act(delta);
+        if (revealing) {
+            elapsed += delta;
+            if (getVisibleGlyphs() >= characterCount) {
+                revealing = false;
+            }
+        }
+    }
+
+    /**
+     * Lays out the text, and counts the glyphs it produced so the reveal knows when to stop
+     */
+    @Override
+    public void layout() {
+        super.layout();
+        BitmapFontCache cache = getBitmapFontCache();
+        glyphCount = 0;
+        for (int page = 0; page < cache.getFont().getRegions().size; page++) {
+            glyphCount += cache.getVertexCount(page) / FLOATS_PER_GLYPH;
+        }
+    }
+
+    private int getVisibleGlyphs() {
+        return (int) (elapsed * charactersPerSecond);
+    }
+
+    /**
+     * Draws the label, only drawing the glyphs that have been revealed so far
+     */
+    @Override
+    public void draw(Batch batch, float parentAlpha) {
+        if (!revealing) {
+            super.draw(batch, parentAlpha);
+            return;
+        }
+
+        // The same as Label.draw(), but with a limit on how many glyphs are drawn
+        validate();
+        LabelStyle style = getStyle();
+        drawColor.set(getColor());
+        drawColor.a *= parentAlpha;
+        if (style.background != null) {
+            batch.setColor(drawColor.r, drawColor.g, drawColor.b, drawColor.a);
+            style.background.draw(batch, getX(), getY(), getWidth(), getHeight());
+        }
+        if (style.fontColor != null) {
+            drawColor.mul(style.fontColor);
+        }
+
+        int visible = Math.min(getVisibleGlyphs(), glyphCount);
+        if (visible > 0) {
+            BitmapFontCache cache = getBitmapFontCache();
+            cache.tint(drawColor);
+            cache.setPosition(getX(), getY());
+            cache.draw(batch, 0, visible);
+        }
+    }
+}
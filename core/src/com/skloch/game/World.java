@@ -0,0 +1,114 @@
+package com.skloch.game;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.maps.MapProperties;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.ObjectMap;
+
+/**
+ * Every map the player can visit, linked together by portals.
+ * A portal is an object with a "portal" property naming the map it leads to. Walking into it moves the player to
+ * the object in that map with an "arrival" property naming the map they came from, or to its spawn point if there
+ * isn't one.
+ * <p></p>
+ * Maps are loaded through the game's AssetManager. GameScreen asks for a map to be preloaded when the player gets
+ * near a portal to it, and update() loads it a little each frame, so it is usually ready before the player arrives.
+ */
+public class World implements Disposable {
+    private final AssetManager assets;
+    private final ObjectMap<String, WorldMap> maps = new ObjectMap<String, WorldMap>();
+
+    /**
+     * @param assets The AssetManager to load maps with, it needs the loaders set by Assets.queueAll()
+     */
+    public World(AssetManager assets) {
+        this.assets = assets;
+    }
+
+    /**
+     * Adds a map to the world, it isn't loaded until it is needed
+     *
+     * @param name The name portals use to lead to the map
+     * @param tmxFile The .tmx map
+     * @param bakedFile The map baked by MapBaker, used instead if it has been made, or null
+     * @param foregroundLayers The names of the tile layers drawn over the player
+     * @return The map
+     */
+    public WorldMap add(String name, String tmxFile, String bakedFile, String... foregroundLayers) {
+        String file = tmxFile;
+        if (bakedFile != null && Gdx.files.internal(bakedFile).exists()) {
+            file = bakedFile;
+        }
+        WorldMap map = new WorldMap(name, file, foregroundLayers);
+        maps.put(name, map);
+        return map;
+    }
+
+    /**
+     * @param name The map's name
+     * @return The map, or null if there is no map with that name
+     */
+    public WorldMap get(String name) {
+        return maps.get(name);
+    }
+
+    /**
+     * Starts loading a map in the background if it isn't loaded or loading already
+     */
+    public void preload(WorldMap map) {
+        if (!assets.contains(map.file)) {
+            assets.load(map.file, TiledMap.class);
+        }
+    }
+
+    /**
+     * @return true if the AssetManager has finished loading the map, so load() won't have to wait for it
+     */
+    public boolean isLoaded(WorldMap map) {
+        return assets.isLoaded(map.file);
+    }
+
+    /**
+     * Carries on loading any preloaded maps, call once a frame
+     */
+    public void update() {
+        assets.update();
+    }
+
+    /**
+     * Makes sure a map is loaded, waiting for it if it wasn't preloaded in time
+     *
+     * @param map The map to load
+     * @return map, for convenience
+     */
+    public WorldMap load(WorldMap map) {
+        if (map.map == null) {
+            preload(map);
+            map.setMap(assets.finishLoadingAsset(map.file));
+        }
+        return map;
+    }
+
+    /**
+     * Checks whether an object only marks a place on the map, like a spawn point, portal or arrival point, rather
+     * than being something to collide with
+     *
+     * @param properties The object's properties
+     * @return true if the player shouldn't collide with it
+     */
+    public static boolean isMarker(MapProperties properties) {
+        return properties.containsKey("spawn") || properties.containsKey("portal") || properties.containsKey("arrival");
+    }
+
+    /**
+     * Disposes of every map's renderers, the maps themselves are disposed of with the AssetManager
+     */
+    @Override
+    public void dispose() {
+        for (WorldMap map : maps.values()) {
+            map.dispose();
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.skloch.game;
+
+import com.badlogic.gdx.graphics.g2d.Batch;
+import com.badlogic.gdx.maps.MapLayer;
+import com.badlogic.gdx.maps.MapLayers;
+import com.badlogic.gdx.maps.MapProperties;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.IntArray;
+
+/**
+ * One map in the World, with the layer groups worked out from the map itself and the renderers that draw it.
+ * The TiledMap is loaded by the World's AssetManager, and everything made from it is kept until the game is closed,
+ * so going back to a map doesn't load or bake anything again.
+ */
+public class WorldMap implements Disposable {
+    public final String name;
+    public final String file; // The file loaded, the baked map if there is one
+    private final String[] foregroundNames;
+    public TiledMap map; // null until loaded, see World.load()
+    public int[] backgroundLayers, foregroundLayers, objectLayers;
+    public int width, height; // In tiles
+    public int tileWidth; // In pixels
+    // The surface of each tile id, see Surfaces, and the background layers to look for them in, top first
+    private byte[] surfaces;
+    private TiledMapTileLayer[] groundLayers;
+    private MapView view;
+
+    /**
+     * @param name The name portals use to lead to this map
+     * @param file The map file to load, a baked .map or a .tmx
+     * @param foregroundNames The names of the tile layers drawn over the player, the same as given to MapBaker
+     */
+    WorldMap(String name, String file, String[] foregroundNames) {
+        this.name = name;
+        this.file = file;
+        this.foregroundNames = foregroundNames;
+    }
+
+    /**
+     * Groups the layers of the loaded map. Tile layers named as foreground layers, or with a "foreground" property,
+     * are drawn over the player and the rest behind, and every other layer is an object layer.
+     * A baked map already has its groups, see MapBaker. Also takes the surfaces of the map's tiles, which
+     * BakedMapLoader and ParallelTmxMapLoader put in the map's properties
+     *
+     * @param map The loaded map
+     */
+    void setMap(TiledMap map) {
+        this.map = map;
+        MapProperties properties = map.getProperties();
+        width = properties.get("width", Integer.class);
+        height = properties.get("height", Integer.class);
+        tileWidth = properties.get("tilewidth", Integer.class);
+
+        surfaces = properties.get("surfaces", byte[].class);
+        if (surfaces == null) {
+            // Loaded some other way, so none of its tiles have a surface
+            surfaces = new byte[0];
+        }
+        if (properties.containsKey("backgroundLayers")) {
+            backgroundLayers = properties.get("backgroundLayers", int[].class);
+            foregroundLayers = properties.get("foregroundLayers", int[].class);
+            objectLayers = properties.get("objectLayers", int[].class);
+        } else {
+            groupLayers();
+        }
+
+        groundLayers = new TiledMapTileLayer[backgroundLayers.length];
+        for (int i = 0; i < backgroundLayers.length; i++) {
+            groundLayers[i] = (TiledMapTileLayer) map.getLayers().get(backgroundLayers[backgroundLayers.length - 1 - i]);
+        }
+    }
+
+    private void groupLayers() {
+        IntArray background = new IntArray(), foreground = new IntArray(), objects = new IntArray();
+        MapLayers layers = map.getLayers();
+        for (int i = 0; i < layers.getCount(); i++) {
+            MapLayer layer = layers.get(i);
+            if (!(layer instanceof TiledMapTileLayer)) {
+                objects.add(i);
+            } else if (isForeground(layer)) {
+                foreground.add(i);
+            } else {
+                background.add(i);
+            }
+        }
+        backgroundLayers = background.toArray();
+        foregroundLayers = foreground.toArray();
+        objectLayers = objects.toArray();
+    }
+
+    private boolean isForeground(MapLayer layer) {
+        if (layer.getProperties().get("foreground", false, Boolean.class)) {
+            return true;
+        }
+        for (String name : foregroundNames) {
+            if (name.equals(layer.getName())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Finds what the player would be walking on at a tile: the surface of the highest background tile there that has
+     * one. Only reads arrays, so it is cheap enough to call every step
+     *
+     * @param tileX The tile's column, from the left
+     * @param tileY The tile's row, from the bottom
+     * @return The surface, see Surfaces, or Surfaces.NONE if none of the tiles there have one
+     */
+    public int getSurface(int tileX, int tileY) {
+        for (TiledMapTileLayer layer : groundLayers) {
+            TiledMapTileLayer.Cell cell = layer.getCell(tileX, tileY);
+            if (cell == null || cell.getTile() == null) {
+                continue;
+            }
+            int id = cell.getTile().getId();
+            if (id < surfaces.length && surfaces[id] != Surfaces.NONE) {
+                return surfaces[id];
+            }
+        }
+        return Surfaces.NONE;
+    }
+
+    /**
+     * @param mapScale The size a tile is drawn at in world units, e.g. game.mapScale
+     * @return How much the map's pixels are scaled by to draw it
+     */
+    public float getUnitScale(float mapScale) {
+        return mapScale / tileWidth;
+    }
+
+    /**
+     * Gets the renderers that draw the map, making them the first time this is called
+     *
+     * @param shaderLayers The layers to draw with the shader renderer if they can be, e.g. game.shaderLayers
+     * @param mapScale The size a tile is drawn at in world units
+     * @param batch The batch to draw with, shared with the rest of the game
+     * @return The MapView for the map, shared by every game
+     */
+    public MapView getView(int[] shaderLayers, float mapScale, Batch batch) {
+        if (view == null) {
+            view = new MapView(map, backgroundLayers, foregroundLayers, shaderLayers, getUnitScale(mapScale), batch);
+        }
+        return view;
+    }
+
+    /**
+     * @return true if getView() has already made the renderers
+     */
+    public boolean hasView() {
+        return view != null;
+    }
+
+    /**
+     * Disposes of the renderers, the map itself belongs to the AssetManager
+     */
+    @Override
+    public void dispose() {
+        if (view != null) {
+            view.dispose();
+            view = null;
+        }
+    }
+}
@@ -15,12 +15,36 @@ public class DesktopLauncher {
 		config.setTitle("Heslington Hustle");
 		config.setWindowedMode(WIDTH, HEIGHT);
 		config.useVsync(true);
-		config.setForegroundFPS(60);
 
 		config.setWindowIcon(Files.FileType.Internal, "Icons/icon_16x16.png");
 		config.setWindowIcon(Files.FileType.Internal, "Icons/icon_32x32.png");
 		config.setWindowIcon(Files.FileType.Internal, "Icons/icon_128x128.png");
 
-		new Lwjgl3Application(new HustleGame(WIDTH, HEIGHT), config);
+		HustleGame game = new HustleGame(WIDTH, HEIGHT);
+		// --record <file> saves the inputs of the next game played, --replay <file> plays them back
+		// Add --fast to play the replay back as fast as possible
+		// --texture-report prints the textures still loaded whenever a game is left
+		// --logic-thread runs the game's ticks on a separate thread from drawing
+		// --stream-map loads the baked map a chunk at a time around the player instead of all at once
+		// Add --map and the name of a map to start on it, e.g. --map "Test Map"
+		for (int i = 0; i < arg.length; i++) {
+			if (arg[i].equals("--record") && i + 1 < arg.length) {
+				game.recordFile = arg[++i];
+			} else if (arg[i].equals("--replay") && i + 1 < arg.length) {
+				game.replayFile = arg[++i];
+			} else if (arg[i].equals("--fast")) {
+				game.replayMaxSpeed = true;
+			} else if (arg[i].equals("--texture-report")) {
+				game.reportTextures = true;
+			} else if (arg[i].equals("--logic-thread")) {
+				game.useLogicThread = true;
+			} else if (arg[i].equals("--stream-map")) {
+				game.streamMap = true;
+			} else if (arg[i].equals("--map") && i + 1 < arg.length) {
+				game.startMap = arg[++i];
+			}
+		}
+
+		new Lwjgl3Application(game, config);
 	}
 }
@@ -0,0 +1,91 @@
+package com.skloch.game;
+
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.backends.headless.HeadlessApplicationConfiguration;
+import com.badlogic.gdx.math.RandomXS128;
+
+// Runs the game's logic without a window, playing through the week with a simple scripted player
+// Usage: HeadlessLauncher [playthroughs] [seed]
+public class HeadlessLauncher {
+	public static void main (String[] arg) {
+		final int playthroughs = arg.length > 0 ? Integer.parseInt(arg[0]) : 10;
+		final long seed = arg.length > 1 ? Long.parseLong(arg[1]) : 0;
+
+		HeadlessApplicationConfiguration config = new HeadlessApplicationConfiguration();
+		// Everything is run in create(), so there is no need for a render loop
+		config.updatesPerSecond = -1;
+
+		new HeadlessApplication(new ApplicationAdapter() {
+			@Override
+			public void create () {
+				long start = System.nanoTime();
+				long ticks = 0;
+				// The map is only read once, each playthrough makes its own objects from it
+				MapObjectLoader map = new MapObjectLoader(Gdx.files.internal(Assets.MAP));
+				for (int i = 0; i < playthroughs; i++) {
+					ticks += runPlaythrough(map, i, seed + i);
+				}
+				float seconds = (System.nanoTime() - start) / 1e9f;
+				System.out.printf("%d playthroughs, %d ticks in %.2fs (%.0f ticks/s)%n", playthroughs, ticks, seconds, ticks / seconds);
+				Gdx.app.exit();
+			}
+		}, config);
+	}
+
+	/**
+	 * Plays through a week: wanders around in the morning, studies, eats, meets friends and then sleeps each day
+	 *
+	 * @param map The objects of the map to play on
+	 * @return The number of ticks simulated
+	 */
+	private static long runPlaythrough (MapObjectLoader map, int number, long seed) {
+		// Same map scale and collision resolution as HustleGame
+		HeadlessSimulation simulation = new HeadlessSimulation(map, 70f, 4, seed);
+		GameState state = simulation.state;
+		RandomXS128 random = state.random;
+		MovementInput input = new MovementInput();
+		float step = 1f / 60;
+		long ticks = 0;
+
+		while (!state.isGameOver()) {
+			// Walk in a random direction for an in game hour, changing direction every few seconds
+			for (int t = 0; t < 60 * 60 && !state.isGameOver(); t++) {
+				if (t % 180 == 0) {
+					input.clear();
+					input.up = random.nextBoolean();
+					input.down = !input.up && random.nextBoolean();
+					input.left = random.nextBoolean();
+					input.right = !input.left && random.nextBoolean();
+				}
+				simulation.tick(step, input);
+				ticks++;
+			}
+			if (state.isGameOver()) {
+				break;
+			}
+
+			// The same choices the events offer
+			int studyHours = 2 + random.nextInt(3);
+			if (!state.isTooEarly() && state.hasEnergyFor(GameState.STUDYING, studyHours)) {
+				state.study(studyHours);
+			}
+			if (!state.isTooEarly() && state.hasEnergyFor(GameState.EATING, 1)) {
+				state.eat();
+			}
+			if (!state.isTooEarly() && state.hasEnergyFor(GameState.MEET_FRIENDS, 1)) {
+				state.meetFriends(1 + random.nextInt(3));
+			}
+			// Go to bed once it gets late
+			if (state.getSeconds() > 22 * 60 || state.getEnergy() == 0) {
+				state.sleep(state.getSecondsUntilWakeUp());
+			}
+		}
+
+		System.out.printf("Playthrough %d: studied %d, recreation %d, slept %d hours, ended at (%.0f, %.0f)%n",
+				number, state.getHoursStudied(), state.getHoursRecreational(), state.getHoursSlept(),
+				simulation.player.getX(), simulation.player.getY());
+		return ticks;
+	}
+}
@@ -0,0 +1,39 @@
+package com.skloch.game;
+
+import java.util.HashMap;
+import java.util.concurrent.ForkJoinPool;
+
+// Plays lots of random weekly schedules through the game's rules and prints how they scored, for checking balance
+// Usage: ScheduleLauncher [schedules] [trials per schedule] [seed] [threads] [activity=energy ...]
+// E.g. ScheduleLauncher 100000 10 0 8 studying=12 meet_friends=8
+public class ScheduleLauncher {
+	public static void main (String[] arg) {
+		int schedules = arg.length > 0 ? Integer.parseInt(arg[0]) : 100000;
+		int trials = arg.length > 1 ? Integer.parseInt(arg[1]) : 10;
+		long seed = arg.length > 2 ? Long.parseLong(arg[2]) : 0;
+		int threads = arg.length > 3 ? Integer.parseInt(arg[3]) : Runtime.getRuntime().availableProcessors();
+
+		// Any energy costs to try instead of the game's
+		HashMap<String, Integer> energies = new HashMap<String, Integer>();
+		for (int i = 4; i < arg.length; i++) {
+			String[] pair = arg[i].split("=");
+			energies.put(pair[0], Integer.parseInt(pair[1]));
+		}
+
+		// 20 minutes to walk between buildings
+		ScheduleEvaluator evaluator = new ScheduleEvaluator(seed, trials, 20, energies.isEmpty() ? null : energies);
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		long start = System.nanoTime();
+		ScheduleEvaluator.Results results = evaluator.evaluate(pool, schedules, 5);
+		float seconds = (System.nanoTime() - start) / 1e9f;
+		pool.shutdown();
+
+		System.out.printf("Played %d weeks on %d threads in %.2fs (%.0f weeks/s)%n", results.weeks, threads, seconds, results.weeks / seconds);
+		System.out.println("Totals as mean [5th, 25th, 50th, 75th, 95th percentiles]");
+		System.out.println(results);
+		for (int i = 0; i < results.getBestCount(); i++) {
+			System.out.printf("%nSchedule %d studied %.1f hours on average:%n", results.bestIndex[i], results.bestScore[i]);
+			System.out.print(ScheduleEvaluator.describe(results.bestSchedule[i]));
+		}
+	}
+}